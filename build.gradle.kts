@@ -8,6 +8,7 @@ repositories {
 
 dependencies {
     compileOnly("net.portswigger.burp.extensions:montoya-api:2025.5")
+    implementation(project(":core"))
 }
 
 tasks.withType<JavaCompile> {
@@ -17,7 +18,10 @@ tasks.withType<JavaCompile> {
 }
 
 tasks.jar {
+    dependsOn(configurations.runtimeClasspath)
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
     from(configurations.runtimeClasspath.get().filter { it.isDirectory })
-    from(configurations.runtimeClasspath.get().filterNot { it.isDirectory }.map { zipTree(it) })
-}
\ No newline at end of file
+    from(configurations.runtimeClasspath.get().filterNot { it.isDirectory }.map { zipTree(it) }) {
+        exclude("META-INF/MANIFEST.MF")
+    }
+}
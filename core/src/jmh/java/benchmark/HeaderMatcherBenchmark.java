@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import filter.HeaderMatcher;
+
+/** Classifies a fixed batch of realistic header names against pattern sets of increasing size. */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeaderMatcherBenchmark {
+    private static final String[] NAMES = {
+        "Host", "User-Agent", "Accept", "Accept-Language", "Accept-Encoding", "Content-Type",
+        "Content-Length", "Cookie", "Authorization", "Sec-Fetch-Site", "Sec-Ch-Ua", "X-Requested-With",
+        "X-Custom-Header-12", "X-Vendor-16-Id", "X-Trace-19-19", "Origin", "Referer", "Connection"
+    };
+
+    @Param({"7", "80", "500"})
+    public int patternCount;
+
+    private HeaderMatcher matcher;
+    private List<Pattern> legacyPatterns;
+
+    @Setup
+    public void setup() {
+        List<String> patterns = MessageCorpus.patterns(patternCount);
+        matcher = HeaderMatcher.compile(patterns);
+        legacyPatterns = new ArrayList<>();
+        for (String pattern : patterns) legacyPatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+    }
+
+    @Benchmark
+    public int compiledMatcher() {
+        int excluded = 0;
+        for (String name : NAMES) {
+            if (matcher.excludes(name)) excluded++;
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    public int legacyRegexStream() {
+        int excluded = 0;
+        for (String name : NAMES) {
+            if (legacyPatterns.stream().anyMatch(p -> p.matcher(name).find())) excluded++;
+        }
+        return excluded;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import filter.ByteOutput;
+import filter.HeaderMatcher;
+import filter.MessageFilter;
+
+/**
+ * Filters one whole message per invocation. {@code legacyStringFilter} reproduces the original
+ * toString()/split()/regex-stream implementation as a baseline for {@code byteFilter}.
+ * Run with {@code gradle jmh}; the gc profiler reports allocation rate and sample mode reports p99.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageFilterBenchmark {
+    @Param({"SMALL_GET", "MANY_HEADERS", "LARGE_RESPONSE"})
+    public MessageCorpus.Kind corpus;
+
+    @Param({"7", "80", "500"})
+    public int patternCount;
+
+    private StubHttpMessage message;
+    private HeaderMatcher matcher;
+    private Set<Pattern> legacyPatterns;
+    private ByteOutput out;
+
+    @Setup
+    public void setup() {
+        message = new StubHttpMessage(MessageCorpus.message(corpus));
+        List<String> patterns = MessageCorpus.patterns(patternCount);
+        matcher = HeaderMatcher.compile(patterns);
+        legacyPatterns = new HashSet<>();
+        for (String pattern : patterns) {
+            try {
+                legacyPatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+            } catch (PatternSyntaxException e) {
+                legacyPatterns.add(Pattern.compile(Pattern.quote(pattern), Pattern.CASE_INSENSITIVE));
+            }
+        }
+        out = new ByteOutput();
+    }
+
+    @Benchmark
+    public int byteFilter() {
+        out.reset();
+        MessageFilter.filter(message.toByteArray(), matcher, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public String byteFilterToString() {
+        out.reset();
+        MessageFilter.filter(message.toByteArray(), matcher, out);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public String legacyStringFilter() {
+        String rawMessage = message.toString();
+        StringBuilder filtered = new StringBuilder();
+        filtered.append(rawMessage, 0, rawMessage.indexOf("\r\n")).append("\r\n");
+        for (StubHttpMessage.StubHttpHeader header : message.headers()) {
+            String headerName = header.toString().split(":")[0].trim();
+            boolean exclude = legacyPatterns.stream().anyMatch(pattern -> pattern.matcher(headerName).find());
+            if (!exclude) {
+                filtered.append(header.toString()).append("\r\n");
+            }
+        }
+        filtered.append("\r\n").append(message.bodyToString());
+        return filtered.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import filter.ByteOutput;
+import filter.RedactionRules;
+import filter.Redactor;
+
+/**
+ * Redacts a 20 MB text body in 64 KB chunks, as {@code BodyWriter} feeds it. The cost per byte should
+ * stay flat as the number of literal secrets grows.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RedactionBenchmark {
+    private static final int BODY_BYTES = 20 * 1024 * 1024;
+    private static final int CHUNK = 64 * 1024;
+
+    @Param({"0", "10", "1000"})
+    public int literals;
+
+    @Param({"true", "false"})
+    public boolean tokens;
+
+    private Redactor redactor;
+    private byte[] body;
+    private ByteOutput out;
+
+    @Setup
+    public void setup() {
+        List<String> secrets = new ArrayList<>();
+        for (int i = 0; i < literals; i++) secrets.add("secret-" + i + "-value");
+        redactor = Redactor.build(new RedactionRules(true, tokens, false, secrets), List.of());
+        Random random = new Random(42);
+        body = new byte[BODY_BYTES];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (random.nextInt(8) == 0 ? ' ' : 'a' + random.nextInt(26));
+        }
+        out = new ByteOutput(BODY_BYTES + 1024);
+    }
+
+    @Benchmark
+    public int redactBody() {
+        out.reset();
+        Redactor.Stream stream = redactor.stream(out);
+        for (int pos = 0; pos < body.length; pos += CHUNK) {
+            stream.write(body, pos, Math.min(CHUNK, body.length - pos));
+        }
+        stream.finish();
+        return out.size();
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import filter.HeaderMatcher;
+import filter.RegexSafety;
+
+/**
+ * Hostile header names against backtracking-prone patterns. Every name is distinct so the decision cache
+ * cannot hide the regex cost; the deadline is what keeps {@link #boundedMatch} from running away.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegexStressBenchmark {
+    private static final int NAMES = 4096;
+
+    @Param({"x-(a+)+$", "([a-z]+-)*[a-z]+$", "\\w+\\d+$", "^x-trace-[0-9]+-9$"})
+    public String pattern;
+
+    @Param({"32", "256"})
+    public int nameLength;
+
+    private HeaderMatcher matcher;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setup() {
+        matcher = HeaderMatcher.compile(List.of(pattern));
+        names = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = "x-" + "a".repeat(nameLength) + "!" + i;
+        }
+    }
+
+    @Benchmark
+    public boolean boundedMatch() {
+        return matcher.excludes(names[next++ & (NAMES - 1)]);
+    }
+
+    @Benchmark
+    public RegexSafety.Verdict analyse() {
+        return RegexSafety.analyse(pattern).verdict();
+    }
+}
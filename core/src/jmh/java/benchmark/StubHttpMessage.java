@@ -0,0 +1,68 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal stand-in for Montoya's HttpRequest/HttpResponse: raw bytes plus the accessors the
+ * copy actions use ({@code toByteArray().getBytes()}, {@code toString()}, {@code headers()},
+ * {@code bodyToString()}), so benchmarks run without a Burp instance.
+ */
+final class StubHttpMessage {
+    private final byte[] raw;
+    private final List<StubHttpHeader> headers;
+    private final int bodyOffset;
+
+    StubHttpMessage(byte[] raw) {
+        this.raw = raw;
+        this.headers = new ArrayList<>();
+        String head = new String(raw, 0, Math.min(raw.length, headerEnd(raw)), StandardCharsets.ISO_8859_1);
+        String[] lines = head.split("\r\n");
+        for (int i = 1; i < lines.length; i++) {
+            if (!lines[i].isEmpty()) headers.add(new StubHttpHeader(lines[i]));
+        }
+        this.bodyOffset = Math.min(raw.length, headerEnd(raw) + 4);
+    }
+
+    byte[] toByteArray() {
+        return raw.clone();
+    }
+
+    List<StubHttpHeader> headers() {
+        return headers;
+    }
+
+    String bodyToString() {
+        return new String(raw, bodyOffset, raw.length - bodyOffset, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return new String(raw, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int headerEnd(byte[] raw) {
+        for (int i = 0; i + 3 < raw.length; i++) {
+            if (raw[i] == '\r' && raw[i + 1] == '\n' && raw[i + 2] == '\r' && raw[i + 3] == '\n') return i;
+        }
+        return raw.length;
+    }
+
+    static final class StubHttpHeader {
+        private final String line;
+
+        StubHttpHeader(String line) {
+            this.line = line;
+        }
+
+        String name() {
+            return line.substring(0, line.indexOf(':')).trim();
+        }
+
+        @Override
+        public String toString() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import export.ExportEncoder;
+import export.ExportFormat;
+import export.ExportWriter;
+import filter.ByteOutput;
+import filter.ContentInfo;
+import filter.FilterConfig;
+import filter.MessageFilter;
+import render.FilteredMessages;
+
+/**
+ * Filters input files in parallel, one file per worker thread. Each file is read item by item and
+ * written through its own {@link ExportWriter}, so a worker filters while its writer thread writes, and
+ * memory stays at a few chunks per file however large the captures are.
+ */
+final class BatchJob {
+    private final FilterConfig config;
+    private final ExportFormat format;
+    private final Path outputDir;
+    private final int threads;
+
+    /**
+     * @param format    output format, or {@code null} to write each file in its input format
+     * @param outputDir directory for the output files, or {@code null} to write them next to their inputs
+     */
+    BatchJob(FilterConfig config, ExportFormat format, Path outputDir, int threads) {
+        this.config = config;
+        this.format = format;
+        this.outputDir = outputDir;
+        this.threads = threads;
+    }
+
+    /** Filters every file; {@code progress} is called from the workers as each file finishes. */
+    List<FileReport> run(List<Path> inputs, Consumer<FileReport> progress) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())),
+                Thread.ofPlatform().name("copycat-batch-", 0).factory());
+        try {
+            List<Future<FileReport>> futures = new ArrayList<>();
+            for (Path input : inputs) {
+                futures.add(workers.submit(() -> {
+                    FileReport report = filterFile(input);
+                    progress.accept(report);
+                    return report;
+                }));
+            }
+            List<FileReport> reports = new ArrayList<>();
+            for (Future<FileReport> future : futures) {
+                try {
+                    reports.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return reports;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private FileReport filterFile(Path input) {
+        long start = System.nanoTime();
+        InputFormat inputFormat = InputFormat.of(input);
+        ExportFormat outputFormat = format == null ? inputFormat.output() : format;
+        Path output = outputPath(input, outputFormat);
+        long bytesIn = 0;
+        ExportWriter writer = null;
+        try {
+            bytesIn = Files.size(input);
+            writer = new ExportWriter(output, outputFormat.compressed());
+            ItemWriter items = new ItemWriter(outputFormat.encoder(), writer);
+            long count = inputFormat.read(input, items);
+            items.finish();
+            writer.close();
+            return new FileReport(input, output, count, bytesIn, writer.bytesWritten(), System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            if (writer != null) writer.abort();
+            return new FileReport(input, output, 0, bytesIn, 0, System.nanoTime() - start,
+                    e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+    }
+
+    /** {@code <name>.filtered.<extension>}, so an output never replaces its input. */
+    private Path outputPath(Path input, ExportFormat outputFormat) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        Path dir = outputDir != null ? outputDir : input.toAbsolutePath().getParent();
+        return dir.resolve(base + ".filtered." + outputFormat.extension());
+    }
+
+    /** Filters each item into one reused {@link FilteredMessages} and encodes it into the current chunk. */
+    private final class ItemWriter implements ItemHandler {
+        private final ExportEncoder encoder;
+        private final ExportWriter writer;
+        private final FilteredMessages item = new FilteredMessages();
+        private ByteOutput chunk;
+        private int index;
+
+        ItemWriter(ExportEncoder encoder, ExportWriter writer) {
+            this.encoder = encoder;
+            this.writer = writer;
+            this.chunk = writer.acquire();
+            encoder.begin(chunk);
+        }
+
+        @Override
+        public void item(List<Message> messages, String url) throws IOException {
+            item.clear();
+            for (Message message : messages) {
+                boolean request = message.kind() == FilteredMessages.Kind.REQUEST;
+                ContentInfo content = ContentInfo.forBody(request, message.head(), config.bodyPolicy());
+                int mark = item.begin();
+                MessageFilter.filter(message.head(), message.body(), content, message.decoded(), config, item.buffer());
+                item.end(mark, message.kind(), request ? url : null);
+            }
+            encoder.item(index++, item, chunk);
+            if (chunk.size() >= ExportWriter.CHUNK_BYTES) {
+                writer.submit(chunk);
+                chunk = writer.acquire();
+            }
+        }
+
+        void finish() throws IOException {
+            encoder.end(chunk);
+            writer.submit(chunk);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+import export.ExportFormat;
+import filter.BodyMode;
+import filter.BodyPolicy;
+import filter.FilterConfig;
+import filter.HeaderMatcher;
+import filter.PatternCache;
+import filter.RedactionRules;
+import filter.Redactor;
+import filter.RegexSafety;
+
+/**
+ * Batch mode: filters saved traffic files with the same header patterns, body handling and redaction as
+ * the extension, without Burp. Files are filtered in parallel and a throughput line is printed for each
+ * file and for the whole run.
+ */
+public final class CopycatCli {
+    private static final String USAGE = """
+            Usage: copycat-cli [options] <file or directory>...
+
+            Filters raw HTTP (.http), HAR (.har) and compressed Copycat (.ccz) files into
+            <name>.filtered.<ext>. Directories are searched for files with these extensions.
+
+            Options:
+              --patterns <file>     excluded header patterns, one per line ("Import from File..." format)
+              --exclude <list>      comma-separated patterns, added to --patterns
+              --body <mode>         full, truncate, headers or hash (default full)
+              --truncate-kb <n>     body limit for --body truncate (default 16)
+              --no-decode           copy response bodies without decoding them
+              --redact <file>       literal secrets to redact, one per line
+              --redact-tokens       also redact JWTs, AWS keys and email addresses
+              --format <format>     output format: http, har, jsonl or ccz (default: the input's format)
+              --out <directory>     where to write the output files (default: next to each input)
+              --threads <n>         files filtered at once (default: number of cores)
+            """;
+
+    private CopycatCli() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println("copycat-cli: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("copycat-cli: " + e.getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            System.exit(130);
+        }
+    }
+
+    private static int run(String[] args) throws IOException, InterruptedException {
+        List<String> patterns = new ArrayList<>();
+        List<Path> inputs = new ArrayList<>();
+        BodyMode mode = BodyMode.FULL;
+        int truncateKb = BodyPolicy.DEFAULT_TRUNCATE_BYTES / 1024;
+        boolean decode = true;
+        List<String> secrets = new ArrayList<>();
+        boolean tokens = false;
+        ExportFormat format = null;
+        Path outputDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--patterns" -> patterns.addAll(readLines(Path.of(value(args, ++i, arg))));
+                case "--exclude" -> patterns.addAll(List.of(value(args, ++i, arg).split(",")));
+                case "--body" -> mode = bodyMode(value(args, ++i, arg));
+                case "--truncate-kb" -> truncateKb = positive(value(args, ++i, arg), arg);
+                case "--no-decode" -> decode = false;
+                case "--redact" -> secrets.addAll(readLines(Path.of(value(args, ++i, arg))));
+                case "--redact-tokens" -> tokens = true;
+                case "--format" -> format = exportFormat(value(args, ++i, arg));
+                case "--out" -> outputDir = Path.of(value(args, ++i, arg));
+                case "--threads" -> threads = positive(value(args, ++i, arg), arg);
+                case "-h", "--help" -> {
+                    System.out.print(USAGE);
+                    return 0;
+                }
+                default -> {
+                    if (arg.startsWith("--")) throw new IllegalArgumentException("unknown option " + arg);
+                    addInputs(Path.of(arg), inputs);
+                }
+            }
+        }
+        if (inputs.isEmpty()) throw new IllegalArgumentException("no input files");
+        if (patterns.isEmpty()) throw new IllegalArgumentException("no header patterns; use --patterns or --exclude");
+        if (outputDir != null) Files.createDirectories(outputDir);
+
+        List<String> checked = checkPatterns(patterns);
+        FilterConfig config = FilterConfig.of(0, checked, HeaderMatcher.compile(checked),
+                new BodyPolicy(mode, truncateKb * 1024, decode));
+        if (!secrets.isEmpty() || tokens) {
+            config = config.withRedactor(Redactor.build(new RedactionRules(true, tokens, false, secrets), List.of()));
+        }
+
+        long start = System.nanoTime();
+        List<FileReport> reports = new BatchJob(config, format, outputDir, threads).run(inputs, report -> {
+            synchronized (System.out) {
+                (report.error() == null ? System.out : System.err).println(report);
+            }
+        });
+        long nanos = System.nanoTime() - start;
+
+        long items = 0;
+        long bytesIn = 0;
+        long bytesOut = 0;
+        int failed = 0;
+        for (FileReport report : reports) {
+            items += report.items();
+            bytesIn += report.bytesIn();
+            bytesOut += report.bytesOut();
+            if (report.error() != null) failed++;
+        }
+        System.out.printf("%d files, %d items, %s in, %s out, %.2f s, %.1f MB/s%s%n", reports.size(), items,
+                megabytes(bytesIn), megabytes(bytesOut), nanos / 1e9, bytesIn / 1e6 / Math.max(nanos / 1e9, 1e-9),
+                failed == 0 ? "" : ", " + failed + " failed");
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * Applies the settings panel's checks: patterns that backtrack catastrophically are rejected, risky
+     * ones are kept with a warning, and duplicates, blank lines and {@code #} comments are dropped.
+     */
+    private static List<String> checkPatterns(List<String> lines) {
+        Set<String> patterns = new LinkedHashSet<>();
+        for (String line : lines) {
+            String pattern = line.strip();
+            if (!pattern.isEmpty() && !pattern.startsWith("#")) patterns.add(pattern);
+        }
+        List<String> rejected = new ArrayList<>();
+        for (String pattern : patterns) {
+            try {
+                PatternCache.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            RegexSafety.Report report = RegexSafety.analyse(pattern);
+            if (report.verdict() == RegexSafety.Verdict.REJECT) rejected.add(pattern);
+            if (report.verdict() == RegexSafety.Verdict.WARN) {
+                System.err.println("copycat-cli: pattern may be slow on some header names: " + pattern);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            throw new IllegalArgumentException("rejected patterns (catastrophic backtracking): " + String.join(", ", rejected));
+        }
+        return List.copyOf(patterns);
+    }
+
+    private static void addInputs(Path path, List<Path> inputs) throws IOException {
+        if (!Files.isDirectory(path)) {
+            if (!Files.isRegularFile(path)) throw new IllegalArgumentException("no such file: " + path);
+            inputs.add(path);
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.filter(Files::isRegularFile)
+                    .filter(InputFormat::isKnown)
+                    .filter(file -> !file.getFileName().toString().contains(".filtered."))
+                    .sorted()
+                    .forEach(inputs::add);
+        }
+    }
+
+    private static List<String> readLines(Path path) throws IOException {
+        return Files.readAllLines(path, StandardCharsets.UTF_8);
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    private static int positive(String value, String option) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) return n;
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException(option + " must be a positive number");
+    }
+
+    private static BodyMode bodyMode(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "full" -> BodyMode.FULL;
+            case "truncate" -> BodyMode.TRUNCATE;
+            case "headers" -> BodyMode.HEADERS_ONLY;
+            case "hash" -> BodyMode.HASH_ONLY;
+            default -> throw new IllegalArgumentException("unknown body mode " + value);
+        };
+    }
+
+    private static ExportFormat exportFormat(String value) {
+        for (ExportFormat format : ExportFormat.values()) {
+            if (format.extension().equalsIgnoreCase(value) || format.name().equalsIgnoreCase(value)) return format;
+        }
+        throw new IllegalArgumentException("unknown format " + value);
+    }
+
+    static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1e6);
+    }
+}
@@ -0,0 +1,17 @@
+package cli;
+
+import java.nio.file.Path;
+
+/** What filtering one input file did; {@code error} is {@code null} when it succeeded. */
+record FileReport(Path input, Path output, long items, long bytesIn, long bytesOut, long nanos, String error) {
+    double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytesIn / 1e6 / (nanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        if (error != null) return input + ": failed, " + error;
+        return String.format("%s -> %s: %d items, %s in, %s out, %.2f s, %.1f MB/s", input, output.getFileName(),
+                items, CopycatCli.megabytes(bytesIn), CopycatCli.megabytes(bytesOut), nanos / 1e9, megabytesPerSecond());
+    }
+}
@@ -0,0 +1,205 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+import filter.BodySource;
+import filter.ContentInfo;
+import render.FilteredMessages;
+
+/**
+ * Reads the entries of a HAR log one at a time and rebuilds each request and response as raw HTTP, so they
+ * go through the same filter as messages copied in Burp. HTTP/2 pseudo-headers are dropped and the request
+ * gets a {@code Host} header from its URL when it has none. Text bodies are encoded in the charset their
+ * {@code Content-Type} declares; HAR bodies are stored decoded, so they are marked as such.
+ */
+final class HarReader {
+    private final JsonReader json;
+    private final List<ItemHandler.Message> item = new ArrayList<>(2);
+
+    private HarReader(MappedFile file) {
+        this.json = new JsonReader(file);
+    }
+
+    /** @return the number of entries read */
+    static long read(MappedFile file, ItemHandler items) throws IOException {
+        return new HarReader(file).readAll(items);
+    }
+
+    private long readAll(ItemHandler items) throws IOException {
+        long count = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("log")) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("entries")) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    String url = entry();
+                    items.item(item, url);
+                    item.clear();
+                    count++;
+                }
+                json.endArray();
+            }
+            json.endObject();
+        }
+        json.endObject();
+        return count;
+    }
+
+    /** Reads one entry into {@link #item}; returns its request URL. */
+    private String entry() throws IOException {
+        String url = null;
+        ItemHandler.Message response = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "request" -> {
+                    HarMessage request = message(true);
+                    url = request.url;
+                    item.add(request.toMessage(FilteredMessages.Kind.REQUEST));
+                }
+                case "response" -> response = message(false).toMessage(FilteredMessages.Kind.RESPONSE);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        if (response != null) item.add(response);
+        return url;
+    }
+
+    private HarMessage message(boolean request) throws IOException {
+        HarMessage message = new HarMessage();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "method" -> message.method = json.nextString();
+                case "url" -> message.url = json.nextString();
+                case "status" -> message.status = json.nextString();
+                case "statusText" -> message.statusText = json.nextString();
+                case "httpVersion" -> message.httpVersion = json.nextString();
+                case "headers" -> headers(message.headers);
+                case "postData", "content" -> body(message);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        message.request = request;
+        return message;
+    }
+
+    private void headers(List<String[]> headers) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            String name = null;
+            String value = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> name = json.nextString();
+                    case "value" -> value = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            if (name != null && !name.startsWith(":")) headers.add(new String[] {name, value == null ? "" : value});
+        }
+        json.endArray();
+    }
+
+    private void body(HarMessage message) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "text" -> message.text = json.nextString();
+                case "encoding" -> message.base64 = "base64".equals(json.nextString());
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private static final class HarMessage {
+        boolean request;
+        String method;
+        String url;
+        String status;
+        String statusText;
+        String httpVersion;
+        final List<String[]> headers = new ArrayList<>();
+        String text;
+        boolean base64;
+
+        ItemHandler.Message toMessage(FilteredMessages.Kind kind) {
+            StringBuilder head = new StringBuilder(256);
+            String version = version(httpVersion);
+            if (request) {
+                head.append(method == null ? "GET" : method).append(' ').append(target(url)).append(' ').append(version);
+            } else {
+                head.append(version).append(' ').append(status == null ? "0" : status);
+                if (statusText != null && !statusText.isEmpty()) head.append(' ').append(statusText);
+            }
+            head.append("\r\n");
+            boolean hasHost = false;
+            for (String[] header : headers) {
+                hasHost |= header[0].equalsIgnoreCase("host");
+                head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+            }
+            if (request && !hasHost && authority(url) != null) head.append("Host: ").append(authority(url)).append("\r\n");
+            head.append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+
+            byte[] body;
+            if (text == null) {
+                body = new byte[0];
+            } else if (base64) {
+                body = Base64.getMimeDecoder().decode(text);
+            } else {
+                Charset charset = ContentInfo.parse(headBytes, 0, headBytes.length).charset();
+                body = text.getBytes(charset == null ? StandardCharsets.UTF_8 : charset);
+            }
+            return new ItemHandler.Message(kind, headBytes, BodySource.of(body, 0, body.length), true);
+        }
+
+        private static String version(String httpVersion) {
+            if (httpVersion == null || httpVersion.isBlank()) return "HTTP/1.1";
+            String version = httpVersion.strip().toUpperCase(Locale.ROOT);
+            return switch (version) {
+                case "H2", "HTTP/2.0" -> "HTTP/2";
+                case "H3", "HTTP/3.0" -> "HTTP/3";
+                default -> version.startsWith("HTTP/") ? version : "HTTP/1.1";
+            };
+        }
+
+        private static String target(String url) {
+            if (url == null) return "/";
+            int scheme = url.indexOf("://");
+            if (scheme < 0) return url.isEmpty() ? "/" : url;
+            int path = url.indexOf('/', scheme + 3);
+            String target = path < 0 ? "/" : url.substring(path);
+            int fragment = target.indexOf('#');
+            return fragment < 0 ? target : target.substring(0, fragment);
+        }
+
+        private static String authority(String url) {
+            if (url == null) return null;
+            int scheme = url.indexOf("://");
+            if (scheme < 0) return null;
+            int path = url.indexOf('/', scheme + 3);
+            return url.substring(scheme + 3, path < 0 ? url.length() : path);
+        }
+    }
+}
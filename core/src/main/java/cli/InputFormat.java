@@ -0,0 +1,98 @@
+package cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import export.CopycatDecoder;
+import export.ExportFormat;
+import filter.BodySource;
+import render.FilteredMessages;
+
+/** Input files the batch mode reads, recognised by extension; anything else is read as raw HTTP. */
+enum InputFormat {
+    RAW(ExportFormat.RAW),
+    HAR(ExportFormat.HAR),
+    COMPRESSED(ExportFormat.COMPRESSED);
+
+    private final ExportFormat output;
+
+    InputFormat(ExportFormat output) {
+        this.output = output;
+    }
+
+    static InputFormat of(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".har")) return HAR;
+        if (name.endsWith(".ccz")) return COMPRESSED;
+        return RAW;
+    }
+
+    /** Whether a file found while expanding a directory is one the batch mode reads. */
+    static boolean isKnown(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".http") || name.endsWith(".har") || name.endsWith(".ccz");
+    }
+
+    /** The export format that writes files like this one. */
+    ExportFormat output() {
+        return output;
+    }
+
+    /**
+     * Hands every item in {@code path} to {@code items}. Raw HTTP and HAR files are memory-mapped;
+     * compressed exports are inflated as a stream, one frame at a time.
+     *
+     * @return the number of items read
+     */
+    long read(Path path, ItemHandler items) throws IOException {
+        return switch (this) {
+            case RAW -> RawHttpReader.read(new MappedFile(path), items);
+            case HAR -> HarReader.read(new MappedFile(path), items);
+            case COMPRESSED -> readCompressed(path, items);
+        };
+    }
+
+    /** Items of a compressed export are already filtered, so their bodies are marked as decoded. */
+    private static long readCompressed(Path path, ItemHandler items) throws IOException {
+        List<ItemHandler.Message> messages = new ArrayList<>(2);
+        try (InputStream in = Files.newInputStream(path)) {
+            return CopycatDecoder.read(in, item -> {
+                messages.clear();
+                String url = null;
+                for (FilteredMessages.Segment segment : item.segments()) {
+                    if (segment.kind() != FilteredMessages.Kind.REQUEST && segment.kind() != FilteredMessages.Kind.RESPONSE) {
+                        continue;
+                    }
+                    int bodyStart = bodyStart(item.array(), segment.offset(), segment.offset() + segment.length());
+                    byte[] head = Arrays.copyOfRange(item.array(), segment.offset(), bodyStart);
+                    BodySource body = BodySource.of(item.array(), bodyStart, segment.offset() + segment.length() - bodyStart);
+                    messages.add(new ItemHandler.Message(segment.kind(), head, body, true));
+                    if (segment.kind() == FilteredMessages.Kind.REQUEST) url = segment.url();
+                }
+                try {
+                    items.item(messages, url);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int bodyStart(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] != '\n') continue;
+            if (i + 1 < to && buf[i + 1] == '\n') return i + 2;
+            if (i + 2 < to && buf[i + 1] == '\r' && buf[i + 2] == '\n') return i + 3;
+        }
+        return to;
+    }
+}
@@ -0,0 +1,21 @@
+package cli;
+
+import java.io.IOException;
+import java.util.List;
+
+import filter.BodySource;
+import render.FilteredMessages;
+
+/** Receives the items an input file is split into: a request and its response, or a lone message. */
+interface ItemHandler {
+    /**
+     * One message before filtering. {@code head} is the start line and header section including the blank
+     * line that ends it. {@code decoded} is set when the body is stored with its content encoding already
+     * undone, as in HAR files, so it is not inflated a second time.
+     */
+    record Message(FilteredMessages.Kind kind, byte[] head, BodySource body, boolean decoded) {
+    }
+
+    /** {@code url} is the absolute request URL when the input says it, otherwise {@code null}. */
+    void item(List<Message> messages, String url) throws IOException;
+}
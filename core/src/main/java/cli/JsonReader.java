@@ -0,0 +1,178 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal pull parser over a {@link MappedFile}, enough to walk a HAR log one entry at a time. Values the
+ * caller does not ask for are skipped without being decoded, so only the strings of the current entry
+ * are ever on the heap.
+ */
+final class JsonReader {
+    private final MappedFile file;
+    private final long size;
+    private long pos;
+    /** Whether the next {@link #hasNext} call is the first in its object or array, which has no comma. */
+    private boolean first;
+
+    JsonReader(MappedFile file) {
+        this.file = file;
+        this.size = file.size();
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+        first = true;
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+        first = false;
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+        first = true;
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+        first = false;
+    }
+
+    /** Whether the current object or array has another member; consumes the comma before it. */
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') return false;
+        if (!first) expect(',');
+        first = false;
+        return true;
+    }
+
+    String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    /** A string value, {@code null} for a JSON null, or the text of a number or boolean. */
+    String nextString() throws IOException {
+        int c = peek();
+        if (c == '"') return string();
+        if (c == '{' || c == '[') throw error("Expected a value");
+        long start = pos;
+        while (pos < size && !isDelimiter(file.get(pos))) pos++;
+        String literal = new String(file.bytes(start, (int) (pos - start)), StandardCharsets.US_ASCII);
+        first = false;
+        return literal.equals("null") ? null : literal;
+    }
+
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = file.get(pos);
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                if (c == '}' || c == ']') depth--;
+                pos++;
+            } while (depth > 0 && pos < size);
+            if (depth > 0) throw error("Unterminated value");
+        } else {
+            nextString();
+        }
+        first = false;
+    }
+
+    private String string() throws IOException {
+        long start = ++pos;
+        boolean escaped = false;
+        while (pos < size) {
+            int c = file.get(pos);
+            if (c == '"') break;
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= size) throw error("Unterminated string");
+        if (pos - start > Integer.MAX_VALUE - 8) throw error("String over 2 GB");
+        byte[] bytes = file.bytes(start, (int) (pos - start));
+        pos++;
+        first = false;
+        return escaped ? unescape(bytes) : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void skipString() throws IOException {
+        pos++;
+        while (pos < size) {
+            int c = file.get(pos);
+            if (c == '"') {
+                pos++;
+                return;
+            }
+            pos += c == '\\' ? 2 : 1;
+        }
+        throw error("Unterminated string");
+    }
+
+    private String unescape(byte[] bytes) throws IOException {
+        StringBuilder text = new StringBuilder(bytes.length);
+        int run = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\\') continue;
+            text.append(new String(bytes, run, i - run, StandardCharsets.UTF_8));
+            if (++i >= bytes.length) throw error("Bad escape");
+            switch (bytes[i]) {
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= bytes.length) throw error("Bad escape");
+                    try {
+                        text.append((char) Integer.parseInt(new String(bytes, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Bad escape");
+                    }
+                    i += 4;
+                }
+                default -> text.append((char) bytes[i]);
+            }
+            run = i + 1;
+        }
+        text.append(new String(bytes, run, bytes.length - run, StandardCharsets.UTF_8));
+        return text.toString();
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    /** The next non-whitespace byte, without consuming it. */
+    private int peek() throws IOException {
+        while (pos < size) {
+            int c = file.get(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+        throw error("Unexpected end of file");
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + pos + " of " + file.path());
+    }
+}
@@ -0,0 +1,95 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import filter.BodySource;
+
+/**
+ * A file mapped read-only into memory, addressed by {@code long} position. Files over 2 GB are mapped as
+ * several regions of up to 1 GB, so captures of any size are read straight from the page cache without
+ * being copied onto the heap; only header sections and the body chunks a filter asks for are copied out.
+ */
+final class MappedFile {
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+    private final Path path;
+    private final long size;
+    private final MappedByteBuffer[] regions;
+
+    MappedFile(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.size = channel.size();
+            this.regions = new MappedByteBuffer[(int) ((size + REGION_MASK) >>> REGION_SHIFT)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << REGION_SHIFT;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_MASK + 1, size - start));
+            }
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    int get(long pos) {
+        return regions[(int) (pos >>> REGION_SHIFT)].get((int) (pos & REGION_MASK)) & 0xff;
+    }
+
+    /** Position of the first {@code b} in {@code [from, to)}, or -1. */
+    long indexOf(byte b, long from, long to) {
+        long pos = from;
+        while (pos < to) {
+            MappedByteBuffer region = regions[(int) (pos >>> REGION_SHIFT)];
+            int start = (int) (pos & REGION_MASK);
+            int end = (int) Math.min(region.limit(), start + (to - pos));
+            for (int i = start; i < end; i++) {
+                if (region.get(i) == b) return pos + (i - start);
+            }
+            pos += end - start;
+        }
+        return -1;
+    }
+
+    void read(long pos, byte[] dst, int offset, int length) {
+        while (length > 0) {
+            MappedByteBuffer region = regions[(int) (pos >>> REGION_SHIFT)];
+            int start = (int) (pos & REGION_MASK);
+            int n = Math.min(length, region.limit() - start);
+            region.get(start, dst, offset, n);
+            pos += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    byte[] bytes(long pos, int length) {
+        byte[] bytes = new byte[length];
+        read(pos, bytes, 0, length);
+        return bytes;
+    }
+
+    /** The bytes {@code [offset, offset + length)} as a body, read from the mapping only when filtered. */
+    BodySource body(long offset, int length) {
+        return new BodySource() {
+            @Override
+            public int length() {
+                return length;
+            }
+
+            @Override
+            public void read(int from, byte[] dst, int dstOffset, int count) {
+                MappedFile.this.read(offset + from, dst, dstOffset, count);
+            }
+        };
+    }
+}
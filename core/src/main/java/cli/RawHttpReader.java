@@ -0,0 +1,224 @@
+package cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import filter.BodySource;
+import render.FilteredMessages;
+
+/**
+ * Splits a raw HTTP file, such as a Copycat "Raw HTTP" export or messages saved from Burp, into messages.
+ * A body ends where its {@code Content-Length} or chunked framing says, provided the next message starts
+ * there. Otherwise, as in Copycat exports whose {@code Content-Length} was filtered out, it ends at the
+ * next blank line that is followed by an HTTP start line. A request and the response right after it
+ * make up one item.
+ */
+final class RawHttpReader {
+    private static final int MAX_HEAD_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_START_LINE = 8 * 1024;
+
+    private final MappedFile file;
+    private final long size;
+    private final List<ItemHandler.Message> item = new ArrayList<>(2);
+    private String url;
+
+    private RawHttpReader(MappedFile file) {
+        this.file = file;
+        this.size = file.size();
+    }
+
+    /** @return the number of items read */
+    static long read(MappedFile file, ItemHandler items) throws IOException {
+        return new RawHttpReader(file).readAll(items);
+    }
+
+    private long readAll(ItemHandler items) throws IOException {
+        long count = 0;
+        long pos = skipBlankLines(0);
+        while (pos < size) {
+            if (!isStartLine(pos)) throw new IOException("No HTTP start line at offset " + pos + " of " + file.path());
+            long headEnd = headEnd(pos);
+            if (headEnd - pos > MAX_HEAD_BYTES) throw new IOException("Header section at offset " + pos + " is too large");
+            byte[] head = file.bytes(pos, (int) (headEnd - pos));
+            long bodyEnd = bodyEnd(head, headEnd);
+            if (bodyEnd - headEnd > Integer.MAX_VALUE) throw new IOException("Body at offset " + headEnd + " is over 2 GB");
+            BodySource body = file.body(headEnd, (int) (bodyEnd - headEnd));
+
+            boolean response = startsWith(head, "HTTP/");
+            boolean pairs = response && item.size() == 1 && item.get(0).kind() == FilteredMessages.Kind.REQUEST;
+            if (!item.isEmpty() && !pairs) {
+                items.item(item, url);
+                item.clear();
+                count++;
+            }
+            if (!response) {
+                url = url(head);
+            } else if (!pairs) {
+                url = null;
+            }
+            item.add(new ItemHandler.Message(response ? FilteredMessages.Kind.RESPONSE : FilteredMessages.Kind.REQUEST,
+                    head, body, false));
+            pos = skipBlankLines(bodyEnd);
+        }
+        if (!item.isEmpty()) {
+            items.item(item, url);
+            count++;
+        }
+        return count;
+    }
+
+    /** Position just after the blank line that ends the header section starting at {@code pos}. */
+    private long headEnd(long pos) {
+        long lf = file.indexOf((byte) '\n', pos, size);
+        while (lf >= 0) {
+            long next = lf + 1;
+            if (next < size && file.get(next) == '\n') return next + 1;
+            if (next + 1 < size && file.get(next) == '\r' && file.get(next + 1) == '\n') return next + 2;
+            lf = file.indexOf((byte) '\n', next, size);
+        }
+        return size;
+    }
+
+    private long bodyEnd(byte[] head, long bodyStart) {
+        String transferEncoding = headerValue(head, "transfer-encoding");
+        boolean chunked = transferEncoding != null && transferEncoding.contains("chunked");
+        String contentLength = headerValue(head, "content-length");
+        // A message without framing, such as a GET, has no body when the next message starts right after it.
+        if (!chunked && contentLength == null && isStartLine(skipBlankLines(bodyStart))) return bodyStart;
+        if (chunked) {
+            long end = chunkedEnd(bodyStart);
+            if (end >= 0 && endsMessage(end)) return end;
+        }
+        if (contentLength != null) {
+            try {
+                long end = bodyStart + Long.parseLong(contentLength);
+                if (end >= bodyStart && end <= size && endsMessage(end)) return end;
+            } catch (NumberFormatException ignored) {
+                // framed by the next start line instead
+            }
+        }
+        return scanEnd(bodyStart);
+    }
+
+    /** End of a chunked body including its trailer section, or -1 if the framing does not hold. */
+    private long chunkedEnd(long pos) {
+        while (pos < size) {
+            long lf = file.indexOf((byte) '\n', pos, Math.min(size, pos + 1024));
+            if (lf < 0) return -1;
+            String line = new String(file.bytes(pos, (int) (lf - pos)), StandardCharsets.ISO_8859_1).strip();
+            int extension = line.indexOf(';');
+            long chunk;
+            try {
+                chunk = Long.parseLong(extension < 0 ? line : line.substring(0, extension).strip(), 16);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            pos = lf + 1;
+            if (chunk == 0) return trailerEnd(pos);
+            pos += chunk;
+            if (pos + 1 < size && file.get(pos) == '\r') pos++;
+            if (pos >= size || file.get(pos) != '\n') return -1;
+            pos++;
+        }
+        return -1;
+    }
+
+    private long trailerEnd(long pos) {
+        while (pos < size) {
+            long lf = file.indexOf((byte) '\n', pos, size);
+            if (lf < 0) return size;
+            boolean blank = lf == pos || (lf == pos + 1 && file.get(pos) == '\r');
+            pos = lf + 1;
+            if (blank) return pos;
+        }
+        return pos;
+    }
+
+    /** Whether a body ending at {@code end} is followed only by blank lines and then the next message or EOF. */
+    private boolean endsMessage(long end) {
+        long next = skipBlankLines(end);
+        return next >= size || isStartLine(next);
+    }
+
+    /** Start of the first blank-line separator after {@code from} that is followed by a start line or EOF. */
+    private long scanEnd(long from) {
+        long lf = file.indexOf((byte) '\n', from, size);
+        while (lf >= 0) {
+            long next = lf + 1;
+            boolean blank = next < size && (file.get(next) == '\n'
+                    || (file.get(next) == '\r' && next + 1 < size && file.get(next + 1) == '\n'));
+            if (blank) {
+                long start = skipBlankLines(next);
+                if (start >= size || isStartLine(start)) {
+                    return lf > from && file.get(lf - 1) == '\r' ? lf - 1 : lf;
+                }
+            }
+            lf = file.indexOf((byte) '\n', next, size);
+        }
+        return size;
+    }
+
+    private long skipBlankLines(long pos) {
+        while (pos < size && (file.get(pos) == '\r' || file.get(pos) == '\n')) pos++;
+        return pos;
+    }
+
+    /** {@code HTTP/<digit>...} for a response, {@code METHOD target HTTP/<digit>...} for a request. */
+    private boolean isStartLine(long pos) {
+        long lf = file.indexOf((byte) '\n', pos, Math.min(size, pos + MAX_START_LINE));
+        long end = lf < 0 ? Math.min(size, pos + MAX_START_LINE) : lf;
+        if (end > pos && file.get(end - 1) == '\r') end--;
+        byte[] line = file.bytes(pos, (int) (end - pos));
+        if (startsWith(line, "HTTP/")) return line.length > 5 && Character.isDigit(line[5]);
+        int method = 0;
+        while (method < line.length && line[method] >= 'A' && line[method] <= 'Z') method++;
+        if (method == 0 || method >= line.length || line[method] != ' ') return false;
+        int version = line.length - 1;
+        while (version > method && line[version] != ' ') version--;
+        return version > method + 1 && line.length - version > 6 && startsWith(line, version + 1, "HTTP/")
+                && Character.isDigit(line[version + 6]);
+    }
+
+    /** The request URL the way {@link render.CurlRenderer#url} builds it, from the unfiltered Host header. */
+    private static String url(byte[] head) {
+        int lineEnd = 0;
+        while (lineEnd < head.length && head[lineEnd] != '\n') lineEnd++;
+        String[] startLine = new String(head, 0, lineEnd, StandardCharsets.ISO_8859_1).strip().split(" ");
+        if (startLine.length < 2) return null;
+        String target = startLine[1];
+        if (target.startsWith("http://") || target.startsWith("https://")) return target;
+        String host = headerValue(head, "host");
+        return host == null ? null : "https://" + host + target;
+    }
+
+    private static String headerValue(byte[] head, String lowerName) {
+        int pos = 0;
+        while (pos < head.length) {
+            int lineEnd = pos;
+            while (lineEnd < head.length && head[lineEnd] != '\n') lineEnd++;
+            if (pos > 0 && lineEnd - pos > lowerName.length() && head[pos + lowerName.length()] == ':'
+                    && new String(head, pos, lowerName.length(), StandardCharsets.ISO_8859_1)
+                            .toLowerCase(Locale.ROOT).equals(lowerName)) {
+                return new String(head, pos + lowerName.length() + 1, lineEnd - pos - lowerName.length() - 1,
+                        StandardCharsets.ISO_8859_1).strip().toLowerCase(Locale.ROOT);
+            }
+            pos = lineEnd + 1;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, String prefix) {
+        return startsWith(bytes, 0, prefix);
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String prefix) {
+        if (bytes.length - offset < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[offset + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+}
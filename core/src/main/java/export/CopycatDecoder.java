@@ -0,0 +1,117 @@
+package export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import render.FilteredMessages;
+
+/**
+ * Reads a compressed Copycat export back, one frame at a time, and hands each item to a consumer as
+ * {@link FilteredMessages}. The consumer's argument is reused for the next item. Frames are read as one
+ * continuous stream, so an item split across frames is joined again; only the unread part of the current
+ * frame and one item are held in memory however large the file is.
+ */
+public final class CopycatDecoder {
+    private CopycatDecoder() {
+    }
+
+    /** @return the number of items read */
+    public static int read(InputStream in, Consumer<FilteredMessages> items) throws IOException {
+        Frames input = new Frames(new FrameCodec.Reader(in));
+        if (!input.ensure(1)) throw new IOException("Empty file");
+        if (!CopycatEncoder.HEADER.equals(input.line())) throw new IOException("Not a Copycat export");
+        FilteredMessages item = new FilteredMessages();
+        int count = 0;
+        boolean open = false;
+        String line;
+        while ((line = input.line()) != null) {
+            if (line.startsWith(CopycatEncoder.ITEM + " ")) {
+                if (open) {
+                    items.accept(item);
+                    count++;
+                }
+                item.clear();
+                open = true;
+                continue;
+            }
+            if (!open) throw new IOException("Message outside an item");
+            message(line, input, item);
+        }
+        if (open) {
+            items.accept(item);
+            count++;
+        }
+        return count;
+    }
+
+    private static void message(String line, Frames input, FilteredMessages item) throws IOException {
+        String[] fields = line.split(" ", 3);
+        if (fields.length != 3 || !fields[0].startsWith("#")) throw new IOException("Bad message line: " + line);
+        FilteredMessages.Kind kind;
+        int length;
+        try {
+            kind = FilteredMessages.Kind.valueOf(fields[0].substring(1).toUpperCase(Locale.ROOT));
+            length = Integer.parseInt(fields[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad message line: " + line, e);
+        }
+        if (length < 0 || length == Integer.MAX_VALUE || !input.ensure(length + 1)
+                || input.buf[input.pos + length] != '\n') {
+            throw new IOException("Truncated message");
+        }
+        int mark = item.begin();
+        item.buffer().write(input.buf, input.pos, length);
+        item.end(mark, kind, CopycatEncoder.NO_URL.equals(fields[2]) ? null : fields[2]);
+        input.pos += length + 1;
+    }
+
+    /** The frames of an export as one byte stream; bytes from {@code pos} to the end of {@code buf} are unread. */
+    private static final class Frames {
+        private final FrameCodec.Reader reader;
+        private byte[] buf = new byte[0];
+        private int pos;
+
+        Frames(FrameCodec.Reader reader) {
+            this.reader = reader;
+        }
+
+        /** Reads frames until at least {@code count} bytes are unread; false if the stream ends first. */
+        boolean ensure(int count) throws IOException {
+            while (buf.length - pos < count) {
+                byte[] next = reader.next();
+                if (next == null) return false;
+                if (pos == buf.length) {
+                    buf = next;
+                } else {
+                    byte[] joined = new byte[buf.length - pos + next.length];
+                    System.arraycopy(buf, pos, joined, 0, buf.length - pos);
+                    System.arraycopy(next, 0, joined, buf.length - pos, next.length);
+                    buf = joined;
+                }
+                pos = 0;
+            }
+            return true;
+        }
+
+        /** @return the next line without its line break, or {@code null} at the end of the stream */
+        String line() throws IOException {
+            int scanned = 0;
+            while (true) {
+                for (int i = pos + scanned; i < buf.length; i++) {
+                    if (buf[i] == '\n') {
+                        String line = new String(buf, pos, i - pos, FilteredMessages.CHARSET);
+                        pos = i + 1;
+                        return line;
+                    }
+                }
+                scanned = buf.length - pos;
+                if (!ensure(scanned + 1)) {
+                    if (scanned == 0) return null;
+                    throw new IOException("Truncated line");
+                }
+            }
+        }
+    }
+}
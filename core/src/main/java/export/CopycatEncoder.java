@@ -0,0 +1,35 @@
+package export;
+
+import java.util.Locale;
+
+import filter.ByteOutput;
+import render.FilteredMessages;
+
+/**
+ * Copycat's own format, which {@link CopycatDecoder} reads back into the same filtered messages. Each
+ * item starts with an {@code #item} line; each message is a {@code #<kind> <length> <url>} line followed
+ * by exactly {@code length} bytes and a line break. The text stays readable after {@code zcat}.
+ */
+final class CopycatEncoder implements ExportEncoder {
+    static final String HEADER = "#copycat-messages/1";
+    static final String ITEM = "#item";
+    static final String NO_URL = "-";
+
+    @Override
+    public void begin(ByteOutput out) {
+        out.writeAscii(HEADER);
+        out.write('\n');
+    }
+
+    @Override
+    public void item(int index, FilteredMessages item, ByteOutput out) {
+        out.writeAscii(ITEM + " " + index + "\n");
+        for (FilteredMessages.Segment segment : item.segments()) {
+            out.write('#');
+            out.writeAscii(segment.kind().name().toLowerCase(Locale.ROOT));
+            out.writeAscii(" " + segment.length() + " " + (segment.url() == null ? NO_URL : segment.url()) + "\n");
+            out.write(item.array(), segment.offset(), segment.length());
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package export;
+
+import filter.ByteOutput;
+import render.FilteredMessages;
+
+/**
+ * Turns exported items into one file format. {@link #item} receives the filtered request and/or
+ * response of a single selected item; {@link #begin} and {@link #end} frame the whole file.
+ */
+public interface ExportEncoder {
+    default void begin(ByteOutput out) {
+    }
+
+    void item(int index, FilteredMessages item, ByteOutput out);
+
+    default void end(ByteOutput out) {
+    }
+}
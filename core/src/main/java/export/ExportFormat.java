@@ -0,0 +1,40 @@
+package export;
+
+/** File formats the export action can write. */
+public enum ExportFormat {
+    RAW("Raw HTTP", "http"),
+    HAR("HAR", "har"),
+    JSONL("JSON Lines", "jsonl"),
+    COMPRESSED("Compressed Copycat", "ccz");
+
+    private final String label;
+    private final String extension;
+
+    ExportFormat(String label, String extension) {
+        this.label = label;
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public ExportEncoder encoder() {
+        return switch (this) {
+            case RAW -> new RawEncoder();
+            case HAR -> new HarEncoder();
+            case JSONL -> new JsonLinesEncoder();
+            case COMPRESSED -> new CopycatEncoder();
+        };
+    }
+
+    /** Whether the file is written as gzip-compatible frames that the import action reads back. */
+    public boolean compressed() {
+        return this == COMPRESSED;
+    }
+
+    @Override
+    public String toString() {
+        return label + " (*." + extension + ")";
+    }
+}
@@ -0,0 +1,161 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import filter.ByteOutput;
+
+/**
+ * Writes filled {@link ByteOutput} chunks to a file on a dedicated writer thread, so the caller can
+ * filter the next items while earlier ones are still being written. Chunks are copied through one
+ * large direct buffer into a {@link FileChannel}, and handed back for reuse once written. When
+ * compressing, the writer thread deflates each chunk into {@link FrameCodec} frames first, one per chunk
+ * unless a chunk holds an oversized item, so compression overlaps with filtering and memory stays at a
+ * few chunks whatever the file size.
+ */
+public final class ExportWriter implements Closeable {
+    /** Size a chunk should reach before it is handed to the writer. */
+    public static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int DIRECT_BUFFER_BYTES = 4 * 1024 * 1024;
+    private static final int QUEUE_DEPTH = 4;
+    private static final ByteOutput END = new ByteOutput(16);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BlockingQueue<ByteOutput> filled = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+    private final BlockingQueue<ByteOutput> free = new ArrayBlockingQueue<>(QUEUE_DEPTH + 2);
+    private final Thread writer;
+    private final FrameCodec.Compressor compressor;
+    private volatile IOException failure;
+    private long bytesWritten;
+    private boolean closed;
+
+    public ExportWriter(Path path, boolean compressed) throws IOException {
+        this.path = path;
+        this.compressor = compressed ? new FrameCodec.Compressor() : null;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.writer = Thread.ofPlatform().daemon().name("copycat-export-writer").start(this::drain);
+    }
+
+    /** A cleared chunk to fill, reused from earlier writes when one is available. */
+    public ByteOutput acquire() {
+        ByteOutput chunk = free.poll();
+        if (chunk == null) return new ByteOutput(CHUNK_BYTES + CHUNK_BYTES / 4);
+        chunk.reset();
+        return chunk;
+    }
+
+    /** Queues a chunk for writing; blocks while the writer is {@value #QUEUE_DEPTH} chunks behind. */
+    public void submit(ByteOutput chunk) throws IOException {
+        checkFailure();
+        if (chunk.size() == 0) {
+            free.offer(chunk);
+            return;
+        }
+        try {
+            filled.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        }
+    }
+
+    /** Waits for every queued chunk to reach the file, then closes it. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            filled.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } finally {
+            channel.close();
+        }
+        checkFailure();
+    }
+
+    /** Stops writing and deletes the partial file. */
+    public void abort() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Bytes written to the file so far; exact once {@link #close()} has returned. */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private void drain() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(DIRECT_BUFFER_BYTES);
+        try {
+            ByteOutput chunk;
+            while ((chunk = filled.take()) != END) {
+                if (failure == null) write(chunk, direct);
+                free.offer(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (compressor != null) compressor.end();
+        }
+    }
+
+    private void write(ByteOutput chunk, ByteBuffer direct) {
+        if (compressor == null) {
+            write(chunk.array(), chunk.size(), direct);
+        } else {
+            for (int offset = 0; offset < chunk.size(); offset += FrameCodec.SPLIT_BYTES) {
+                int length = compressor.compress(chunk.array(), offset,
+                        Math.min(FrameCodec.SPLIT_BYTES, chunk.size() - offset));
+                write(compressor.frame(), length, direct);
+            }
+        }
+    }
+
+    private void write(byte[] buf, int length, ByteBuffer direct) {
+        try {
+            int offset = 0;
+            int remaining = length;
+            while (remaining > 0) {
+                int n = Math.min(remaining, direct.remaining());
+                direct.put(buf, offset, n);
+                offset += n;
+                remaining -= n;
+                if (!direct.hasRemaining() || remaining == 0) {
+                    direct.flip();
+                    while (direct.hasRemaining()) channel.write(direct);
+                    direct.clear();
+                }
+            }
+            bytesWritten += length;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) throw new IOException("Writing " + path + " failed", e);
+    }
+}
@@ -0,0 +1,161 @@
+package export;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed exports are a series of independent frames, one per written chunk. Each frame is a complete
+ * gzip member, so {@code gunzip} and {@code zcat} read the whole file. The gzip extra field carries a
+ * {@code CZ} subfield with a version byte and the frame's raw and compressed lengths. A reader can then
+ * read one frame at a time without scanning for the end of the deflate stream.
+ * <p>
+ * A chunk larger than {@link #SPLIT_BYTES}, such as one holding a single very large item, is written as
+ * several frames, so every frame stays well within the {@value #MAX_FRAME_BYTES}-byte limit readers
+ * enforce. Frame boundaries therefore do not have to fall between items.
+ */
+final class FrameCodec {
+    private static final int VERSION = 1;
+    private static final int EXTRA_LENGTH = 13;
+    private static final int HEADER_BYTES = 12 + EXTRA_LENGTH;
+    private static final int TRAILER_BYTES = 8;
+    private static final int MAX_FRAME_BYTES = 512 * 1024 * 1024;
+    /** Most raw bytes per frame; deflate can grow incompressible input slightly, so this is kept far below the limit. */
+    static final int SPLIT_BYTES = 64 * 1024 * 1024;
+
+    private FrameCodec() {
+    }
+
+    /** Compresses chunks into frames; owned by one thread. */
+    static final class Compressor {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private final CRC32 crc = new CRC32();
+        private byte[] frame = new byte[ExportWriter.CHUNK_BYTES];
+
+        /** Compresses {@code src[offset, offset + length)} into {@link #frame()}; returns the frame's length. */
+        int compress(byte[] src, int offset, int length) {
+            if (length > SPLIT_BYTES) throw new IllegalArgumentException("Frame of " + length + " bytes is too large");
+            deflater.reset();
+            deflater.setInput(src, offset, length);
+            deflater.finish();
+            int pos = HEADER_BYTES;
+            while (!deflater.finished()) {
+                if (pos == frame.length) frame = Arrays.copyOf(frame, frame.length * 2);
+                pos += deflater.deflate(frame, pos, frame.length - pos);
+            }
+            if (pos + TRAILER_BYTES > frame.length) frame = Arrays.copyOf(frame, pos + TRAILER_BYTES);
+            crc.reset();
+            crc.update(src, offset, length);
+
+            byte[] f = frame;
+            f[0] = 0x1f;
+            f[1] = (byte) 0x8b;
+            f[2] = 8;
+            f[3] = 4;
+            Arrays.fill(f, 4, 8, (byte) 0);
+            f[8] = 0;
+            f[9] = (byte) 0xff;
+            putShort(f, 10, EXTRA_LENGTH);
+            f[12] = 'C';
+            f[13] = 'Z';
+            putShort(f, 14, EXTRA_LENGTH - 4);
+            f[16] = VERSION;
+            putInt(f, 17, length);
+            putInt(f, 21, pos - HEADER_BYTES);
+            putInt(f, pos, (int) crc.getValue());
+            putInt(f, pos + 4, length);
+            return pos + TRAILER_BYTES;
+        }
+
+        byte[] frame() {
+            return frame;
+        }
+
+        void end() {
+            deflater.end();
+        }
+    }
+
+    /** Reads frames back one at a time, checking each one's CRC and length. */
+    static final class Reader {
+        private final InputStream in;
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[HEADER_BYTES];
+        private final byte[] trailer = new byte[TRAILER_BYTES];
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /** @return the next frame's raw bytes, or {@code null} at the end of the stream */
+        byte[] next() throws IOException {
+            int n = in.readNBytes(header, 0, HEADER_BYTES);
+            if (n == 0) {
+                inflater.end();
+                return null;
+            }
+            if (n < HEADER_BYTES) throw new EOFException("Truncated frame header");
+            if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || header[2] != 8 || header[3] != 4
+                    || getShort(header, 10) != EXTRA_LENGTH || header[12] != 'C' || header[13] != 'Z'
+                    || getShort(header, 14) != EXTRA_LENGTH - 4) {
+                throw new IOException("Not a Copycat export");
+            }
+            if (header[16] != VERSION) throw new IOException("Unsupported Copycat export version " + header[16]);
+            int rawLength = getInt(header, 17);
+            int compressedLength = getInt(header, 21);
+            if (rawLength < 0 || rawLength > MAX_FRAME_BYTES || compressedLength < 0
+                    || compressedLength > MAX_FRAME_BYTES) {
+                throw new IOException("Corrupt frame header");
+            }
+            byte[] compressed = in.readNBytes(compressedLength);
+            if (compressed.length < compressedLength) throw new EOFException("Truncated frame");
+
+            byte[] raw = new byte[rawLength];
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                int pos = 0;
+                while (pos < rawLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(raw, pos, rawLength - pos);
+                    if (inflated == 0 && inflater.needsInput()) break;
+                    pos += inflated;
+                }
+                if (pos != rawLength) throw new IOException("Corrupt frame: expected " + rawLength + " bytes");
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt frame", e);
+            }
+
+            if (in.readNBytes(trailer, 0, TRAILER_BYTES) < TRAILER_BYTES) throw new EOFException("Truncated frame");
+            crc.reset();
+            crc.update(raw);
+            if (getInt(trailer, 0) != (int) crc.getValue() || getInt(trailer, 4) != rawLength) {
+                throw new IOException("Frame checksum mismatch");
+            }
+            return raw;
+        }
+    }
+
+    private static void putShort(byte[] buf, int at, int value) {
+        buf[at] = (byte) value;
+        buf[at + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putInt(byte[] buf, int at, int value) {
+        putShort(buf, at, value);
+        putShort(buf, at + 2, value >>> 16);
+    }
+
+    private static int getShort(byte[] buf, int at) {
+        return (buf[at] & 0xff) | (buf[at + 1] & 0xff) << 8;
+    }
+
+    private static int getInt(byte[] buf, int at) {
+        return getShort(buf, at) | getShort(buf, at + 2) << 16;
+    }
+}
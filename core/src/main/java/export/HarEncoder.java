@@ -0,0 +1,141 @@
+package export;
+
+import java.time.Instant;
+
+import filter.ByteOutput;
+import render.CurlRenderer;
+import render.FilteredMessages;
+import render.ParsedMessage;
+
+/**
+ * HAR 1.2 log with one entry per item. Only the filtered headers are exported; timings are not
+ * known here and are written as zero.
+ */
+final class HarEncoder implements ExportEncoder {
+    private final String startedDateTime = Instant.now().toString();
+
+    @Override
+    public void begin(ByteOutput out) {
+        out.writeAscii("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"Copycat\",\"version\":\"1.0\"},\"entries\":[\n");
+    }
+
+    @Override
+    public void item(int index, FilteredMessages item, ByteOutput out) {
+        ParsedMessage request = null;
+        ParsedMessage response = null;
+        String url = null;
+        for (FilteredMessages.Segment segment : item.segments()) {
+            if (segment.kind() == FilteredMessages.Kind.REQUEST) {
+                request = new ParsedMessage(item, segment);
+                url = CurlRenderer.url(request, segment);
+            } else if (segment.kind() == FilteredMessages.Kind.RESPONSE) {
+                response = new ParsedMessage(item, segment);
+            }
+        }
+
+        if (index > 0) out.writeAscii(",\n");
+        out.writeAscii("{\"startedDateTime\":\"" + startedDateTime + "\",\"time\":0,\"request\":");
+        if (request != null) {
+            request(request, url, out);
+        } else {
+            out.writeAscii("{\"method\":\"\",\"url\":\"\",\"httpVersion\":\"\",\"headers\":[],\"queryString\":[],"
+                    + "\"cookies\":[],\"headersSize\":-1,\"bodySize\":-1}");
+        }
+        out.writeAscii(",\"response\":");
+        if (response != null) {
+            response(response, out);
+        } else {
+            out.writeAscii("{\"status\":0,\"statusText\":\"\",\"httpVersion\":\"\",\"headers\":[],\"cookies\":[],"
+                    + "\"content\":{\"size\":0,\"mimeType\":\"\"},\"redirectURL\":\"\",\"headersSize\":-1,\"bodySize\":-1}");
+        }
+        out.writeAscii(",\"cache\":{},\"timings\":{\"send\":0,\"wait\":0,\"receive\":0}}");
+    }
+
+    @Override
+    public void end(ByteOutput out) {
+        out.writeAscii("\n]}}\n");
+    }
+
+    private static void request(ParsedMessage request, String url, ByteOutput out) {
+        out.writeAscii("{\"method\":");
+        Json.string(request.firstToken(), out);
+        out.writeAscii(",\"url\":");
+        Json.string(url, out);
+        out.writeAscii(",\"httpVersion\":");
+        Json.string(request.rest(), out);
+        out.writeAscii(",\"headers\":");
+        headers(request, out);
+        out.writeAscii(",\"queryString\":");
+        queryString(url, out);
+        out.writeAscii(",\"cookies\":[],\"headersSize\":-1,\"bodySize\":" + request.bodyLength());
+        if (request.bodyLength() > 0) {
+            out.writeAscii(",\"postData\":{\"mimeType\":");
+            Json.string(mimeType(request), out);
+            out.writeAscii(",\"text\":");
+            Json.string(request.buf(), request.bodyStart(), request.end(), out);
+            out.write('}');
+        }
+        out.write('}');
+    }
+
+    private static void response(ParsedMessage response, ByteOutput out) {
+        String status = response.secondToken();
+        out.writeAscii("{\"status\":" + (status.chars().allMatch(Character::isDigit) && !status.isEmpty() ? status : "0"));
+        out.writeAscii(",\"statusText\":");
+        Json.string(response.rest(), out);
+        out.writeAscii(",\"httpVersion\":");
+        Json.string(response.firstToken(), out);
+        out.writeAscii(",\"headers\":");
+        headers(response, out);
+        out.writeAscii(",\"cookies\":[],\"content\":{\"size\":" + response.bodyLength() + ",\"mimeType\":");
+        Json.string(mimeType(response), out);
+        out.writeAscii(",\"text\":");
+        Json.string(response.buf(), response.bodyStart(), response.end(), out);
+        out.writeAscii("},\"redirectURL\":");
+        String location = response.headerValue("Location");
+        Json.string(location == null ? "" : location, out);
+        out.writeAscii(",\"headersSize\":-1,\"bodySize\":" + response.bodyLength() + "}");
+    }
+
+    private static void headers(ParsedMessage message, ByteOutput out) {
+        out.write('[');
+        boolean first = true;
+        for (ParsedMessage.Header header : message.headers()) {
+            if (!first) out.write(',');
+            first = false;
+            out.writeAscii("{\"name\":");
+            Json.string(message.buf(), header.nameStart(), header.nameEnd(), out);
+            out.writeAscii(",\"value\":");
+            Json.string(message.buf(), header.valueStart(), header.valueEnd(), out);
+            out.write('}');
+        }
+        out.write(']');
+    }
+
+    private static void queryString(String url, ByteOutput out) {
+        out.write('[');
+        int query = url == null ? -1 : url.indexOf('?');
+        if (query >= 0) {
+            int fragment = url.indexOf('#', query);
+            String[] pairs = url.substring(query + 1, fragment < 0 ? url.length() : fragment).split("&");
+            boolean first = true;
+            for (String pair : pairs) {
+                if (pair.isEmpty()) continue;
+                if (!first) out.write(',');
+                first = false;
+                int eq = pair.indexOf('=');
+                out.writeAscii("{\"name\":");
+                Json.string(eq < 0 ? pair : pair.substring(0, eq), out);
+                out.writeAscii(",\"value\":");
+                Json.string(eq < 0 ? "" : pair.substring(eq + 1), out);
+                out.write('}');
+            }
+        }
+        out.write(']');
+    }
+
+    private static String mimeType(ParsedMessage message) {
+        String contentType = message.headerValue("Content-Type");
+        return contentType == null ? "" : contentType;
+    }
+}
@@ -0,0 +1,58 @@
+package export;
+
+import filter.ByteOutput;
+import render.Utf8Text;
+
+/**
+ * Minimal JSON string writer. Input bytes are read as {@link Utf8Text} reads the filtered output, and
+ * everything outside printable ASCII is escaped so the file stays ASCII.
+ */
+final class Json {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private Json() {
+    }
+
+    static void string(byte[] buf, int from, int to, ByteOutput out) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] < 0) {
+                string(Utf8Text.decode(buf, from, to - from), out);
+                return;
+            }
+        }
+        out.write('"');
+        for (int i = from; i < to; i++) escape(buf[i] & 0xff, out);
+        out.write('"');
+    }
+
+    static void string(String s, ByteOutput out) {
+        if (s == null) {
+            out.writeAscii("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) escape(s.charAt(i), out);
+        out.write('"');
+    }
+
+    private static void escape(int c, ByteOutput out) {
+        switch (c) {
+            case '"' -> out.writeAscii("\\\"");
+            case '\\' -> out.writeAscii("\\\\");
+            case '\n' -> out.writeAscii("\\n");
+            case '\r' -> out.writeAscii("\\r");
+            case '\t' -> out.writeAscii("\\t");
+            default -> {
+                if (c < 0x20 || c >= 0x7f) {
+                    out.writeAscii("\\u");
+                    out.write(HEX[c >>> 12]);
+                    out.write(HEX[(c >>> 8) & 0xf]);
+                    out.write(HEX[(c >>> 4) & 0xf]);
+                    out.write(HEX[c & 0xf]);
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+    }
+}
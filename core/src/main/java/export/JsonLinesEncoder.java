@@ -0,0 +1,37 @@
+package export;
+
+import filter.ByteOutput;
+import render.FilteredMessages;
+
+/** One JSON object per item: {@code {"url":..,"request":..,"response":..}}, each message as a string. */
+final class JsonLinesEncoder implements ExportEncoder {
+    @Override
+    public void item(int index, FilteredMessages item, ByteOutput out) {
+        String url = null;
+        FilteredMessages.Segment request = null;
+        FilteredMessages.Segment response = null;
+        for (FilteredMessages.Segment segment : item.segments()) {
+            if (segment.kind() == FilteredMessages.Kind.REQUEST) {
+                request = segment;
+                url = segment.url();
+            } else if (segment.kind() == FilteredMessages.Kind.RESPONSE) {
+                response = segment;
+            }
+        }
+        out.writeAscii("{\"url\":");
+        Json.string(url, out);
+        out.writeAscii(",\"request\":");
+        message(item, request, out);
+        out.writeAscii(",\"response\":");
+        message(item, response, out);
+        out.writeAscii("}\n");
+    }
+
+    private static void message(FilteredMessages item, FilteredMessages.Segment segment, ByteOutput out) {
+        if (segment == null) {
+            out.writeAscii("null");
+        } else {
+            Json.string(item.array(), segment.offset(), segment.offset() + segment.length(), out);
+        }
+    }
+}
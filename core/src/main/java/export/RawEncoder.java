@@ -0,0 +1,17 @@
+package export;
+
+import filter.ByteOutput;
+import render.FilteredMessages;
+
+/** Filtered messages as they would be copied, separated by a blank line. */
+final class RawEncoder implements ExportEncoder {
+    private static final byte[] SEPARATOR = {'\r', '\n', '\r', '\n'};
+
+    @Override
+    public void item(int index, FilteredMessages item, ByteOutput out) {
+        for (FilteredMessages.Segment segment : item.segments()) {
+            if (out.size() > 0 || index > 0) out.write(SEPARATOR);
+            out.write(item.array(), segment.offset(), segment.length());
+        }
+    }
+}
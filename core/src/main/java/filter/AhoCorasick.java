@@ -0,0 +1,94 @@
+package filter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+
+/**
+ * Byte-level Aho-Corasick automaton compiled to a DFA, so each input byte costs one table lookup
+ * however many literals are searched for. Bytes that appear in no literal share one alphabet class,
+ * which keeps the table at (states x distinct bytes) entries.
+ */
+final class AhoCorasick {
+    /** Upper bound on automaton states; literals that would exceed it are skipped. */
+    static final int MAX_STATES = 1 << 16;
+
+    private final int[] classOf = new int[256];
+    private final int classes;
+    private final int[] delta;
+    private final int[] matchLength;
+    private final int[] depth;
+
+    AhoCorasick(Collection<byte[]> literals) {
+        boolean[] used = new boolean[256];
+        for (byte[] literal : literals) {
+            for (byte b : literal) used[b & 0xff] = true;
+        }
+        int next = 1;
+        for (int b = 0; b < 256; b++) classOf[b] = used[b] ? next++ : 0;
+        this.classes = next;
+
+        int capacity = 1;
+        for (byte[] literal : literals) capacity += literal.length;
+        capacity = Math.min(capacity, MAX_STATES);
+        int[] trie = new int[capacity * classes];
+        int[] length = new int[capacity];
+        int[] depths = new int[capacity];
+        int states = 1;
+        for (byte[] literal : literals) {
+            if (literal.length == 0 || states + literal.length > capacity) continue;
+            int state = 0;
+            for (byte b : literal) {
+                int slot = state * classes + classOf[b & 0xff];
+                if (trie[slot] == 0) {
+                    depths[states] = depths[state] + 1;
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            length[state] = Math.max(length[state], literal.length);
+        }
+
+        // Breadth-first pass turns the trie into a DFA: missing edges follow the failure link, and
+        // each state also reports the longest literal ending at its failure state.
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classes; c++) {
+            int child = trie[c];
+            if (child != 0) queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            length[state] = Math.max(length[state], length[fail[state]]);
+            for (int c = 0; c < classes; c++) {
+                int slot = state * classes + c;
+                int child = trie[slot];
+                int fallback = trie[fail[state] * classes + c];
+                if (child != 0) {
+                    fail[child] = fallback;
+                    queue.add(child);
+                } else {
+                    trie[slot] = fallback;
+                }
+            }
+        }
+        this.delta = Arrays.copyOf(trie, states * classes);
+        this.matchLength = Arrays.copyOf(length, states);
+        this.depth = Arrays.copyOf(depths, states);
+    }
+
+    int step(int state, byte b) {
+        return delta[state * classes + classOf[b & 0xff]];
+    }
+
+    /** Length of the longest literal that ends in {@code state}, or 0 if none does. */
+    int matchLength(int state) {
+        return matchLength[state];
+    }
+
+    /** How many of the last input bytes {@code state} stands for, i.e. how far back a literal in progress started. */
+    int depth(int state) {
+        return depth[state];
+    }
+}
@@ -0,0 +1,311 @@
+package filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Writes a response body as readable text, using what its {@link ContentInfo} says about it:
+ * <ul>
+ *   <li>{@code gzip} and {@code deflate} bodies are inflated as a stream, after removing any chunked
+ *       framing; other encodings, such as {@code br}, are copied as they are, since the JDK cannot decode them;</li>
+ *   <li>binary bodies, by media type or by a sniff of their first bytes, are summarised;</li>
+ *   <li>UTF-8, ASCII and undeclared charsets are written through as they are, other charsets are
+ *       transcoded to UTF-8.</li>
+ * </ul>
+ * Only as many bytes are decoded as the {@link BodyPolicy} keeps, so a truncated copy of a large gzip body
+ * inflates only its first part. Full copies of encoded bodies stop at {@value #MAX_DECODED_BYTES} bytes.
+ * A body that turns out not to be decodable is copied as it is.
+ */
+final class BodyDecoder {
+    static final int MAX_DECODED_BYTES = 64 * 1024 * 1024;
+    private static final int SNIFF_BYTES = 512;
+
+    private BodyDecoder() {
+    }
+
+    /** Number of leading raw body bytes that decoding under {@code policy} can read. */
+    static int bytesNeeded(ContentInfo content, BodyPolicy policy, int bodyLength) {
+        return content.isIdentity() ? policy.bytesNeeded(bodyLength) : bodyLength;
+    }
+
+    /**
+     * Writes {@code body} decoded as far as {@code policy} keeps it. When it cannot be decoded, because its
+     * encoding is not supported or the stream is corrupt, the raw body is written instead, as with decoding off.
+     *
+     * @return whether the written body differs from the raw one, because it was decoded, transcoded or
+     *         summarised, so it no longer matches the coding, {@code Content-Length} and charset headers
+     */
+    static boolean write(BodySource body, ContentInfo content, BodyPolicy policy, Redactor redactor, ByteOutput out) {
+        int length = body.length();
+        if (length == 0) return false;
+        String encoding = content.isIdentity() ? null : content.encoding();
+        if (encoding != null && !encoding.equals("gzip") && !encoding.equals("x-gzip") && !encoding.equals("deflate")) {
+            BodyWriter.write(body, policy, redactor, out);
+            return false;
+        }
+        int limit = policy.mode() == BodyMode.TRUNCATE ? policy.truncateBytes()
+                : encoding == null ? length : MAX_DECODED_BYTES;
+
+        int mark = out.size();
+        byte[] chunk = new byte[Math.min(BodyWriter.CHUNK_SIZE, Math.max(Math.min(limit, length), SNIFF_BYTES))];
+        int total = 0;
+        boolean more;
+        Transcoder transcoder;
+        try (InputStream in = encoding == null ? new SourceStream(body, Math.min(limit, length))
+                : decoded(body, encoding, content.chunked())) {
+            int first = readUpTo(in, chunk, Math.min(chunk.length, limit));
+            if (isBinary(content, chunk, Math.min(first, SNIFF_BYTES))) {
+                BodyWriter.marker(out, "binary body omitted, "
+                        + (content.mediaType() == null ? "" : content.mediaType() + ", ")
+                        + length + " bytes" + (encoding == null ? "" : " " + encoding + "-encoded"));
+                return true;
+            }
+            Redactor.Stream stream = redactor.stream(out);
+            transcoder = transcodes(content) ? new Transcoder(content, stream) : null;
+            write(chunk, first, stream, transcoder);
+            total = first;
+            while (total < limit) {
+                int n = in.read(chunk, 0, Math.min(chunk.length, limit - total));
+                if (n < 0) break;
+                write(chunk, n, stream, transcoder);
+                total += n;
+            }
+            if (transcoder != null) transcoder.finish();
+            stream.finish();
+            more = encoding == null ? total < length : total >= limit && in.read() >= 0;
+        } catch (IOException e) {
+            out.truncate(mark);
+            BodyWriter.write(body, policy, redactor, out);
+            return false;
+        }
+        if (more) {
+            BodyWriter.marker(out, encoding == null
+                    ? "body truncated, showing " + total + " of " + length + " bytes"
+                    : "body truncated, showing " + total + " decoded bytes of " + length + " " + encoding + "-encoded bytes");
+        }
+        return encoding != null || transcoder != null;
+    }
+
+    private static void write(byte[] chunk, int n, Redactor.Stream stream, Transcoder transcoder) {
+        if (transcoder == null) {
+            stream.write(chunk, 0, n);
+        } else {
+            transcoder.write(chunk, n);
+        }
+    }
+
+    private static InputStream decoded(BodySource body, String encoding, boolean chunked) throws IOException {
+        InputStream raw = new SourceStream(body, body.length());
+        if (chunked) raw = new Dechunker(raw);
+        if (!encoding.equals("deflate")) return new GZIPInputStream(raw, BodyWriter.CHUNK_SIZE);
+        // "deflate" is meant to be zlib-wrapped, but some servers send a raw deflate stream
+        PushbackInputStream peek = new PushbackInputStream(raw, 2);
+        byte[] header = new byte[2];
+        int n = readUpTo(peek, header, 2);
+        peek.unread(header, 0, n);
+        int cmf = header[0] & 0xff;
+        boolean zlib = n == 2 && (cmf & 0x0f) == 8 && ((cmf << 8) | (header[1] & 0xff)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(peek, inflater, BodyWriter.CHUNK_SIZE) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inflater.end();
+            }
+        };
+    }
+
+    private static int readUpTo(InputStream in, byte[] buf, int max) throws IOException {
+        int n = 0;
+        while (n < max) {
+            int read = in.read(buf, n, max - n);
+            if (read < 0) break;
+            n += read;
+        }
+        return n;
+    }
+
+    /** Binary by media type; an unknown or missing type is sniffed for NULs and control characters. */
+    static boolean isBinary(ContentInfo content, byte[] sample, int length) {
+        String type = content.mediaType();
+        if (type != null) {
+            if (type.startsWith("text/") || type.contains("json") || type.contains("xml")
+                    || type.contains("javascript") || type.contains("x-www-form-urlencoded") || type.contains("graphql")) {
+                return false;
+            }
+            if (type.startsWith("image/") || type.startsWith("audio/") || type.startsWith("video/")
+                    || type.startsWith("font/") || type.equals("application/octet-stream") || type.equals("application/pdf")
+                    || type.equals("application/zip") || type.equals("application/gzip") || type.contains("protobuf")
+                    || type.equals("application/wasm")) {
+                return true;
+            }
+        }
+        int control = 0;
+        for (int i = 0; i < length; i++) {
+            int b = sample[i] & 0xff;
+            if (b == 0) return true;
+            if ((b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f') || b == 0x7f) control++;
+        }
+        return control * 10 > length;
+    }
+
+    /** Whether text in {@code content}'s charset is transcoded to UTF-8 rather than written through. */
+    static boolean transcodes(ContentInfo content) {
+        return content.charset() != null && !content.charset().equals(StandardCharsets.UTF_8)
+                && !content.charset().equals(StandardCharsets.US_ASCII);
+    }
+
+    /** Reads {@code [0, length)} of a body source as a stream, one chunk per read. */
+    private static final class SourceStream extends InputStream {
+        private final BodySource body;
+        private final int length;
+        private final byte[] one = new byte[1];
+        private int pos;
+
+        SourceStream(BodySource body, int length) {
+            this.body = body;
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dst, int offset, int count) {
+            if (pos >= length) return -1;
+            int n = Math.min(count, length - pos);
+            body.read(pos, dst, offset, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    /** Removes {@code Transfer-Encoding: chunked} framing; trailers after the last chunk are ignored. */
+    private static final class Dechunker extends InputStream {
+        private final InputStream in;
+        private final byte[] one = new byte[1];
+        private long remaining;
+        private boolean done;
+
+        Dechunker(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dst, int offset, int count) throws IOException {
+            if (done) return -1;
+            if (remaining == 0) {
+                remaining = chunkSize();
+                if (remaining == 0) {
+                    done = true;
+                    return -1;
+                }
+            }
+            int n = in.read(dst, offset, (int) Math.min(count, remaining));
+            if (n < 0) throw new IOException("Chunked body ends inside a chunk");
+            remaining -= n;
+            if (remaining == 0) endOfChunk();
+            return n;
+        }
+
+        private long chunkSize() throws IOException {
+            long size = 0;
+            int digits = 0;
+            int c;
+            while ((c = in.read()) >= 0 && c != '\r' && c != '\n' && c != ';' && c != ' ' && c != '\t') {
+                int digit = Character.digit(c, 16);
+                if (digit < 0 || ++digits > 15) throw new IOException("Bad chunk size");
+                size = size << 4 | digit;
+            }
+            if (digits == 0) throw new IOException("Bad chunk size");
+            while (c >= 0 && c != '\n') c = in.read();
+            if (c < 0) throw new IOException("Chunked body ends inside a chunk size line");
+            return size;
+        }
+
+        private void endOfChunk() throws IOException {
+            int c = in.read();
+            if (c == '\r') c = in.read();
+            if (c != '\n') throw new IOException("Missing line break after chunk");
+        }
+    }
+
+    /** Re-encodes a declared charset to UTF-8 chunk by chunk, carrying split multi-byte sequences over. */
+    private static final class Transcoder {
+        private final CharsetDecoder decoder;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final Redactor.Stream stream;
+        private final CharBuffer chars = CharBuffer.allocate(BodyWriter.CHUNK_SIZE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BodyWriter.CHUNK_SIZE * 3);
+        private ByteBuffer pending = ByteBuffer.allocate(BodyWriter.CHUNK_SIZE + 16);
+
+        Transcoder(ContentInfo content, Redactor.Stream stream) {
+            this.decoder = content.charset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.stream = stream;
+        }
+
+        void write(byte[] chunk, int n) {
+            if (pending.remaining() < n) {
+                ByteBuffer grown = ByteBuffer.allocate(pending.position() + n);
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.put(chunk, 0, n);
+            pending.flip();
+            drain(false);
+            pending.compact();
+        }
+
+        void finish() {
+            pending.flip();
+            drain(true);
+            chars.clear();
+            decoder.flush(chars);
+            encode(true);
+            bytes.clear();
+            encoder.flush(bytes);
+            flushBytes();
+        }
+
+        private void drain(boolean endOfInput) {
+            while (true) {
+                chars.clear();
+                boolean overflow = decoder.decode(pending, chars, endOfInput).isOverflow();
+                encode(false);
+                if (!overflow) return;
+            }
+        }
+
+        private void encode(boolean endOfInput) {
+            chars.flip();
+            bytes.clear();
+            encoder.encode(chars, bytes, endOfInput);
+            flushBytes();
+        }
+
+        private void flushBytes() {
+            bytes.flip();
+            stream.write(bytes.array(), 0, bytes.limit());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package filter;
+
+public enum BodyMode {
+    FULL("Full body"),
+    TRUNCATE("Truncate body"),
+    HEADERS_ONLY("Headers only"),
+    HASH_ONLY("Length + SHA-256 only");
+
+    private final String label;
+
+    BodyMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
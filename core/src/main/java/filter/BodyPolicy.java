@@ -0,0 +1,33 @@
+package filter;
+
+/**
+ * How message bodies are written to the output; {@code truncateBytes} only applies to {@link BodyMode#TRUNCATE}.
+ * With {@code decode}, copied response bodies go through {@link BodyDecoder} first.
+ */
+public record BodyPolicy(BodyMode mode, int truncateBytes, boolean decode) {
+    public static final int DEFAULT_TRUNCATE_BYTES = 16 * 1024;
+    public static final BodyPolicy FULL = new BodyPolicy(BodyMode.FULL, DEFAULT_TRUNCATE_BYTES);
+
+    public BodyPolicy {
+        if (mode == null) throw new IllegalArgumentException("mode is required");
+        if (truncateBytes < 0) throw new IllegalArgumentException("truncateBytes must not be negative");
+    }
+
+    public BodyPolicy(BodyMode mode, int truncateBytes) {
+        this(mode, truncateBytes, true);
+    }
+
+    /** Number of leading body bytes that must be read from the message under this policy. */
+    public int bytesNeeded(int bodyLength) {
+        return switch (mode) {
+            case FULL -> bodyLength;
+            case TRUNCATE -> Math.min(bodyLength, truncateBytes);
+            case HEADERS_ONLY, HASH_ONLY -> 0;
+        };
+    }
+
+    /** Whether bodies are copied at all, so that decoding could apply. */
+    public boolean copiesBody() {
+        return mode == BodyMode.FULL || mode == BodyMode.TRUNCATE;
+    }
+}
@@ -0,0 +1,25 @@
+package filter;
+
+/**
+ * Random-access view of a message body, so only the ranges a {@link BodyPolicy} needs are ever
+ * copied out of the underlying message.
+ */
+public interface BodySource {
+    int length();
+
+    void read(int offset, byte[] dst, int dstOffset, int length);
+
+    static BodySource of(byte[] buf, int offset, int length) {
+        return new BodySource() {
+            @Override
+            public int length() {
+                return length;
+            }
+
+            @Override
+            public void read(int from, byte[] dst, int dstOffset, int count) {
+                System.arraycopy(buf, offset + from, dst, dstOffset, count);
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package filter;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Writes a body to the output according to a {@link BodyPolicy}, reading the source in fixed-size chunks.
+ * Copied bytes pass through a {@link Redactor} stream, so secrets split across chunks are still found.
+ */
+public final class BodyWriter {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private BodyWriter() {
+    }
+
+    public static void write(BodySource body, BodyPolicy policy, ByteOutput out) {
+        write(body, policy, Redactor.NONE, out);
+    }
+
+    /**
+     * Writes a response body, decoding it with {@link BodyDecoder} when the policy asks for it and the body is
+     * copied; {@code content} is what the response headers say about the body, or {@code null} for requests.
+     *
+     * @return whether the written body differs from the raw one, so its coding headers no longer apply
+     */
+    public static boolean write(BodySource body, BodyPolicy policy, ContentInfo content, Redactor redactor,
+                                ByteOutput out) {
+        if (content != null && policy.decode() && policy.copiesBody()) {
+            return BodyDecoder.write(body, content, policy, redactor, out);
+        }
+        write(body, policy, redactor, out);
+        return false;
+    }
+
+    /** Number of leading body bytes that {@link #write(BodySource, BodyPolicy, ContentInfo, Redactor, ByteOutput)} reads. */
+    public static int bytesNeeded(BodyPolicy policy, ContentInfo content, int bodyLength) {
+        if (content != null && policy.decode() && policy.copiesBody()) {
+            return BodyDecoder.bytesNeeded(content, policy, bodyLength);
+        }
+        return policy.bytesNeeded(bodyLength);
+    }
+
+    public static void write(BodySource body, BodyPolicy policy, Redactor redactor, ByteOutput out) {
+        int length = body.length();
+        switch (policy.mode()) {
+            case FULL -> copy(body, length, redactor, out);
+            case TRUNCATE -> {
+                int kept = policy.bytesNeeded(length);
+                copy(body, kept, redactor, out);
+                if (kept < length) {
+                    marker(out, "body truncated, showing " + kept + " of " + length + " bytes");
+                }
+            }
+            case HEADERS_ONLY -> {
+                if (length > 0) marker(out, "body omitted, " + length + " bytes");
+            }
+            case HASH_ONLY -> marker(out, "body length=" + length + " sha256=" + sha256(body, length));
+        }
+    }
+
+    private static void copy(BodySource body, int length, Redactor redactor, ByteOutput out) {
+        Redactor.Stream stream = redactor.stream(out);
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, Math.max(length, 1))];
+        for (int pos = 0; pos < length; pos += chunk.length) {
+            int n = Math.min(chunk.length, length - pos);
+            body.read(pos, chunk, 0, n);
+            stream.write(chunk, 0, n);
+        }
+        stream.finish();
+    }
+
+    private static String sha256(BodySource body, int length) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, Math.max(length, 1))];
+        for (int pos = 0; pos < length; pos += chunk.length) {
+            int n = Math.min(chunk.length, length - pos);
+            body.read(pos, chunk, 0, n);
+            digest.update(chunk, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static void marker(ByteOutput out, String text) {
+        if (out.size() > 0 && out.array()[out.size() - 1] != '\n') out.writeAscii("\r\n");
+        out.writeAscii("[Copycat: " + text + "]");
+    }
+}
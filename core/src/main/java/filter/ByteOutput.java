@@ -0,0 +1,79 @@
+package filter;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that filtered output is written into. Call {@link #reset()} to reuse
+ * the backing array for the next message instead of allocating a new one.
+ */
+public final class ByteOutput {
+    private byte[] buf;
+    private int size;
+
+    public ByteOutput() {
+        this(8192);
+    }
+
+    public ByteOutput(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        buf[size++] = (byte) b;
+    }
+
+    public void write(byte[] src) {
+        write(src, 0, src.length);
+    }
+
+    public void write(byte[] src, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(src, offset, buf, size, length);
+        size += length;
+    }
+
+    public void writeAscii(CharSequence s) {
+        ensureCapacity(size + s.length());
+        for (int i = 0; i < s.length(); i++) buf[size++] = (byte) s.charAt(i);
+    }
+
+    /** Grows the buffer by {@code length} bytes for the caller to fill in and returns where they start. */
+    int extend(int length) {
+        ensureCapacity(size + length);
+        int start = size;
+        size += length;
+        return start;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Discards everything written after {@code mark}, e.g. to roll back a partially written item. */
+    public void truncate(int mark) {
+        if (mark < 0 || mark > size) throw new IndexOutOfBoundsException(mark);
+        size = mark;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    /** Backing array; only the first {@link #size()} bytes are valid. */
+    public byte[] array() {
+        return buf;
+    }
+
+    public String toString(Charset charset) {
+        return new String(buf, 0, size, charset);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required < 0) throw new OutOfMemoryError("Output buffer too large");
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length + (buf.length >> 1)));
+        }
+    }
+}
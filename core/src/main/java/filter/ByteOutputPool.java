@@ -0,0 +1,36 @@
+package filter;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of {@link ByteOutput} buffers, so copies reuse grown backing arrays instead of
+ * reallocating them each time. Buffers that grew past {@code maxPooledBytes} are dropped on release
+ * rather than kept alive.
+ */
+public final class ByteOutputPool {
+    private final int maxBuffers;
+    private final int maxPooledBytes;
+    private final ArrayDeque<ByteOutput> free = new ArrayDeque<>();
+
+    public ByteOutputPool(int maxBuffers, int maxPooledBytes) {
+        this.maxBuffers = maxBuffers;
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    public ByteOutput acquire() {
+        synchronized (free) {
+            ByteOutput buffer = free.pollFirst();
+            if (buffer != null) return buffer;
+        }
+        return new ByteOutput();
+    }
+
+    /** Returns {@code buffer} to the pool; the caller must not use it afterwards. */
+    public void release(ByteOutput buffer) {
+        if (buffer.array().length > maxPooledBytes) return;
+        buffer.reset();
+        synchronized (free) {
+            if (free.size() < maxBuffers) free.addFirst(buffer);
+        }
+    }
+}
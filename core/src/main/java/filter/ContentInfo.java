@@ -0,0 +1,94 @@
+package filter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+
+/**
+ * What a message's headers say about its body: the {@code Content-Encoding}, the media type and
+ * charset from {@code Content-Type}, and whether {@code Transfer-Encoding} is chunked. Read from the raw
+ * header section, before any header is filtered out. Every field is {@code null} when its header is
+ * absent; {@code charset} is also {@code null} when it names a charset the JVM does not know.
+ */
+public record ContentInfo(String encoding, String mediaType, Charset charset, boolean chunked) {
+    public static final ContentInfo NONE = new ContentInfo(null, null, null, false);
+
+    public static ContentInfo parse(byte[] head, int offset, int length) {
+        String encoding = null;
+        String contentType = null;
+        boolean chunked = false;
+        int end = offset + length;
+        int pos = offset;
+        while (pos < end) {
+            int lineEnd = pos;
+            while (lineEnd < end && head[lineEnd] != '\n') lineEnd++;
+            if (pos > offset) {
+                if (startsWithIgnoreCase(head, pos, lineEnd, "content-encoding:")) {
+                    encoding = value(head, pos + "content-encoding:".length(), lineEnd);
+                } else if (startsWithIgnoreCase(head, pos, lineEnd, "content-type:")) {
+                    contentType = value(head, pos + "content-type:".length(), lineEnd);
+                } else if (startsWithIgnoreCase(head, pos, lineEnd, "transfer-encoding:")) {
+                    chunked = value(head, pos + "transfer-encoding:".length(), lineEnd).contains("chunked");
+                }
+            }
+            pos = lineEnd + 1;
+        }
+        if (encoding == null && contentType == null && !chunked) return NONE;
+
+        String mediaType = null;
+        Charset charset = null;
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            mediaType = parts[0].strip();
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip();
+                if (parameter.startsWith("charset=")) charset = charset(parameter.substring("charset=".length()));
+            }
+        }
+        return new ContentInfo(encoding, mediaType == null || mediaType.isEmpty() ? null : mediaType, charset, chunked);
+    }
+
+    /** What to decode a message body by: {@code null} for requests, and when {@code policy} does not decode. */
+    public static ContentInfo forBody(boolean request, byte[] head, BodyPolicy policy) {
+        return request || !policy.decode() ? null : parse(head, 0, head.length);
+    }
+
+    /** This info for a body whose content and transfer coding have already been undone, e.g. one read from a HAR file. */
+    public ContentInfo withoutEncoding() {
+        return encoding == null && !chunked ? this : new ContentInfo(null, mediaType, charset, false);
+    }
+
+    /** Whether the body is stored as-is, with no encoding or only {@code identity}. */
+    public boolean isIdentity() {
+        return encoding == null || encoding.isEmpty() || encoding.equals("identity");
+    }
+
+    private static Charset charset(String name) {
+        String unquoted = name.strip();
+        if (unquoted.length() >= 2 && unquoted.startsWith("\"") && unquoted.endsWith("\"")) {
+            unquoted = unquoted.substring(1, unquoted.length() - 1);
+        }
+        try {
+            return Charset.forName(unquoted);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    /** The trimmed, lower-cased header value between {@code from} and the end of the line. */
+    private static String value(byte[] head, int from, int lineEnd) {
+        int to = lineEnd > from && head[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+        return new String(head, from, to - from, StandardCharsets.ISO_8859_1).strip()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] head, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (HeaderMatcher.toLowerAscii((char) (head[from + i] & 0xff)) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+}
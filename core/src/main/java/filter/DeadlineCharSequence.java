@@ -0,0 +1,48 @@
+package filter;
+
+/**
+ * {@link CharSequence} view that aborts the regex reading it once a deadline passes.
+ * {@link java.util.regex.Matcher} reads its input through {@link #charAt}, so checking
+ * the clock there bounds backtracking. The check runs every {@value #CHECK_INTERVAL} reads. That keeps
+ * the overhead to a counter decrement per character.
+ */
+final class DeadlineCharSequence implements CharSequence {
+    private static final int CHECK_INTERVAL = 256;
+
+    private CharSequence delegate;
+    private long deadline;
+    private int countdown;
+
+    DeadlineCharSequence wrap(CharSequence delegate, long deadlineNanos) {
+        this.delegate = delegate;
+        this.deadline = deadlineNanos;
+        this.countdown = CHECK_INTERVAL;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (--countdown <= 0) {
+            countdown = CHECK_INTERVAL;
+            if (System.nanoTime() - deadline > 0) {
+                throw new MatchTimeoutException();
+            }
+        }
+        return delegate.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new DeadlineCharSequence().wrap(delegate.subSequence(start, end), deadline);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package filter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of regex decisions, keyed by the ASCII-lower-cased header name. A decision is the id of
+ * the pattern that matched, or {@link #KEPT} when none did.
+ * <p>
+ * The table is two-way set associative with a fixed number of slots, so it never grows. A name is only
+ * admitted on its second miss: the first miss just records its hash in a doorkeeper table. Names that
+ * occur once, such as random {@code X-Request-Id-*} variants, therefore never evict the names that
+ * repeat. Entries are immutable and written without locks; a racing reader sees either the old entry or
+ * the new one, and at worst recomputes a decision.
+ */
+final class DecisionCache {
+    static final int DEFAULT_CAPACITY = 1024;
+    static final int MAX_KEY_LENGTH = 64;
+    static final int KEPT = -1;
+    static final int MISS = -2;
+
+    private record Entry(String key, int hash, int decision) {
+    }
+
+    private final Entry[] slots;
+    private final int[] doorkeeper;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    DecisionCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Entry[size];
+        this.doorkeeper = new int[size];
+        this.mask = size - 1;
+    }
+
+    /** Hit and miss counts so far, for reporting the cache's effectiveness. */
+    record Stats(long hits, long misses) {
+        double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) h = 31 * h + HeaderMatcher.toLowerAscii(name.charAt(i));
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(byte[] buf, int offset, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) h = 31 * h + HeaderMatcher.toLowerAscii((char) (buf[offset + i] & 0xff));
+        return h ^ (h >>> 16);
+    }
+
+    /** @return the cached decision, or {@link #MISS} */
+    int lookup(CharSequence name, int hash) {
+        int slot = hash & mask;
+        Entry entry = slots[slot];
+        if (entry == null || !matches(entry, name, hash)) {
+            entry = slots[slot ^ 1];
+            if (entry == null || !matches(entry, name, hash)) {
+                misses.increment();
+                return MISS;
+            }
+        }
+        hits.increment();
+        return entry.decision;
+    }
+
+    int lookup(byte[] buf, int offset, int length, int hash) {
+        int slot = hash & mask;
+        Entry entry = slots[slot];
+        if (entry == null || !matches(entry, buf, offset, length, hash)) {
+            entry = slots[slot ^ 1];
+            if (entry == null || !matches(entry, buf, offset, length, hash)) {
+                misses.increment();
+                return MISS;
+            }
+        }
+        hits.increment();
+        return entry.decision;
+    }
+
+    void record(CharSequence name, int hash, int decision) {
+        if (name.length() > MAX_KEY_LENGTH || !admit(hash)) return;
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) key.append(HeaderMatcher.toLowerAscii(name.charAt(i)));
+        store(new Entry(key.toString(), hash, decision));
+    }
+
+    void record(byte[] buf, int offset, int length, int hash, int decision) {
+        if (length > MAX_KEY_LENGTH || !admit(hash)) return;
+        char[] key = new char[length];
+        for (int i = 0; i < length; i++) key[i] = HeaderMatcher.toLowerAscii((char) (buf[offset + i] & 0xff));
+        store(new Entry(new String(key), hash, decision));
+    }
+
+    Stats stats() {
+        return new Stats(hits.sum(), misses.sum());
+    }
+
+    private boolean admit(int hash) {
+        int slot = hash & mask;
+        if (doorkeeper[slot] == hash) return true;
+        doorkeeper[slot] = hash;
+        return false;
+    }
+
+    private void store(Entry entry) {
+        int slot = entry.hash & mask;
+        if (slots[slot] != null && slots[slot ^ 1] == null) {
+            slot ^= 1;
+        } else if (slots[slot] != null) {
+            slot ^= (entry.hash >>> 16) & 1;
+        }
+        slots[slot] = entry;
+    }
+
+    private static boolean matches(Entry entry, CharSequence name, int hash) {
+        if (entry.hash != hash || entry.key.length() != name.length()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (entry.key.charAt(i) != HeaderMatcher.toLowerAscii(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(Entry entry, byte[] buf, int offset, int length, int hash) {
+        if (entry.hash != hash || entry.key.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (entry.key.charAt(i) != HeaderMatcher.toLowerAscii((char) (buf[offset + i] & 0xff))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package filter;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of the filter settings: the pattern list as entered by the user, the
+ * {@link HeaderMatcher} compiled from it, the {@link BodyPolicy} and the {@link Redactor}. A copy reads one snapshot and
+ * uses it throughout, so settings edits made meanwhile never affect a copy in flight.
+ */
+public final class FilterConfig {
+    private final long version;
+    private final List<String> patterns;
+    private final HeaderMatcher matcher;
+    private final BodyPolicy bodyPolicy;
+    private final RedactionRules redaction;
+    private final Redactor redactor;
+
+    private FilterConfig(long version, List<String> patterns, HeaderMatcher matcher, BodyPolicy bodyPolicy,
+                         RedactionRules redaction, Redactor redactor) {
+        this.version = version;
+        this.patterns = patterns;
+        this.matcher = matcher;
+        this.bodyPolicy = bodyPolicy;
+        this.redaction = redaction;
+        this.redactor = redactor;
+    }
+
+    public static FilterConfig of(long version, List<String> patterns, HeaderMatcher matcher, BodyPolicy bodyPolicy) {
+        return new FilterConfig(version, List.copyOf(patterns), matcher, bodyPolicy, RedactionRules.OFF, Redactor.NONE);
+    }
+
+    /** Version of the pattern list; it increases every time new patterns are requested. */
+    public long version() {
+        return version;
+    }
+
+    public List<String> patterns() {
+        return patterns;
+    }
+
+    public HeaderMatcher matcher() {
+        return matcher;
+    }
+
+    public BodyPolicy bodyPolicy() {
+        return bodyPolicy;
+    }
+
+    public RedactionRules redaction() {
+        return redaction;
+    }
+
+    public Redactor redactor() {
+        return redactor;
+    }
+
+    /** This config with another pattern set, e.g. a profile used for a single copy. */
+    public FilterConfig withPatterns(List<String> otherPatterns, HeaderMatcher otherMatcher) {
+        return new FilterConfig(version, List.copyOf(otherPatterns), otherMatcher, bodyPolicy, redaction, redactor);
+    }
+
+    /** This config with {@code other} in place of the redactor built from {@link #redaction()} alone. */
+    public FilterConfig withRedactor(Redactor other) {
+        return new FilterConfig(version, patterns, matcher, bodyPolicy, redaction, other);
+    }
+
+    FilterConfig withPatterns(FilterConfig compiled) {
+        return new FilterConfig(compiled.version, compiled.patterns, compiled.matcher, bodyPolicy, redaction, redactor);
+    }
+
+    FilterConfig withBodyPolicy(BodyPolicy policy) {
+        return new FilterConfig(version, patterns, matcher, policy, redaction, redactor);
+    }
+
+    FilterConfig withRedaction(RedactionRules rules, Redactor built) {
+        return new FilterConfig(version, patterns, matcher, bodyPolicy, rules, built);
+    }
+}
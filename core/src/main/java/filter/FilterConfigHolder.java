@@ -0,0 +1,59 @@
+package filter;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Publishes the current {@link FilterConfig}. Readers call {@link #get()} without locking; pattern
+ * updates compile a new matcher off the calling thread and swap it in with a single atomic step.
+ * If two pattern updates race, the one requested last wins regardless of which finishes compiling first.
+ */
+public final class FilterConfigHolder {
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<FilterConfig> current;
+
+    public FilterConfigHolder(List<String> initialPatterns, HeaderMatcher initialMatcher, BodyPolicy bodyPolicy) {
+        this.current = new AtomicReference<>(
+                FilterConfig.of(versions.incrementAndGet(), distinct(initialPatterns), initialMatcher, bodyPolicy));
+    }
+
+    public FilterConfig get() {
+        return current.get();
+    }
+
+    public CompletableFuture<FilterConfig> update(Collection<String> patterns, Executor executor) {
+        return update(patterns, HeaderMatcher::compile, executor);
+    }
+
+    /** Publishes {@code patterns} using {@code compiler}, e.g. to restore a matcher saved with a profile. */
+    public CompletableFuture<FilterConfig> update(Collection<String> patterns,
+                                                  Function<List<String>, HeaderMatcher> compiler, Executor executor) {
+        long version = versions.incrementAndGet();
+        List<String> copy = distinct(patterns);
+        return CompletableFuture.supplyAsync(() -> publish(version, copy, compiler.apply(copy)), executor);
+    }
+
+    public FilterConfig updateBodyPolicy(BodyPolicy bodyPolicy) {
+        return current.updateAndGet(cur -> cur.withBodyPolicy(bodyPolicy));
+    }
+
+    public FilterConfig updateRedaction(RedactionRules rules) {
+        Redactor redactor = Redactor.build(rules, List.of());
+        return current.updateAndGet(cur -> cur.withRedaction(rules, redactor));
+    }
+
+    private FilterConfig publish(long version, List<String> patterns, HeaderMatcher matcher) {
+        FilterConfig compiled = FilterConfig.of(version, patterns, matcher, BodyPolicy.FULL);
+        return current.updateAndGet(cur -> compiled.version() > cur.version() ? cur.withPatterns(compiled) : cur);
+    }
+
+    private static List<String> distinct(Collection<String> patterns) {
+        return List.copyOf(new LinkedHashSet<>(patterns));
+    }
+}
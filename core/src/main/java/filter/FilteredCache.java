@@ -0,0 +1,241 @@
+package filter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Size-bounded LRU of filtered messages, keyed by a fingerprint of the bytes the filter reads, so an
+ * identical message copied again is served without filtering it a second time. Entries are stored
+ * deflated when that saves at least an eighth of their size.
+ * <p>
+ * Every entry belongs to one generation: the matcher, body policy and redactor it was filtered with.
+ * A lookup with any other filter settings misses, and {@link #invalidate} drops everything when those
+ * settings change. The fingerprint is a fast 64-bit hash, not a cryptographic one, so it only finds
+ * the candidate entry: each entry also keeps a {@value #DIGEST_ALGORITHM} digest of the same bytes, and
+ * a hit is served only when the caller's digest matches it. The digest is computed on stores and on
+ * candidate hits, never on plain misses. A cache with a size limit of zero is disabled and is bypassed
+ * by callers.
+ */
+public final class FilteredCache {
+    public static final int DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+    private static final long SEED_REQUEST = 0x243F6A8885A308D3L;
+    private static final long SEED_RESPONSE = 0x13198A2E03707344L;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private record Key(long fingerprint, int length) {
+    }
+
+    private record Entry(byte[] digest, byte[] data, int rawLength, boolean deflated) {
+    }
+
+    private record Generation(HeaderMatcher matcher, BodyPolicy bodyPolicy, Redactor redactor) {
+        static Generation of(FilterConfig config) {
+            return new Generation(config.matcher(), config.bodyPolicy(), config.redactor());
+        }
+    }
+
+    public record Stats(long hits, long misses, long collisions, int entries, long storedBytes, long rawBytes) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d entries, %d KB (%d KB filtered), hit rate %.1f%%%s",
+                    entries, storedBytes / 1024, rawBytes / 1024, hitRate() * 100,
+                    collisions == 0 ? "" : ", " + collisions + " fingerprint collisions");
+        }
+    }
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private volatile int maxBytes;
+    private long storedBytes;
+    private long rawBytes;
+    private Generation generation;
+
+    public FilteredCache(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Starts a fingerprint; feed it the header section and the body bytes the policy reads. */
+    public static long seed(boolean request, int messageLength) {
+        return (request ? SEED_REQUEST : SEED_RESPONSE) ^ messageLength * MULTIPLIER;
+    }
+
+    public static long hash(long h, byte[] buf, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            h = mix(h ^ (long) LONGS.get(buf, i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < end; i++, shift += 8) {
+            tail |= (buf[i] & 0xffL) << shift;
+        }
+        return mix(h ^ tail ^ length);
+    }
+
+    private static long mix(long h) {
+        h *= MULTIPLIER;
+        return h ^ (h >>> 29);
+    }
+
+    /** A {@value #DIGEST_ALGORITHM} digest; feed it the same bytes as the fingerprint. */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Appends the cached output for this message to {@code out}; returns false on a miss. {@code digest}
+     * is only asked for when an entry with this fingerprint exists, and the entry is only used when the
+     * digests match.
+     */
+    public boolean copyTo(long fingerprint, int messageLength, FilterConfig config, Supplier<byte[]> digest,
+                          ByteOutput out) {
+        Entry entry;
+        synchronized (this) {
+            entry = Generation.of(config).equals(generation) ? entries.get(new Key(fingerprint, messageLength)) : null;
+        }
+        if (entry != null && !MessageDigest.isEqual(entry.digest(), digest.get())) {
+            collisions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return false;
+        }
+        int start = out.extend(entry.rawLength());
+        if (entry.deflated()) {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(entry.data());
+                int n = 0;
+                while (n < entry.rawLength() && !inflater.finished()) {
+                    n += inflater.inflate(out.array(), start + n, entry.rawLength() - n);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt cache entry", e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            System.arraycopy(entry.data(), 0, out.array(), start, entry.rawLength());
+        }
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * Whether this message is cached for these settings. Unlike {@link #copyTo} it is not counted as a lookup
+     * and only compares fingerprints, which is enough to skip filtering a message ahead of time.
+     */
+    public synchronized boolean contains(long fingerprint, int messageLength, FilterConfig config) {
+        return Generation.of(config).equals(generation) && entries.containsKey(new Key(fingerprint, messageLength));
+    }
+
+    /**
+     * Stores the filtered form {@code buf[offset, offset + length)} of a message whose fingerprinted bytes
+     * have {@code digest}. Ignored when the settings differ from the current generation, unless the cache
+     * is still empty.
+     */
+    public void store(long fingerprint, int messageLength, FilterConfig config, byte[] digest,
+                      byte[] buf, int offset, int length) {
+        if (length > maxBytes / 4) return;
+        Entry entry = encode(digest, buf, offset, length);
+        Generation owner = Generation.of(config);
+        synchronized (this) {
+            if (generation == null || entries.isEmpty()) {
+                generation = owner;
+            } else if (!owner.equals(generation)) {
+                return;
+            }
+            Entry previous = entries.put(new Key(fingerprint, messageLength), entry);
+            if (previous != null) account(previous, -1);
+            account(entry, 1);
+            evict();
+        }
+    }
+
+    /** Drops every entry unless it was filtered with the same settings as {@code config}. */
+    public synchronized void invalidateUnless(FilterConfig config) {
+        if (!Generation.of(config).equals(generation)) invalidate();
+    }
+
+    public synchronized void invalidate() {
+        entries.clear();
+        storedBytes = 0;
+        rawBytes = 0;
+        generation = null;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    public synchronized void setMaxBytes(int maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), collisions.sum(), entries.size(), storedBytes, rawBytes);
+    }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    private void account(Entry entry, int sign) {
+        storedBytes += sign * (long) entry.data().length;
+        rawBytes += sign * (long) entry.rawLength();
+    }
+
+    private void evict() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (storedBytes > maxBytes && oldest.hasNext()) {
+            account(oldest.next(), -1);
+            oldest.remove();
+        }
+    }
+
+    private static Entry encode(byte[] digest, byte[] buf, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(buf, offset, length);
+            deflater.finish();
+            byte[] packed = new byte[length - length / 8];
+            int n = 0;
+            while (!deflater.finished() && n < packed.length) {
+                n += deflater.deflate(packed, n, packed.length - n);
+            }
+            if (deflater.finished()) return new Entry(digest, Arrays.copyOf(packed, n), length, true);
+        } finally {
+            deflater.end();
+        }
+        return new Entry(digest, Arrays.copyOfRange(buf, offset, offset + length), length, false);
+    }
+}
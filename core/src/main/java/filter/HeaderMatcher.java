@@ -0,0 +1,410 @@
+package filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides whether a header name is excluded by the configured pattern set.
+ * <p>
+ * Patterns are classified once when the matcher is built:
+ * <ul>
+ *   <li>plain names such as {@code host} become exact, case-insensitive literal lookups,</li>
+ *   <li>{@code name.*} and {@code ^name} become prefix lookups in a trie,</li>
+ *   <li>everything else is folded into a single alternation {@link Pattern} evaluated with {@code matches()};
+ *       regexes with backreferences are evaluated on their own.</li>
+ * </ul>
+ * Like literals, regexes must match the whole header name, so {@code ^} and {@code $} are optional and
+ * {@code x-.*-id} does not exclude {@code x-request-id-hash}. {@code ^name} without {@code $} is the one
+ * shorthand for a prefix.
+ * Patterns that do not compile are treated as exact literals. Regexes are compiled through {@link PatternCache},
+ * so a matcher for an edited pattern set only compiles what changed. Instances are immutable and thread-safe.
+ * <p>
+ * Regex decisions are memoised per header name in a bounded {@link DecisionCache}. The cache belongs to
+ * the matcher instance, so publishing a matcher for a new pattern set also starts with an empty cache.
+ * Each matcher also keeps {@link MatchStats}. When the alternation matches, the regexes are tried one by one
+ * to attribute the hit to a single pattern, and every {@value #TIMING_SAMPLE_INTERVAL}th regex evaluation
+ * also times each regex on its own. Both only happen on decision-cache misses.
+ * <p>
+ * Every regex evaluation runs under a {@value #REGEX_BUDGET_NANOS} ns deadline, so a pattern with catastrophic
+ * backtracking cannot stall a copy on a hostile header name. A name that runs out of time is treated as
+ * excluded, counted as a timeout against the pattern that caused it and cached like any other decision.
+ */
+public final class HeaderMatcher {
+    private static final String CASE_INSENSITIVE_FLAG = "(?i)";
+    private static final int TIMING_SAMPLE_INTERVAL = 16;
+    static final long REGEX_BUDGET_NANOS = 2_000_000L;
+    private static final Pattern BACKREFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+    private static final Pattern INLINE_FLAGS_OFF = Pattern.compile("\\(\\?[a-zA-Z]*-");
+    private static final AtomicReference<Pattern> LAST_FALLBACK = new AtomicReference<>();
+    private static final HeaderMatcher EMPTY = compile(List.of());
+
+    private final List<String> literalNames;
+    private final List<String> prefixNames;
+    private final List<String> regexes;
+    private final LiteralTable literals;
+    private final PrefixTrie prefixes;
+    private final Pattern fallback;
+    private final Pattern[] regexPatterns;
+    private final boolean[] regexInFallback;
+    private final ThreadLocal<Matcher> fallbackMatcher;
+    private final ThreadLocal<Latin1CharSequence> fallbackInput;
+    private final ThreadLocal<DeadlineCharSequence> deadlineInput;
+    private final DecisionCache decisions;
+    private final MatchStats stats;
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    private HeaderMatcher(List<String> literalNames, List<String> prefixNames, List<String> regexes) {
+        this.literalNames = List.copyOf(literalNames);
+        this.prefixNames = List.copyOf(prefixNames);
+        this.regexes = List.copyOf(regexes);
+        this.literals = new LiteralTable(literalNames);
+        this.prefixes = new PrefixTrie();
+        for (int i = 0; i < prefixNames.size(); i++) prefixes.add(prefixNames.get(i), literalNames.size() + i);
+        this.regexPatterns = new Pattern[regexes.size()];
+        this.regexInFallback = new boolean[regexes.size()];
+        for (int i = 0; i < regexes.size(); i++) {
+            regexPatterns[i] = PatternCache.compile(regexes.get(i));
+            regexInFallback[i] = !hasBackreference(regexes.get(i));
+        }
+        this.fallback = buildFallback(regexes);
+        this.fallbackMatcher = fallback == null ? null : ThreadLocal.withInitial(() -> fallback.matcher(""));
+        this.fallbackInput = regexes.isEmpty() ? null : ThreadLocal.withInitial(Latin1CharSequence::new);
+        this.deadlineInput = regexes.isEmpty() ? null : ThreadLocal.withInitial(DeadlineCharSequence::new);
+        this.decisions = regexes.isEmpty() || hasInlineFlags(regexes)
+                ? null : new DecisionCache(DecisionCache.DEFAULT_CAPACITY);
+        this.stats = buildStats(this.literalNames, this.prefixNames, this.regexes);
+    }
+
+    private HeaderMatcher(HeaderMatcher shared) {
+        this.literalNames = shared.literalNames;
+        this.prefixNames = shared.prefixNames;
+        this.regexes = shared.regexes;
+        this.literals = shared.literals;
+        this.prefixes = shared.prefixes;
+        this.regexPatterns = shared.regexPatterns;
+        this.regexInFallback = shared.regexInFallback;
+        this.fallback = shared.fallback;
+        this.fallbackMatcher = shared.fallbackMatcher;
+        this.fallbackInput = shared.fallbackInput;
+        this.deadlineInput = shared.deadlineInput;
+        this.decisions = shared.decisions;
+        this.stats = buildStats(literalNames, prefixNames, regexes);
+    }
+
+    public static HeaderMatcher empty() {
+        return EMPTY;
+    }
+
+    public static HeaderMatcher compile(Collection<String> patterns) {
+        List<String> literalNames = new ArrayList<>();
+        List<String> prefixNames = new ArrayList<>();
+        List<String> regexes = new ArrayList<>();
+
+        for (String raw : patterns) {
+            String pattern = raw.startsWith(CASE_INSENSITIVE_FLAG) ? raw.substring(CASE_INSENSITIVE_FLAG.length()) : raw;
+            if (pattern.isEmpty()) continue;
+
+            boolean anchoredStart = pattern.startsWith("^");
+            boolean anchoredEnd = pattern.endsWith("$") && !pattern.endsWith("\\$");
+            String body = pattern.substring(anchoredStart ? 1 : 0, pattern.length() - (anchoredEnd ? 1 : 0));
+            boolean wildcardTail = body.endsWith(".*");
+            String stem = wildcardTail ? body.substring(0, body.length() - 2) : body;
+
+            if (!stem.isEmpty() && isPlainName(stem)) {
+                if (wildcardTail || (anchoredStart && !anchoredEnd)) {
+                    prefixNames.add(stem);
+                } else {
+                    literalNames.add(stem);
+                }
+                continue;
+            }
+            try {
+                PatternCache.compile(pattern);
+                regexes.add(pattern);
+            } catch (PatternSyntaxException e) {
+                literalNames.add(raw);
+            }
+        }
+
+        return new HeaderMatcher(literalNames, prefixNames, regexes);
+    }
+
+    /**
+     * One alternation of every regex without backreferences; a backreference would point at the wrong
+     * group once its pattern is combined with others, so those regexes are evaluated on their own.
+     * The last alternation is reused when the regexes did not change, e.g. after adding a plain name.
+     */
+    private static Pattern buildFallback(List<String> regexes) {
+        StringBuilder alternation = new StringBuilder();
+        for (String regex : regexes) {
+            if (hasBackreference(regex)) continue;
+            if (alternation.length() > 0) alternation.append('|');
+            alternation.append("(?:").append(regex).append(')');
+        }
+        if (alternation.length() == 0) return null;
+        String source = alternation.toString();
+        Pattern last = LAST_FALLBACK.get();
+        if (last != null && last.pattern().equals(source)) return last;
+        Pattern fallback = Pattern.compile(source, Pattern.CASE_INSENSITIVE);
+        LAST_FALLBACK.set(fallback);
+        return fallback;
+    }
+
+    private static boolean hasBackreference(String regex) {
+        return BACKREFERENCE.matcher(regex).find();
+    }
+
+    private static MatchStats buildStats(List<String> literalNames, List<String> prefixNames, List<String> regexes) {
+        List<String> patterns = new ArrayList<>();
+        List<String> kinds = new ArrayList<>();
+        literalNames.forEach(name -> {
+            patterns.add(name);
+            kinds.add("literal");
+        });
+        prefixNames.forEach(prefix -> {
+            patterns.add(prefix + ".*");
+            kinds.add("prefix");
+        });
+        regexes.forEach(regex -> {
+            patterns.add(regex);
+            kinds.add("regex");
+        });
+        return new MatchStats(patterns, kinds);
+    }
+
+    /** Inline flags such as {@code (?-i)} can make a decision case-sensitive, so case-folded keys would be wrong. */
+    private static boolean hasInlineFlags(List<String> regexes) {
+        for (String regex : regexes) {
+            if (INLINE_FLAGS_OFF.matcher(regex).find()) return true;
+        }
+        return false;
+    }
+
+    private static boolean isPlainName(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (PrefixTrie.indexOf(s.charAt(i)) < 0) return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return literals.isEmpty() && prefixes.isEmpty() && regexPatterns.length == 0;
+    }
+
+    public boolean excludes(CharSequence name) {
+        int decision = decide(name);
+        stats.recordDecision(decision);
+        return decision >= 0;
+    }
+
+    /** Same decision as {@link #excludes(CharSequence)} for a name stored as raw bytes, without decoding it. */
+    public boolean excludes(byte[] buf, int offset, int length) {
+        int decision = decide(buf, offset, length);
+        stats.recordDecision(decision);
+        return decision >= 0;
+    }
+
+    public MatchStats stats() {
+        return stats;
+    }
+
+    /**
+     * A matcher with the same patterns and decision cache but its own {@link MatchStats}, for callers whose
+     * decisions should not show up in this matcher's counters.
+     */
+    public HeaderMatcher withOwnStats() {
+        return new HeaderMatcher(this);
+    }
+
+    /** @return the id of the first pattern that excludes {@code name}, or {@link DecisionCache#KEPT} */
+    private int decide(CharSequence name) {
+        int id = literals.find(name);
+        if (id < 0) id = prefixes.matchPrefixOf(name);
+        if (id >= 0 || regexPatterns.length == 0) return id >= 0 ? id : DecisionCache.KEPT;
+        if (decisions == null) return evaluateRegexes(name);
+        int hash = DecisionCache.hash(name);
+        int cached = decisions.lookup(name, hash);
+        if (cached != DecisionCache.MISS) return cached;
+        int decision = evaluateRegexes(name);
+        decisions.record(name, hash, decision);
+        return decision;
+    }
+
+    private int decide(byte[] buf, int offset, int length) {
+        int id = literals.find(buf, offset, length);
+        if (id < 0) id = prefixes.matchPrefixOf(buf, offset, length);
+        if (id >= 0 || regexPatterns.length == 0) return id >= 0 ? id : DecisionCache.KEPT;
+        int hash = decisions == null ? 0 : DecisionCache.hash(buf, offset, length);
+        int cached = decisions == null ? DecisionCache.MISS : decisions.lookup(buf, offset, length, hash);
+        if (cached != DecisionCache.MISS) return cached;
+        Latin1CharSequence input = fallbackInput.get().wrap(buf, offset, length);
+        int decision;
+        try {
+            decision = evaluateRegexes(input);
+        } finally {
+            input.wrap(null, 0, 0);
+        }
+        if (decisions != null) decisions.record(buf, offset, length, hash, decision);
+        return decision;
+    }
+
+    private int evaluateRegexes(CharSequence name) {
+        DeadlineCharSequence input = deadlineInput.get();
+        try {
+            boolean matched = false;
+            boolean timedOut = false;
+            if (fallback != null) {
+                Matcher matcher = fallbackMatcher.get();
+                try {
+                    matched = matcher.reset(input.wrap(name, System.nanoTime() + REGEX_BUDGET_NANOS)).matches();
+                } catch (MatchTimeoutException e) {
+                    timedOut = true;
+                } finally {
+                    matcher.reset("");
+                }
+            }
+            int decision = attribute(name, input, matched, timedOut);
+            if (evaluations.getAndIncrement() % TIMING_SAMPLE_INTERVAL == 0) sampleRegexTimes(name, input);
+            return decision;
+        } finally {
+            input.wrap(null, 0);
+        }
+    }
+
+    /**
+     * Finds the single regex behind a decision. Regexes kept out of the alternation are always tried;
+     * the others only when the alternation matched or ran out of time.
+     */
+    private int attribute(CharSequence name, DeadlineCharSequence input, boolean matched, boolean timedOut) {
+        int firstRegex = literalNames.size() + prefixNames.size();
+        for (int i = 0; i < regexPatterns.length; i++) {
+            if (regexInFallback[i] && !matched && !timedOut) continue;
+            try {
+                if (regexPatterns[i].matcher(input.wrap(name, System.nanoTime() + REGEX_BUDGET_NANOS)).matches()) {
+                    return firstRegex + i;
+                }
+            } catch (MatchTimeoutException e) {
+                stats.recordTimeout(firstRegex + i);
+                return firstRegex + i;
+            }
+        }
+        if (timedOut) {
+            stats.recordTimeout(firstRegex);
+            return firstRegex;
+        }
+        return matched ? firstRegex : DecisionCache.KEPT;
+    }
+
+    private void sampleRegexTimes(CharSequence name, DeadlineCharSequence input) {
+        int firstRegex = literalNames.size() + prefixNames.size();
+        for (int i = 0; i < regexPatterns.length; i++) {
+            long start = System.nanoTime();
+            try {
+                regexPatterns[i].matcher(input.wrap(name, start + REGEX_BUDGET_NANOS)).matches();
+            } catch (MatchTimeoutException e) {
+                // counted as a timeout when the decision was made; the elapsed time is still recorded
+            }
+            stats.recordTiming(firstRegex + i, System.nanoTime() - start);
+        }
+    }
+
+    /** Hit rate of the regex decision cache, e.g. {@code "97.5% of 12000"}; empty when no regexes are configured. */
+    public String decisionCacheSummary() {
+        if (decisions == null) return "";
+        DecisionCache.Stats stats = decisions.stats();
+        return String.format("%.1f%% of %d", stats.hitRate() * 100, stats.hits() + stats.misses());
+    }
+
+    static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Open-addressing map from lower-cased names to pattern ids, probed with ASCII case folding so lookups
+     * never allocate.
+     */
+    private static final class LiteralTable {
+        private final String[] slots;
+        private final int[] ids;
+        private final int mask;
+        private final int size;
+
+        LiteralTable(List<String> names) {
+            int capacity = Integer.highestOneBit(Math.max(4, names.size() * 2 - 1)) << 1;
+            this.slots = new String[capacity];
+            this.ids = new int[capacity];
+            this.mask = capacity - 1;
+            int count = 0;
+            for (int i = 0; i < names.size(); i++) {
+                String key = lower(names.get(i));
+                if (find(key) >= 0) continue;
+                int slot = hash(key) & mask;
+                while (slots[slot] != null) slot = (slot + 1) & mask;
+                slots[slot] = key;
+                ids[slot] = i;
+                count++;
+            }
+            this.size = count;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int find(CharSequence name) {
+            int slot = hash(name) & mask;
+            String candidate;
+            while ((candidate = slots[slot]) != null) {
+                if (equalsIgnoreAsciiCase(candidate, name)) return ids[slot];
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int find(byte[] buf, int offset, int length) {
+            int h = 0;
+            for (int i = 0; i < length; i++) h = 31 * h + toLowerAscii((char) (buf[offset + i] & 0xff));
+            int slot = (h ^ (h >>> 16)) & mask;
+            String candidate;
+            while ((candidate = slots[slot]) != null) {
+                if (equalsIgnoreAsciiCase(candidate, buf, offset, length)) return ids[slot];
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private static boolean equalsIgnoreAsciiCase(String lowerKey, byte[] buf, int offset, int length) {
+            if (lowerKey.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (lowerKey.charAt(i) != toLowerAscii((char) (buf[offset + i] & 0xff))) return false;
+            }
+            return true;
+        }
+
+        private static int hash(CharSequence s) {
+            int h = 0;
+            for (int i = 0; i < s.length(); i++) h = 31 * h + toLowerAscii(s.charAt(i));
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean equalsIgnoreAsciiCase(String lowerKey, CharSequence name) {
+            if (lowerKey.length() != name.length()) return false;
+            for (int i = 0; i < lowerKey.length(); i++) {
+                if (lowerKey.charAt(i) != toLowerAscii(name.charAt(i))) return false;
+            }
+            return true;
+        }
+
+        private static String lower(String s) {
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) sb.append(toLowerAscii(s.charAt(i)));
+            return sb.toString();
+        }
+    }
+}
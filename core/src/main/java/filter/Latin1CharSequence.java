@@ -0,0 +1,42 @@
+package filter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Re-targetable {@link CharSequence} view over a byte range, one char per byte (ISO-8859-1),
+ * so regexes can run over raw message bytes without decoding them into a String.
+ */
+final class Latin1CharSequence implements CharSequence {
+    private byte[] buf;
+    private int offset;
+    private int length;
+
+    Latin1CharSequence wrap(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return (char) (buf[offset + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+        return new Latin1CharSequence().wrap(buf, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,95 @@
+package filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one {@link HeaderMatcher}: headers seen and dropped, hits per pattern and, for regex
+ * patterns, sampled evaluation time and deadline timeouts. Counting uses {@link LongAdder}s so matching threads do not contend.
+ */
+public final class MatchStats {
+    /** Totals for one pattern; time is only sampled for regexes, so literals and prefixes report 0 samples. */
+    public record PatternStat(String pattern, String kind, long hits, long timedSamples, long totalNanos,
+                              long maxNanos, long timeouts) {
+        public double averageMicros() {
+            return timedSamples == 0 ? 0 : totalNanos / 1000.0 / timedSamples;
+        }
+    }
+
+    private final List<String> patterns;
+    private final List<String> kinds;
+    private final LongAdder seen = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder[] hits;
+    private final LongAdder[] samples;
+    private final LongAdder[] nanos;
+    private final LongAccumulator[] maxNanos;
+    private final LongAdder[] timeouts;
+
+    MatchStats(List<String> patterns, List<String> kinds) {
+        this.patterns = patterns;
+        this.kinds = kinds;
+        int n = patterns.size();
+        this.hits = new LongAdder[n];
+        this.samples = new LongAdder[n];
+        this.nanos = new LongAdder[n];
+        this.maxNanos = new LongAccumulator[n];
+        this.timeouts = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            hits[i] = new LongAdder();
+            samples[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+            maxNanos[i] = new LongAccumulator(Math::max, 0);
+            timeouts[i] = new LongAdder();
+        }
+    }
+
+    void recordDecision(int patternId) {
+        seen.increment();
+        if (patternId >= 0) {
+            dropped.increment();
+            hits[patternId].increment();
+        }
+    }
+
+    void recordTiming(int patternId, long elapsedNanos) {
+        samples[patternId].increment();
+        nanos[patternId].add(elapsedNanos);
+        maxNanos[patternId].accumulate(elapsedNanos);
+    }
+
+    void recordTimeout(int patternId) {
+        timeouts[patternId].increment();
+    }
+
+    public long headersSeen() {
+        return seen.sum();
+    }
+
+    public long headersDropped() {
+        return dropped.sum();
+    }
+
+    public List<PatternStat> patterns() {
+        List<PatternStat> stats = new ArrayList<>(patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            stats.add(new PatternStat(patterns.get(i), kinds.get(i), hits[i].sum(), samples[i].sum(),
+                    nanos[i].sum(), maxNanos[i].get(), timeouts[i].sum()));
+        }
+        return stats;
+    }
+
+    public void reset() {
+        seen.reset();
+        dropped.reset();
+        for (int i = 0; i < hits.length; i++) {
+            hits[i].reset();
+            samples[i].reset();
+            nanos[i].reset();
+            maxNanos[i].reset();
+            timeouts[i].reset();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package filter;
+
+/** Thrown out of a regex evaluation when its {@link DeadlineCharSequence} runs out of time. */
+final class MatchTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    MatchTimeoutException() {
+        super("Regex evaluation exceeded its time budget", null, false, false);
+    }
+}
@@ -0,0 +1,205 @@
+package filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Filters raw HTTP/1.x message bytes in place: the start line is copied as-is, each header line is kept
+ * or dropped by looking its name up in a {@link HeaderMatcher}, and the body is written according to a
+ * {@link BodyPolicy}. Header names are located by scanning for the colon, so no String is created per header.
+ * When a {@link Redactor} is given, it is applied to the start line, kept header values and the body.
+ */
+public final class MessageFilter {
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final Pattern CHARSET_PARAMETER = Pattern.compile("(?i)(;\\s*charset\\s*=\\s*)(\"[^\"]*\"|[^;\\s]*)");
+
+    private MessageFilter() {
+    }
+
+    public static void filter(byte[] message, HeaderMatcher matcher, ByteOutput out) {
+        filter(message, 0, message.length, matcher, BodyPolicy.FULL, out);
+    }
+
+    public static void filter(byte[] message, int offset, int length, HeaderMatcher matcher,
+                              BodyPolicy bodyPolicy, ByteOutput out) {
+        filter(message, offset, length, matcher, bodyPolicy, Redactor.NONE, out);
+    }
+
+    public static void filter(byte[] message, int offset, int length, HeaderMatcher matcher,
+                              BodyPolicy bodyPolicy, Redactor redactor, ByteOutput out) {
+        int headStart = out.size();
+        int bodyStart = filterHead(message, offset, length, matcher, redactor, out);
+        int outBodyStart = out.size();
+        BodySource body = BodySource.of(message, bodyStart, offset + length - bodyStart);
+        BodyWriter.write(body, bodyPolicy, redactor, out);
+        if (redactionResized(body, bodyPolicy, redactor, out, outBodyStart)) {
+            rewriteHeaders(out, headStart, outBodyStart, false, false);
+        }
+    }
+
+    /**
+     * Filters a message whose header section and body are held separately, such as one pulled out of Burp.
+     * {@code content} is what decoding goes by, {@code null} for bodies copied as they are; {@code bodyDecoded}
+     * means the body is stored with its codings already undone, as in HAR files. When the written body is
+     * decoded, the {@code Content-Encoding} and {@code Transfer-Encoding} headers are dropped, a kept
+     * {@code Content-Length} is set to the written length and a transcoded charset is relabelled as UTF-8,
+     * so the copy does not contradict itself. A kept {@code Content-Length} is also updated when redaction
+     * changed the length of a body that was copied whole.
+     */
+    public static void filter(byte[] head, BodySource body, ContentInfo content, boolean bodyDecoded,
+                              FilterConfig config, ByteOutput out) {
+        int headStart = out.size();
+        filterHead(head, 0, head.length, config.matcher(), config.redactor(), out);
+        int bodyStart = out.size();
+        boolean decoded = BodyWriter.write(body, config.bodyPolicy(),
+                bodyDecoded && content != null ? content.withoutEncoding() : content, config.redactor(), out);
+        if (decoded || (bodyDecoded && content != null)) {
+            rewriteHeaders(out, headStart, bodyStart, true, decoded && BodyDecoder.transcodes(content));
+        } else if (redactionResized(body, config.bodyPolicy(), config.redactor(), out, bodyStart)) {
+            rewriteHeaders(out, headStart, bodyStart, false, false);
+        }
+    }
+
+    /** Whether redaction changed the length of a body that was written whole and otherwise as it is. */
+    private static boolean redactionResized(BodySource body, BodyPolicy policy, Redactor redactor, ByteOutput out,
+                                            int bodyStart) {
+        int length = body.length();
+        return !redactor.isEmpty() && length > 0 && policy.bytesNeeded(length) == length
+                && out.size() - bodyStart != length;
+    }
+
+    /**
+     * Sets a kept {@code Content-Length} to the written body length; with {@code codings}, also drops the
+     * coding headers, and with {@code utf8}, relabels the {@code Content-Type} charset.
+     */
+    private static void rewriteHeaders(ByteOutput out, int headStart, int bodyStart, boolean codings, boolean utf8) {
+        byte[] buf = out.array();
+        int bodyLength = out.size() - bodyStart;
+        ByteOutput head = new ByteOutput(bodyStart - headStart + 16);
+        int pos = headStart;
+        while (pos < bodyStart) {
+            int lineEnd = indexOfLf(buf, pos, bodyStart);
+            int next = lineEnd < 0 ? bodyStart : lineEnd + 1;
+            if (codings && pos > headStart && (startsWithIgnoreCase(buf, pos, next, "content-encoding:")
+                    || startsWithIgnoreCase(buf, pos, next, "transfer-encoding:"))) {
+                pos = next;
+                continue;
+            }
+            if (pos > headStart && startsWithIgnoreCase(buf, pos, next, "content-length:")) {
+                head.write(buf, pos, "content-length:".length());
+                head.writeAscii(" " + bodyLength + "\r\n");
+            } else if (utf8 && pos > headStart && startsWithIgnoreCase(buf, pos, next, "content-type:")) {
+                String line = new String(buf, pos, next - pos, StandardCharsets.ISO_8859_1);
+                head.writeAscii(CHARSET_PARAMETER.matcher(line).replaceFirst("$1utf-8"));
+            } else {
+                head.write(buf, pos, next - pos);
+            }
+            pos = next;
+        }
+        int delta = head.size() - (bodyStart - headStart);
+        for (int i = 0; i < delta; i++) out.write(0);
+        buf = out.array();
+        System.arraycopy(buf, bodyStart, buf, bodyStart + delta, bodyLength);
+        System.arraycopy(head.array(), 0, buf, headStart, head.size());
+        if (delta < 0) out.truncate(out.size() + delta);
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] buf, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (HeaderMatcher.toLowerAscii((char) (buf[from + i] & 0xff)) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public static int filterHead(byte[] message, int offset, int length, HeaderMatcher matcher, ByteOutput out) {
+        return filterHead(message, offset, length, matcher, Redactor.NONE, out);
+    }
+
+    /**
+     * Writes the start line, the kept header lines and the blank line that ends the header section.
+     *
+     * @return the index in {@code message} where the body starts
+     */
+    public static int filterHead(byte[] message, int offset, int length, HeaderMatcher matcher, Redactor redactor,
+                                 ByteOutput out) {
+        int end = offset + length;
+        int lineEnd = indexOfLf(message, offset, end);
+        if (lineEnd < 0) {
+            redactor.redact(message, offset, length, out);
+            return end;
+        }
+        writeLine(message, offset, lineEnd, false, redactor, out);
+
+        int pos = lineEnd + 1;
+        boolean keepingHeader = true;
+        while (pos < end) {
+            lineEnd = indexOfLf(message, pos, end);
+            int contentEnd = trimCr(message, pos, lineEnd < 0 ? end : lineEnd);
+            if (contentEnd == pos) {
+                out.write(CR);
+                out.write(LF);
+                return lineEnd < 0 ? end : lineEnd + 1;
+            }
+
+            boolean continuation = message[pos] == ' ' || message[pos] == '\t';
+            if (!continuation) {
+                keepingHeader = !isExcluded(message, pos, contentEnd, matcher);
+            }
+            if (keepingHeader) {
+                writeLine(message, pos, contentEnd, !continuation, redactor, out);
+            }
+            pos = lineEnd < 0 ? end : lineEnd + 1;
+        }
+        out.write(CR);
+        out.write(LF);
+        return end;
+    }
+
+    private static boolean isExcluded(byte[] message, int lineStart, int lineEnd, HeaderMatcher matcher) {
+        int colon = lineStart;
+        while (colon < lineEnd && message[colon] != ':') colon++;
+        int nameStart = lineStart;
+        int nameEnd = colon;
+        while (nameStart < nameEnd && isWhitespace(message[nameStart])) nameStart++;
+        while (nameEnd > nameStart && isWhitespace(message[nameEnd - 1])) nameEnd--;
+        return matcher.excludes(message, nameStart, nameEnd - nameStart);
+    }
+
+    /** Writes a line through {@code redactor}; for a header line only the value is redacted, not the name. */
+    private static void writeLine(byte[] message, int start, int end, boolean header, Redactor redactor,
+                                  ByteOutput out) {
+        int contentEnd = trimCr(message, start, end);
+        if (redactor.isEmpty()) {
+            out.write(message, start, contentEnd - start);
+        } else {
+            int redactFrom = header ? valueStart(message, start, contentEnd) : start;
+            out.write(message, start, redactFrom - start);
+            redactor.redact(message, redactFrom, contentEnd - redactFrom, out);
+        }
+        out.write(CR);
+        out.write(LF);
+    }
+
+    private static int valueStart(byte[] message, int lineStart, int lineEnd) {
+        int colon = lineStart;
+        while (colon < lineEnd && message[colon] != ':') colon++;
+        return colon < lineEnd ? colon + 1 : lineStart;
+    }
+
+    private static int indexOfLf(byte[] message, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (message[i] == LF) return i;
+        }
+        return -1;
+    }
+
+    private static int trimCr(byte[] message, int start, int end) {
+        return end > start && message[end - 1] == CR ? end - 1 : end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,47 @@
+package filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled header regexes, keyed by their source text and shared by every matcher. Rebuilding a matcher
+ * after one pattern was added or removed therefore compiles only the new pattern and the alternation that
+ * combines them. Sources that do not compile are remembered too, and their error is thrown again.
+ * The least recently used entries are dropped beyond {@value #CAPACITY}.
+ */
+public final class PatternCache {
+    private static final int CAPACITY = 4096;
+    private static final Map<String, Object> ENTRIES = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private PatternCache() {
+    }
+
+    /** {@code regex} compiled case-insensitively, as header names are matched. */
+    public static Pattern compile(String regex) {
+        Object entry;
+        synchronized (ENTRIES) {
+            entry = ENTRIES.get(regex);
+        }
+        if (entry == null) {
+            try {
+                entry = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            } catch (PatternSyntaxException e) {
+                entry = e;
+            }
+            synchronized (ENTRIES) {
+                ENTRIES.put(regex, entry);
+            }
+        }
+        if (entry instanceof PatternSyntaxException e) {
+            throw new PatternSyntaxException(e.getDescription(), e.getPattern(), e.getIndex());
+        }
+        return (Pattern) entry;
+    }
+}
@@ -0,0 +1,89 @@
+package filter;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive prefix trie over the characters allowed in plain header names
+ * ({@code a-z}, {@code 0-9}, {@code -} and {@code _}). Built once, then only read. Each prefix carries an id
+ * so callers can tell which pattern matched.
+ */
+final class PrefixTrie {
+    static final int ALPHABET = 38;
+
+    private int[][] children = new int[8][];
+    /** Pattern id + 1 of the prefix ending at each node, 0 if none does. */
+    private int[] terminal = new int[8];
+    private int nodeCount = 1;
+
+    PrefixTrie() {
+        children[0] = newRow();
+    }
+
+    static int indexOf(char c) {
+        char lower = HeaderMatcher.toLowerAscii(c);
+        if (lower >= 'a' && lower <= 'z') return lower - 'a';
+        if (lower >= '0' && lower <= '9') return 26 + (lower - '0');
+        if (lower == '-') return 36;
+        if (lower == '_') return 37;
+        return -1;
+    }
+
+    void add(String prefix, int id) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int index = indexOf(prefix.charAt(i));
+            if (index < 0) throw new IllegalArgumentException("Unsupported character in prefix: " + prefix);
+            int next = children[node][index];
+            if (next == 0) {
+                next = newNode();
+                children[node][index] = next;
+            }
+            node = next;
+        }
+        if (terminal[node] == 0) terminal[node] = id + 1;
+    }
+
+    boolean isEmpty() {
+        return nodeCount == 1;
+    }
+
+    /** @return the id of the shortest prefix of {@code name} in the trie, or -1 if there is none */
+    int matchPrefixOf(CharSequence name) {
+        if (nodeCount == 1) return -1;
+        int node = 0;
+        for (int i = 0; i < name.length(); i++) {
+            int index = indexOf(name.charAt(i));
+            if (index < 0) return -1;
+            node = children[node][index];
+            if (node == 0) return -1;
+            if (terminal[node] != 0) return terminal[node] - 1;
+        }
+        return -1;
+    }
+
+    int matchPrefixOf(byte[] buf, int offset, int length) {
+        if (nodeCount == 1) return -1;
+        int node = 0;
+        for (int i = 0; i < length; i++) {
+            int index = indexOf((char) (buf[offset + i] & 0xff));
+            if (index < 0) return -1;
+            node = children[node][index];
+            if (node == 0) return -1;
+            if (terminal[node] != 0) return terminal[node] - 1;
+        }
+        return -1;
+    }
+
+    private int newNode() {
+        if (nodeCount == children.length) {
+            children = Arrays.copyOf(children, nodeCount * 2);
+            terminal = Arrays.copyOf(terminal, nodeCount * 2);
+        }
+        children[nodeCount] = newRow();
+        return nodeCount++;
+    }
+
+    private static int[] newRow() {
+        return new int[ALPHABET];
+    }
+}
@@ -0,0 +1,16 @@
+package filter;
+
+import java.util.List;
+
+/**
+ * What to redact from copied bodies and kept header values: literal secrets entered by the user,
+ * structured tokens (JWTs, AWS access keys, email addresses) and, when {@code cookieJar} is set, the
+ * values currently in Burp's cookie jar. Redaction is off unless {@code enabled}.
+ */
+public record RedactionRules(boolean enabled, boolean tokens, boolean cookieJar, List<String> literals) {
+    public static final RedactionRules OFF = new RedactionRules(false, true, true, List.of());
+
+    public RedactionRules {
+        literals = List.copyOf(literals);
+    }
+}
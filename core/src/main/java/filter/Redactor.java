@@ -0,0 +1,228 @@
+package filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces secrets with {@code [REDACTED]} markers in a single streaming pass.
+ * <p>
+ * Literal secrets go through one {@link AhoCorasick} automaton, so the cost per byte does not grow
+ * with the number of secrets. Structured tokens are found by a small combined regex. That regex only
+ * runs on maximal runs of token characters (letters, digits and {@code ._-+/=@%}), each as the run
+ * ends, and only on runs containing {@code eyJ}, {@code AKIA}, {@code ASIA} or {@code @}, so no regex
+ * ever scans the whole body. Bytes are copied to the output as they arrive and rewritten in place when
+ * a match completes. Matches can therefore span the chunks a body is read in. Overlapping literal matches
+ * are merged and masked once no literal still in progress could extend them.
+ * Instances are immutable; each message gets its own {@link Stream}.
+ */
+public final class Redactor {
+    public static final Redactor NONE = new Redactor(null, null);
+    /** Literals shorter than this would redact ordinary words and numbers, so they are ignored. */
+    public static final int MIN_LITERAL_LENGTH = 4;
+    static final int MAX_TOKEN_RUN = 16 * 1024;
+    private static final byte[] LITERAL_MASK = "[REDACTED]".getBytes(StandardCharsets.US_ASCII);
+    private static final String[] TOKEN_KINDS = {"jwt", "awskey", "email"};
+    private static final Pattern TOKENS = Pattern.compile(
+            "(?<jwt>eyJ[A-Za-z0-9_-]{4,}\\.eyJ[A-Za-z0-9_-]{4,}\\.[A-Za-z0-9_-]*)"
+                    + "|(?<awskey>(?:AKIA|ASIA)[0-9A-Z]{16})"
+                    + "|(?<email>[A-Za-z0-9._%+-]{1,64}@[A-Za-z0-9-]+(?:\\.[A-Za-z0-9-]+)*\\.[A-Za-z]{2,})");
+    private static final int MIN_TOKEN_RUN = 6;
+
+    private final AhoCorasick literals;
+    private final Pattern tokens;
+
+    private Redactor(AhoCorasick literals, Pattern tokens) {
+        this.literals = literals;
+        this.tokens = tokens;
+    }
+
+    /** Builds a redactor for {@code rules}, adding {@code extraLiterals} such as cookie jar values. */
+    public static Redactor build(RedactionRules rules, Collection<String> extraLiterals) {
+        if (!rules.enabled()) return NONE;
+        Set<String> secrets = new LinkedHashSet<>(rules.literals());
+        secrets.addAll(extraLiterals);
+        List<byte[]> encoded = new ArrayList<>();
+        for (String secret : secrets) {
+            if (secret.length() >= MIN_LITERAL_LENGTH) encoded.add(secret.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        AhoCorasick automaton = encoded.isEmpty() ? null : new AhoCorasick(encoded);
+        Pattern tokenPattern = rules.tokens() ? TOKENS : null;
+        return automaton == null && tokenPattern == null ? NONE : new Redactor(automaton, tokenPattern);
+    }
+
+    public boolean isEmpty() {
+        return literals == null && tokens == null;
+    }
+
+    public Stream stream(ByteOutput out) {
+        return new Stream(out);
+    }
+
+    /** Redacts one self-contained range, such as a header value. */
+    public void redact(byte[] buf, int offset, int length, ByteOutput out) {
+        if (isEmpty()) {
+            out.write(buf, offset, length);
+            return;
+        }
+        Stream stream = stream(out);
+        stream.write(buf, offset, length);
+        stream.finish();
+    }
+
+    /** {@code eyJ} starts a JWT, {@code AKIA}/{@code ASIA} an AWS key and every email has an {@code @}. */
+    static boolean isTrigger(int recent) {
+        return (recent & 0xff) == '@' || (recent & 0xffffff) == ('e' << 16 | 'y' << 8 | 'J')
+                || recent == ('A' << 24 | 'K' << 16 | 'I' << 8 | 'A') || recent == ('A' << 24 | 'S' << 16 | 'I' << 8 | 'A');
+    }
+
+    static boolean isTokenByte(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '.' || b == '_' || b == '-' || b == '+' || b == '/' || b == '=' || b == '@' || b == '%';
+    }
+
+    /** Redaction state for one message; feed it bytes in order with {@link #write}, then call {@link #finish}. */
+    public final class Stream {
+        private final ByteOutput out;
+        private final Matcher tokenMatcher;
+        private final Latin1CharSequence runView = new Latin1CharSequence();
+        private int state;
+        /** Output position before which nothing may be rewritten, i.e. the end of the last marker. */
+        private int protectedEnd;
+        private int runStart = -1;
+        /** Whether the current run contains something every token starts with or contains. */
+        private boolean runTriggered;
+        /** The last four token bytes, most recent in the low byte. */
+        private int recent;
+        private int redactions;
+        /** Output range of literal matches waiting to be masked, or {@code literalStart < 0} if none. */
+        private int literalStart = -1;
+        private int literalEnd;
+
+        private Stream(ByteOutput out) {
+            this.out = out;
+            this.tokenMatcher = tokens == null ? null : tokens.matcher("");
+            this.protectedEnd = out.size();
+        }
+
+        public void write(byte[] buf, int offset, int length) {
+            if (isEmpty()) {
+                out.write(buf, offset, length);
+                return;
+            }
+            int end = offset + length;
+            // Input bytes from 'pending' up to the current one are copied to the output in bulk, just
+            // before anything needs to look at or rewrite the output.
+            int pending = offset;
+            for (int i = offset; i < end; i++) {
+                byte b = buf[i];
+                int c = b & 0xff;
+                if (tokenMatcher != null) {
+                    if (isTokenByte(c)) {
+                        if (runStart < 0) {
+                            runStart = out.size() + i - pending;
+                            runTriggered = false;
+                        }
+                        recent = recent << 8 | c;
+                        if (!runTriggered) runTriggered = isTrigger(recent);
+                    } else if (runStart >= 0) {
+                        out.write(buf, pending, i - pending);
+                        pending = i;
+                        if (literalStart >= 0) maskLiterals();
+                        endRun();
+                    }
+                }
+                if (literals != null) {
+                    state = literals.step(state, b);
+                    int matched = literals.matchLength(state);
+                    if (matched > 0 || literalStart >= 0) {
+                        // Where the output ends once this byte is copied.
+                        int position = out.size() + i + 1 - pending;
+                        if (matched > 0) {
+                            // A match while one is pending is merged into it: the pending range is only
+                            // held back while a literal in progress started inside it.
+                            int start = Math.max(position - matched, protectedEnd);
+                            literalStart = literalStart < 0 ? start : Math.min(literalStart, start);
+                            literalEnd = position;
+                        }
+                        if (literalStart >= 0 && literals.depth(state) <= position - literalEnd) {
+                            out.write(buf, pending, i + 1 - pending);
+                            pending = i + 1;
+                            maskLiterals();
+                        }
+                    }
+                }
+            }
+            out.write(buf, pending, end - pending);
+        }
+
+        /** Completes any pending token run; returns how many secrets were redacted in this stream. */
+        public int finish() {
+            if (literalStart >= 0) maskLiterals();
+            if (runStart >= 0) endRun();
+            return redactions;
+        }
+
+        private void mask(byte[] marker) {
+            out.write(marker);
+            protectedEnd = out.size();
+            runStart = -1;
+            redactions++;
+        }
+
+        /** Replaces the pending literal range with a marker, keeping the bytes written after it. */
+        private void maskLiterals() {
+            byte[] tail = Arrays.copyOfRange(out.array(), literalEnd, out.size());
+            int runOffset = runStart < 0 ? -1 : Math.max(0, runStart - literalEnd);
+            out.truncate(literalStart);
+            mask(LITERAL_MASK);
+            if (runOffset >= 0) runStart = protectedEnd + runOffset;
+            out.write(tail);
+            literalStart = -1;
+        }
+
+        private void endRun() {
+            int start = Math.max(runStart, protectedEnd);
+            runStart = -1;
+            recent = 0;
+            int length = out.size() - start;
+            if (!runTriggered || length < MIN_TOKEN_RUN || length > MAX_TOKEN_RUN) return;
+
+            byte[] run = Arrays.copyOfRange(out.array(), start, out.size());
+            Matcher matcher = tokenMatcher.reset(runView.wrap(run, 0, run.length));
+            int copied = 0;
+            boolean truncated = false;
+            try {
+                while (matcher.find()) {
+                    if (!truncated) {
+                        out.truncate(start);
+                        truncated = true;
+                    }
+                    out.write(run, copied, matcher.start() - copied);
+                    mask(("[REDACTED:" + kindOf(matcher) + "]").getBytes(StandardCharsets.US_ASCII));
+                    copied = matcher.end();
+                }
+            } finally {
+                matcher.reset("");
+                runView.wrap(null, 0, 0);
+            }
+            if (truncated) {
+                out.write(run, copied, run.length - copied);
+                state = 0;
+            }
+        }
+
+        private String kindOf(Matcher matcher) {
+            for (String kind : TOKEN_KINDS) {
+                if (matcher.start(kind) >= 0) return kind;
+            }
+            return "token";
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+/**
+ * Checks a user-supplied regex for catastrophic backtracking before it is added to a pattern set.
+ * <p>
+ * A structural scan looks for the usual causes:
+ * <ul>
+ *   <li>nested unbounded quantifiers such as {@code (a+)+};</li>
+ *   <li>quantified alternations whose branches can start with the same character, such as {@code (a|ab)*};</li>
+ *   <li>adjacent unbounded quantifiers over overlapping atoms, such as {@code \w+\d+}.</li>
+ * </ul>
+ * The regex is then run against a stress corpus built from its own literal characters, each input under
+ * a deadline; each input runs twice and the faster run counts, so JIT warm-up does not read as slowness.
+ * A regex that blows the deadline is rejected. Structural findings without a measured
+ * slowdown only produce a warning, because the scan is conservative.
+ */
+public final class RegexSafety {
+    static final long STRESS_BUDGET_NANOS = 20_000_000L;
+    static final long SLOW_NANOS = 1_000_000L;
+    private static final int[] STRESS_LENGTHS = {28, 256};
+    private static final int MAX_STRESS_CHARS = 8;
+    private static final int MAX_REPORTS = 1024;
+    private static final Map<String, Report> REPORTS = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Report> eldest) {
+            return size() > MAX_REPORTS;
+        }
+    };
+
+    public enum Verdict {
+        SAFE, WARN, REJECT
+    }
+
+    public record Report(Verdict verdict, List<String> findings, long worstNanos) {
+        public String message() {
+            return String.join("\n", findings);
+        }
+    }
+
+    private RegexSafety() {
+    }
+
+    /**
+     * Analyses {@code regex}; the caller must already have checked that it compiles. Reports are kept per
+     * regex, so importing a pattern set that was checked before does not run the stress corpus again.
+     */
+    public static Report analyse(String regex) {
+        synchronized (REPORTS) {
+            Report report = REPORTS.get(regex);
+            if (report != null) return report;
+        }
+        Report report = measure(regex);
+        synchronized (REPORTS) {
+            REPORTS.put(regex, report);
+        }
+        return report;
+    }
+
+    private static Report measure(String regex) {
+        List<String> findings = new ArrayList<>(scan(regex));
+        boolean structural = !findings.isEmpty();
+
+        Matcher matcher = PatternCache.compile(regex).matcher("");
+        DeadlineCharSequence input = new DeadlineCharSequence();
+        long worst = 0;
+        for (String candidate : stressCorpus(regex)) {
+            long fastest = Long.MAX_VALUE;
+            for (int run = 0; run < 2; run++) {
+                long start = System.nanoTime();
+                try {
+                    matcher.reset(input.wrap(candidate, start + STRESS_BUDGET_NANOS)).matches();
+                } catch (MatchTimeoutException e) {
+                    findings.add("Matching a " + candidate.length() + "-character header name took over "
+                            + STRESS_BUDGET_NANOS / 1_000_000 + " ms (catastrophic backtracking)");
+                    return new Report(Verdict.REJECT, findings, System.nanoTime() - start);
+                }
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+            worst = Math.max(worst, fastest);
+        }
+        if (worst > SLOW_NANOS) {
+            findings.add(String.format("Slowest stress input took %.1f ms", worst / 1_000_000.0));
+        }
+        Verdict verdict = structural || worst > SLOW_NANOS ? Verdict.WARN : Verdict.SAFE;
+        return new Report(verdict, findings, worst);
+    }
+
+    /** Structural findings for {@code regex}, without running it. */
+    static List<String> scan(String regex) {
+        Set<String> findings = new LinkedHashSet<>();
+        Deque<Group> groups = new ArrayDeque<>();
+        Group current = new Group();
+        Atom last = null;
+        Atom lastQuantified = null;
+        Atom beforeLast = null;
+
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            Atom atom;
+            if (c == '\\' && i + 1 < regex.length()) {
+                atom = new Atom(regex.substring(i, i + 2), false, false);
+                i += 2;
+            } else if (c == '[') {
+                int end = classEnd(regex, i);
+                atom = new Atom(regex.substring(i, end), false, false);
+                i = end;
+            } else if (c == '(') {
+                int bodyStart = groupBodyStart(regex, i);
+                if (bodyStart < 0) {
+                    i = regex.indexOf(')', i) + 1;
+                    continue;
+                }
+                groups.push(current);
+                current = new Group();
+                last = null;
+                lastQuantified = null;
+                i = bodyStart;
+                continue;
+            } else if (c == ')') {
+                Group closed = current;
+                closed.closeBranch();
+                current = groups.isEmpty() ? new Group() : groups.pop();
+                current.unbounded |= closed.unbounded;
+                lastQuantified = null;
+                atom = new Atom("(", closed.unbounded, closed.ambiguous());
+                i++;
+            } else if (c == '|') {
+                current.closeBranch();
+                last = null;
+                lastQuantified = null;
+                i++;
+                continue;
+            } else if (c == '*' || c == '+' || c == '?' || c == '{') {
+                int end = c == '{' ? Math.max(regex.indexOf('}', i) + 1, i + 1) : i + 1;
+                boolean unbounded = c == '*' || c == '+' || regex.substring(i, end).matches("\\{\\d*,}");
+                if (end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) end++;
+                if (last != null && unbounded) {
+                    if (last.containsUnbounded) {
+                        findings.add("Nested unbounded quantifiers, as in (a+)+");
+                    }
+                    if (last.ambiguousAlternation) {
+                        findings.add("Quantified alternation with overlapping branches, as in (a|ab)*");
+                    }
+                    if (beforeLast != null && overlaps(beforeLast.text, last.text)) {
+                        findings.add("Adjacent unbounded quantifiers over overlapping characters, as in \\w+\\d+");
+                    }
+                    current.unbounded = true;
+                    lastQuantified = last;
+                } else {
+                    lastQuantified = null;
+                }
+                last = null;
+                i = end;
+                continue;
+            } else if (c == '^' || c == '$') {
+                i++;
+                continue;
+            } else {
+                atom = new Atom(String.valueOf(c), false, false);
+                i++;
+            }
+            current.noteAtom(atom);
+            beforeLast = last == null ? lastQuantified : null;
+            lastQuantified = null;
+            last = atom;
+        }
+        return new ArrayList<>(findings);
+    }
+
+    /** Repetitions of the regex's own characters, each followed by a character that makes the match fail. */
+    static List<String> stressCorpus(String regex) {
+        Set<Character> chars = new LinkedHashSet<>();
+        for (int i = 0; i < regex.length() && chars.size() < MAX_STRESS_CHARS; i++) {
+            char c = regex.charAt(i);
+            if (i > 0 && regex.charAt(i - 1) == '\\') continue;
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '_') chars.add(Character.toLowerCase(c));
+        }
+        chars.add('a');
+        chars.add('0');
+        chars.add('-');
+
+        List<String> corpus = new ArrayList<>();
+        for (int length : STRESS_LENGTHS) {
+            for (char c : chars) {
+                corpus.add(String.valueOf(c).repeat(length) + "!");
+                corpus.add("x-" + String.valueOf(c).repeat(length) + "!");
+            }
+            corpus.add("a-".repeat(length / 2) + "!");
+            corpus.add("ab".repeat(length / 2) + "!");
+        }
+        return corpus;
+    }
+
+    private static boolean overlaps(String a, String b) {
+        if (isBroad(a) || isBroad(b)) return true;
+        if (a.length() == 1 && b.length() == 1) return Character.toLowerCase(a.charAt(0)) == Character.toLowerCase(b.charAt(0));
+        String escape = a.startsWith("\\") ? a : b;
+        String other = escape == a ? b : a;
+        if (!escape.startsWith("\\") || escape.length() != 2) return false;
+        char kind = escape.charAt(1);
+        if (other.startsWith("\\") && other.length() == 2) {
+            char otherKind = other.charAt(1);
+            return kind == otherKind || (kind == 'w' && otherKind == 'd') || (kind == 'd' && otherKind == 'w');
+        }
+        if (other.length() != 1) return false;
+        char ch = other.charAt(0);
+        return switch (kind) {
+            case 'd' -> Character.isDigit(ch);
+            case 'w' -> Character.isLetterOrDigit(ch) || ch == '_';
+            case 's' -> Character.isWhitespace(ch);
+            default -> ch == kind;
+        };
+    }
+
+    /** Atoms that can match most characters: {@code .}, character classes, groups and negated escapes. */
+    private static boolean isBroad(String atom) {
+        return atom.equals(".") || atom.startsWith("[") || atom.equals("(")
+                || atom.equals("\\W") || atom.equals("\\S") || atom.equals("\\D");
+    }
+
+    private static int classEnd(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') i++;
+        if (i < regex.length() && regex.charAt(i) == ']') i++;
+        int depth = 1;
+        while (i < regex.length() && depth > 0) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') depth++;
+            if (c == ']') depth--;
+            i++;
+        }
+        return i;
+    }
+
+    /** Index of the first character inside the group at {@code open}, or -1 for an inline flag group like {@code (?i)}. */
+    private static int groupBodyStart(String regex, int open) {
+        if (open + 1 >= regex.length() || regex.charAt(open + 1) != '?') return open + 1;
+        int i = open + 2;
+        if (i < regex.length() && regex.charAt(i) == '<' && i + 1 < regex.length()
+                && regex.charAt(i + 1) != '=' && regex.charAt(i + 1) != '!') {
+            int close = regex.indexOf('>', i);
+            return close < 0 ? open + 1 : close + 1;
+        }
+        while (i < regex.length() && (Character.isLetter(regex.charAt(i)) || regex.charAt(i) == '-')) i++;
+        if (i < regex.length() && regex.charAt(i) == ')') return -1;
+        if (i < regex.length() && regex.charAt(i) == '<') i++;
+        return Math.min(regex.length(), i + 1);
+    }
+
+    private record Atom(String text, boolean containsUnbounded, boolean ambiguousAlternation) {
+    }
+
+    private static final class Group {
+        final List<String> branchFirsts = new ArrayList<>();
+        String currentFirst;
+        boolean unbounded;
+
+        void noteAtom(Atom atom) {
+            if (currentFirst == null) currentFirst = atom.text;
+        }
+
+        void closeBranch() {
+            branchFirsts.add(currentFirst == null ? "" : currentFirst);
+            currentFirst = null;
+        }
+
+        boolean ambiguous() {
+            for (int a = 0; a < branchFirsts.size(); a++) {
+                for (int b = a + 1; b < branchFirsts.size(); b++) {
+                    String first = branchFirsts.get(a);
+                    String second = branchFirsts.get(b);
+                    if (first.isEmpty() || second.isEmpty() || overlaps(first, second)) return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of copying, per phase, plus the bytes that went through the filter. Shared by every copy action
+ * and shown in the settings panel; recording never blocks.
+ */
+public final class CopyMetrics {
+    public enum Phase {
+        EXTRACT("Extract"),
+        FILTER("Filter"),
+        RENDER("Render"),
+        CLIPBOARD("Clipboard");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    public CopyMetrics() {
+        for (Phase phase : Phase.values()) phases.put(phase, new LatencyHistogram());
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    public void recordMessage(long in, long out) {
+        messages.increment();
+        bytesIn.add(in);
+        bytesOut.add(out);
+    }
+
+    public LatencyHistogram phase(Phase phase) {
+        return phases.get(phase);
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    public void reset() {
+        phases.values().forEach(LatencyHistogram::reset);
+        messages.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+    }
+}
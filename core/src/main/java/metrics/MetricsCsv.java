@@ -0,0 +1,48 @@
+package metrics;
+
+import java.util.Locale;
+
+import filter.MatchStats;
+
+/** Flattens copy metrics and matcher statistics into one CSV document. */
+public final class MetricsCsv {
+    private MetricsCsv() {
+    }
+
+    public static String write(CopyMetrics metrics, MatchStats matchStats) {
+        StringBuilder csv = new StringBuilder();
+        csv.append("section,name,kind,count,avg_us,p50_us,p95_us,p99_us,max_us\n");
+        for (CopyMetrics.Phase phase : CopyMetrics.Phase.values()) {
+            LatencyHistogram histogram = metrics.phase(phase);
+            csv.append("phase,").append(phase).append(",,").append(histogram.count()).append(',')
+                    .append(format(histogram.averageMicros())).append(',')
+                    .append(histogram.percentileMicros(0.50)).append(',')
+                    .append(histogram.percentileMicros(0.95)).append(',')
+                    .append(histogram.percentileMicros(0.99)).append(',')
+                    .append(format(histogram.maxMicros())).append('\n');
+        }
+        csv.append("total,messages,,").append(metrics.messages()).append(",,,,,\n");
+        csv.append("total,bytes_in,,").append(metrics.bytesIn()).append(",,,,,\n");
+        csv.append("total,bytes_out,,").append(metrics.bytesOut()).append(",,,,,\n");
+        csv.append("total,headers_seen,,").append(matchStats.headersSeen()).append(",,,,,\n");
+        csv.append("total,headers_dropped,,").append(matchStats.headersDropped()).append(",,,,,\n");
+
+        csv.append("\nsection,pattern,kind,hits,timed_samples,avg_us,max_us,timeouts\n");
+        for (MatchStats.PatternStat stat : matchStats.patterns()) {
+            csv.append("pattern,").append(quote(stat.pattern())).append(',').append(stat.kind()).append(',')
+                    .append(stat.hits()).append(',').append(stat.timedSamples()).append(',')
+                    .append(format(stat.averageMicros())).append(',')
+                    .append(format(stat.maxNanos() / 1000.0)).append(',')
+                    .append(stat.timeouts()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
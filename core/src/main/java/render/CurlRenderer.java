@@ -0,0 +1,74 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * One {@code curl} command per request; responses are skipped. Host and Content-Length are left for curl
+ * to derive from the URL and body. Bodies use ANSI-C quoting so any byte survives.
+ */
+public final class CurlRenderer extends RequestRenderer {
+    @Override
+    void request(ParsedMessage request, String url, ByteOutput out) {
+        out.writeAscii("curl -X " + request.firstToken() + " " + quote(url));
+        byte[] buf = request.buf();
+        for (ParsedMessage.Header header : request.headers()) {
+            if (skipped(request, header)) continue;
+            out.writeAscii(" \\\n  -H '");
+            singleQuoted(buf, header.nameStart(), header.nameEnd(), out);
+            out.writeAscii(": ");
+            singleQuoted(buf, header.valueStart(), header.valueEnd(), out);
+            out.write('\'');
+        }
+        if (request.bodyLength() > 0) {
+            out.writeAscii(" \\\n  --data-binary ");
+            ansiQuote(buf, request.bodyStart(), request.end(), out);
+        }
+    }
+
+    public static String url(ParsedMessage request, FilteredMessages.Segment segment) {
+        if (segment.url() != null) return segment.url();
+        String target = request.secondToken();
+        if (target.startsWith("http://") || target.startsWith("https://")) return target;
+        String host = request.headerValue("Host");
+        return host == null ? target : "https://" + host + target;
+    }
+
+    static String quote(String s) {
+        return "'" + s.replace("'", "'\\''") + "'";
+    }
+
+    /** Contents of a single-quoted shell word; a quote is closed, escaped and reopened. */
+    private static void singleQuoted(byte[] buf, int from, int to, ByteOutput out) {
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\'') {
+                out.write(buf, runStart, i - runStart);
+                out.writeAscii("'\\''");
+                runStart = i + 1;
+            }
+        }
+        out.write(buf, runStart, to - runStart);
+    }
+
+    private static void ansiQuote(byte[] buf, int from, int to, ByteOutput out) {
+        out.writeAscii("$'");
+        for (int i = from; i < to; i++) {
+            int b = buf[i] & 0xff;
+            switch (b) {
+                case '\\' -> out.writeAscii("\\\\");
+                case '\'' -> out.writeAscii("\\'");
+                case '\n' -> out.writeAscii("\\n");
+                case '\r' -> out.writeAscii("\\r");
+                case '\t' -> out.writeAscii("\\t");
+                default -> {
+                    if (b < 0x20 || b >= 0x7f) {
+                        Escapes.hex("\\x", b, out);
+                    } else {
+                        out.write(b);
+                    }
+                }
+            }
+        }
+        out.write('\'');
+    }
+}
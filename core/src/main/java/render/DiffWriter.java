@@ -0,0 +1,203 @@
+package render;
+
+import java.util.Arrays;
+import java.util.List;
+
+import filter.ByteOutput;
+
+/**
+ * Writes later items of a selection as unified diffs (without context lines) against a base item,
+ * which is copied in full. The request and the response are compared separately. Base lines are
+ * interned once into a hash table, so a line of a later item costs one hash and usually one
+ * byte comparison. An item that differs in more than {@link #MAX_EDITS} lines of either message
+ * is not diffed, and the caller copies it in full instead.
+ */
+public final class DiffWriter {
+    static final int MAX_EDITS = 1000;
+    private static final int NOT_IN_BASE = -1;
+
+    private final int baseNumber;
+    private final Part baseRequest;
+    private final Part baseResponse;
+
+    /** The base item's filtered request and response, one segment of each kind at most. */
+    public DiffWriter(FilteredMessages base, int baseNumber) {
+        this.baseNumber = baseNumber;
+        this.baseRequest = Part.interned(base, FilteredMessages.Kind.REQUEST);
+        this.baseResponse = Part.interned(base, FilteredMessages.Kind.RESPONSE);
+    }
+
+    /**
+     * Appends a {@link FilteredMessages.Kind#DIFF} segment describing {@code item}; returns false, writing
+     * nothing, if the item differs too much to be worth diffing.
+     */
+    public boolean append(FilteredMessages item, int itemNumber, FilteredMessages out) {
+        Part request = Part.of(item, FilteredMessages.Kind.REQUEST);
+        Part response = Part.of(item, FilteredMessages.Kind.RESPONSE);
+        List<LineDiff.Hunk> requestHunks = diff(baseRequest, request);
+        List<LineDiff.Hunk> responseHunks = diff(baseResponse, response);
+        if (requestHunks == null || responseHunks == null) return false;
+
+        int mark = out.begin();
+        ByteOutput buf = out.buffer();
+        boolean identical = requestHunks.isEmpty() && responseHunks.isEmpty()
+                && (baseRequest == null) == (request == null) && (baseResponse == null) == (response == null);
+        if (identical) {
+            buf.writeAscii("Item " + itemNumber + ": identical to item " + baseNumber + "\r\n");
+        } else {
+            buf.writeAscii("Item " + itemNumber + " (diff against item " + baseNumber + ")\r\n");
+            writePart("request", baseRequest, request, requestHunks, itemNumber, buf);
+            writePart("response", baseResponse, response, responseHunks, itemNumber, buf);
+        }
+        out.end(mark, FilteredMessages.Kind.DIFF, null);
+        return true;
+    }
+
+    private static List<LineDiff.Hunk> diff(Part base, Part other) {
+        if (other == null) return List.of();
+        int[] ids = new int[other.lineCount];
+        for (int i = 0; i < other.lineCount; i++) ids[i] = base == null ? NOT_IN_BASE : base.find(other, i);
+        int[] baseIds = base == null ? new int[0] : base.ids;
+        return LineDiff.diff(baseIds, baseIds.length, ids, ids.length, MAX_EDITS);
+    }
+
+    private void writePart(String name, Part base, Part other, List<LineDiff.Hunk> hunks, int itemNumber,
+                           ByteOutput buf) {
+        if (other == null && base != null) {
+            buf.writeAscii("(item " + itemNumber + " has no " + name + ")\r\n");
+            return;
+        }
+        if (base == null && other != null) buf.writeAscii("(item " + baseNumber + " has no " + name + ")\r\n");
+        if (hunks.isEmpty()) return;
+        buf.writeAscii("--- item " + baseNumber + " " + name + "\r\n");
+        buf.writeAscii("+++ item " + itemNumber + " " + name + "\r\n");
+        for (LineDiff.Hunk hunk : hunks) {
+            buf.writeAscii("@@ -" + range(hunk.baseStart(), hunk.baseCount())
+                    + " +" + range(hunk.otherStart(), hunk.otherCount()) + " @@\r\n");
+            for (int i = 0; i < hunk.baseCount(); i++) base.writeLine(hunk.baseStart() + i, '-', buf);
+            for (int i = 0; i < hunk.otherCount(); i++) other.writeLine(hunk.otherStart() + i, '+', buf);
+        }
+    }
+
+    /** Unified diff range: 1-based start, with the count left out when it is 1. */
+    private static String range(int start, int count) {
+        if (count == 1) return Integer.toString(start + 1);
+        return (count == 0 ? start : start + 1) + "," + count;
+    }
+
+    /** One message split into lines, without their CR LF; base parts also carry interned line ids. */
+    private static final class Part {
+        private final byte[] buf;
+        private final int[] starts;
+        private final int[] ends;
+        private final int lineCount;
+        private int[] ids;
+        private int[] hashes;
+        private int[] table;
+
+        private Part(byte[] buf, int[] starts, int[] ends, int lineCount) {
+            this.buf = buf;
+            this.starts = starts;
+            this.ends = ends;
+            this.lineCount = lineCount;
+        }
+
+        /** The first segment of {@code kind}, split in place; only valid until {@code messages} changes. */
+        static Part of(FilteredMessages messages, FilteredMessages.Kind kind) {
+            for (FilteredMessages.Segment segment : messages.segments()) {
+                if (segment.kind() == kind) {
+                    return split(messages.array(), segment.offset(), segment.offset() + segment.length());
+                }
+            }
+            return null;
+        }
+
+        /** Like {@link #of}, but on a private copy with interned line ids, for use as a base. */
+        static Part interned(FilteredMessages messages, FilteredMessages.Kind kind) {
+            for (FilteredMessages.Segment segment : messages.segments()) {
+                if (segment.kind() == kind) {
+                    byte[] copy = Arrays.copyOfRange(messages.array(), segment.offset(),
+                            segment.offset() + segment.length());
+                    return split(copy, 0, copy.length).intern();
+                }
+            }
+            return null;
+        }
+
+        private static Part split(byte[] buf, int from, int to) {
+            int[] starts = new int[16];
+            int[] ends = new int[16];
+            int count = 0;
+            int lineStart = from;
+            for (int i = from; i <= to; i++) {
+                if (i < to && buf[i] != '\n') continue;
+                if (i == to && lineStart == to) break;
+                int end = i > lineStart && buf[i - 1] == '\r' ? i - 1 : i;
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                starts[count] = lineStart;
+                ends[count] = end;
+                count++;
+                lineStart = i + 1;
+            }
+            return new Part(buf, starts, ends, count);
+        }
+
+        /** Gives each line the index of its first equal line, via an open-addressing table. */
+        private Part intern() {
+            ids = new int[lineCount];
+            hashes = new int[lineCount];
+            table = new int[Integer.highestOneBit(Math.max(4, lineCount * 2 - 1)) << 1];
+            for (int i = 0; i < lineCount; i++) {
+                hashes[i] = hash(buf, starts[i], ends[i]);
+                int slot = hashes[i] & (table.length - 1);
+                while (true) {
+                    int existing = table[slot] - 1;
+                    if (existing < 0) {
+                        table[slot] = i + 1;
+                        ids[i] = i;
+                        break;
+                    }
+                    if (hashes[existing] == hashes[i] && equal(buf, starts[existing], ends[existing], buf, starts[i], ends[i])) {
+                        ids[i] = existing;
+                        break;
+                    }
+                    slot = (slot + 1) & (table.length - 1);
+                }
+            }
+            return this;
+        }
+
+        /** Id of {@code other}'s line {@code line} in this part, or {@link #NOT_IN_BASE}. */
+        int find(Part other, int line) {
+            int start = other.starts[line];
+            int end = other.ends[line];
+            int hash = hash(other.buf, start, end);
+            for (int slot = hash & (table.length - 1); ; slot = (slot + 1) & (table.length - 1)) {
+                int existing = table[slot] - 1;
+                if (existing < 0) return NOT_IN_BASE;
+                if (hashes[existing] == hash && equal(buf, starts[existing], ends[existing], other.buf, start, end)) {
+                    return existing;
+                }
+            }
+        }
+
+        void writeLine(int line, char prefix, ByteOutput out) {
+            out.write(prefix);
+            out.write(buf, starts[line], ends[line] - starts[line]);
+            out.writeAscii("\r\n");
+        }
+
+        private static int hash(byte[] buf, int start, int end) {
+            int h = end - start;
+            for (int i = start; i < end; i++) h = 31 * h + buf[i];
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean equal(byte[] a, int aStart, int aEnd, byte[] b, int bStart, int bEnd) {
+            return Arrays.equals(a, aStart, aEnd, b, bStart, bEnd);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package render;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import filter.ByteOutput;
+
+/** Escaping shared by the code renderers, written byte by byte into the output. */
+final class Escapes {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(FilteredMessages.CHARSET);
+
+    private Escapes() {
+    }
+
+    /** {@code prefix} followed by two lowercase hex digits, e.g. {@code \x0a}. */
+    static void hex(String prefix, int b, ByteOutput out) {
+        out.writeAscii(prefix);
+        out.write(HEX[b >> 4]);
+        out.write(HEX[b & 0xf]);
+    }
+
+    /**
+     * Contents of a double-quoted Python or JavaScript string: backslash and quote escaped, other
+     * control and non-ASCII bytes as {@code \xNN}, which both languages read as the same Latin-1 char.
+     */
+    static void doubleQuoted(byte[] buf, int from, int to, ByteOutput out) {
+        for (int i = from; i < to; i++) {
+            int b = buf[i] & 0xff;
+            switch (b) {
+                case '\\' -> out.writeAscii("\\\\");
+                case '"' -> out.writeAscii("\\\"");
+                case '\n' -> out.writeAscii("\\n");
+                case '\r' -> out.writeAscii("\\r");
+                case '\t' -> out.writeAscii("\\t");
+                default -> {
+                    if (b < 0x20 || b >= 0x7f) {
+                        hex("\\x", b, out);
+                    } else {
+                        out.write(b);
+                    }
+                }
+            }
+        }
+    }
+
+    static void doubleQuoted(String s, ByteOutput out) {
+        byte[] bytes = s.getBytes(FilteredMessages.CHARSET);
+        doubleQuoted(bytes, 0, bytes.length, out);
+    }
+
+    /** Contents of a PowerShell single-quoted string, where only the quote itself is doubled. */
+    static void powerShellQuoted(byte[] buf, int from, int to, ByteOutput out) {
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\'') {
+                out.write(buf, runStart, i + 1 - runStart);
+                runStart = i;
+            }
+        }
+        out.write(buf, runStart, to - runStart);
+    }
+
+    static void powerShellQuoted(String s, ByteOutput out) {
+        byte[] bytes = s.getBytes(FilteredMessages.CHARSET);
+        powerShellQuoted(bytes, 0, bytes.length, out);
+    }
+
+    static void base64(byte[] buf, int from, int to, ByteOutput out) {
+        ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(buf, from, to - from));
+        out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+    }
+}
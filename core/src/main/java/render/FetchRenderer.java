@@ -0,0 +1,40 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * A JavaScript {@code fetch} call per request, usable from Node or a browser console. A text body is a
+ * string literal; anything else is decoded from Base64 into a {@code Uint8Array} so the bytes stay as-is.
+ */
+public final class FetchRenderer extends RequestRenderer {
+    @Override
+    void request(ParsedMessage request, String url, ByteOutput out) {
+        byte[] buf = request.buf();
+        out.writeAscii("await fetch(\"");
+        Escapes.doubleQuoted(url, out);
+        out.writeAscii("\", {\n  method: \"");
+        Escapes.doubleQuoted(request.firstToken(), out);
+        out.writeAscii("\",\n  headers: {\n");
+        for (ParsedMessage.Header header : request.headers()) {
+            if (skipped(request, header)) continue;
+            out.writeAscii("    \"");
+            Escapes.doubleQuoted(buf, header.nameStart(), header.nameEnd(), out);
+            out.writeAscii("\": \"");
+            Escapes.doubleQuoted(buf, header.valueStart(), header.valueEnd(), out);
+            out.writeAscii("\",\n");
+        }
+        out.writeAscii("  },\n");
+        if (request.bodyLength() > 0) {
+            if (isText(buf, request.bodyStart(), request.end())) {
+                out.writeAscii("  body: \"");
+                Escapes.doubleQuoted(buf, request.bodyStart(), request.end(), out);
+                out.writeAscii("\",\n");
+            } else {
+                out.writeAscii("  body: Uint8Array.from(atob(\"");
+                Escapes.base64(buf, request.bodyStart(), request.end(), out);
+                out.writeAscii("\"), c => c.charCodeAt(0)),\n");
+            }
+        }
+        out.writeAscii("});");
+    }
+}
@@ -0,0 +1,102 @@
+package render;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import filter.ByteOutput;
+
+/**
+ * The result of one copy: filtered messages stored back to back in a single {@link ByteOutput},
+ * with one {@link Segment} per message. Renderers turn this one model into each output format,
+ * so a message is filtered once however many formats are produced from it.
+ */
+public final class FilteredMessages {
+    public static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    /** {@code DIFF} is a line diff of a message against an earlier one, written by {@link DiffWriter}. */
+    public enum Kind {
+        REQUEST, RESPONSE, NOTE, DIFF
+    }
+
+    /** A message in the buffer; {@code url} is the absolute request URL when known, otherwise {@code null}. */
+    public record Segment(Kind kind, int offset, int length, String url) {
+    }
+
+    private final ByteOutput buffer;
+    private final List<Segment> segments = new ArrayList<>();
+
+    public FilteredMessages() {
+        this(new ByteOutput());
+    }
+
+    public FilteredMessages(ByteOutput buffer) {
+        this.buffer = buffer;
+    }
+
+    /** Buffer to write the next message into; call {@link #end} with the returned mark afterwards. */
+    public ByteOutput buffer() {
+        return buffer;
+    }
+
+    public int begin() {
+        return buffer.size();
+    }
+
+    public void end(int mark, Kind kind, String url) {
+        segments.add(new Segment(kind, mark, buffer.size() - mark, url));
+    }
+
+    public void addNote(String text) {
+        int mark = begin();
+        buffer.writeAscii(text);
+        end(mark, Kind.NOTE, null);
+    }
+
+    /** Appends a copy of every message in {@code other}. */
+    public void addAll(FilteredMessages other) {
+        addSegments(other, 0, other.segments.size());
+    }
+
+    /** Appends a copy of the messages {@code other.segments()[from, to)}, which lie back to back in its buffer. */
+    public void addSegments(FilteredMessages other, int from, int to) {
+        if (from >= to) return;
+        Segment first = other.segments.get(from);
+        Segment last = other.segments.get(to - 1);
+        int shift = buffer.size() - first.offset();
+        buffer.write(other.array(), first.offset(), last.offset() + last.length() - first.offset());
+        for (int i = from; i < to; i++) {
+            Segment segment = other.segments.get(i);
+            segments.add(new Segment(segment.kind(), segment.offset() + shift, segment.length(), segment.url()));
+        }
+    }
+
+    public void clear() {
+        segments.clear();
+        buffer.reset();
+    }
+
+    /** Drops every message that starts at or after {@code mark}. */
+    public void truncate(int mark) {
+        segments.removeIf(segment -> segment.offset() >= mark);
+        buffer.truncate(mark);
+    }
+
+    public List<Segment> segments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public byte[] array() {
+        return buffer.array();
+    }
+}
@@ -0,0 +1,84 @@
+package render;
+
+import filter.ByteOutput;
+
+/** A {@code <pre>} block per message with the request or status line highlighted. */
+public final class HtmlRenderer implements Renderer {
+    private static final String START_LINE_STYLE = "font-weight:bold;color:#c0392b";
+    private static final String REMOVED_STYLE = "color:#c0392b";
+    private static final String ADDED_STYLE = "color:#27ae60";
+
+    @Override
+    public void render(FilteredMessages messages, ByteOutput out) {
+        out.writeAscii("<html><body>");
+        for (FilteredMessages.Segment segment : messages.segments()) {
+            byte[] buf = messages.array();
+            int end = segment.offset() + segment.length();
+            if (segment.kind() == FilteredMessages.Kind.NOTE) {
+                out.writeAscii("<p>");
+                escape(buf, segment.offset(), end, out);
+                out.writeAscii("</p>");
+                continue;
+            }
+            if (segment.kind() == FilteredMessages.Kind.DIFF) {
+                out.writeAscii("<pre>");
+                writeDiff(buf, segment.offset(), end, out);
+                out.writeAscii("</pre>");
+                continue;
+            }
+            ParsedMessage message = new ParsedMessage(buf, segment.offset(), segment.length());
+            out.writeAscii("<pre><span style=\"" + START_LINE_STYLE + "\">");
+            escape(buf, segment.offset(), message.startLineEnd(), out);
+            out.writeAscii("</span>");
+            escape(buf, message.startLineEnd(), end, out);
+            out.writeAscii("</pre>");
+        }
+        out.writeAscii("</body></html>");
+    }
+
+    /** Colours removed and added lines; hunk and file headers are left plain. */
+    private static void writeDiff(byte[] buf, int from, int to, ByteOutput out) {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && buf[lineEnd] != '\n') lineEnd++;
+            int next = Math.min(to, lineEnd + 1);
+            boolean header = lineEnd - lineStart >= 3 && (buf[lineStart + 1] == buf[lineStart])
+                    && buf[lineStart + 2] == buf[lineStart];
+            String style = header ? null : switch (buf[lineStart]) {
+                case '-' -> REMOVED_STYLE;
+                case '+' -> ADDED_STYLE;
+                default -> null;
+            };
+            if (style == null) {
+                escape(buf, lineStart, next, out);
+            } else {
+                out.writeAscii("<span style=\"" + style + "\">");
+                escape(buf, lineStart, lineEnd, out);
+                out.writeAscii("</span>");
+                escape(buf, lineEnd, next, out);
+            }
+            lineStart = next;
+        }
+    }
+
+    static void escape(byte[] buf, int from, int to, ByteOutput out) {
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            String entity = switch (buf[i]) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\r' -> "";
+                default -> null;
+            };
+            if (entity != null) {
+                out.write(buf, runStart, i - runStart);
+                out.writeAscii(entity);
+                runStart = i + 1;
+            }
+        }
+        out.write(buf, runStart, to - runStart);
+    }
+}
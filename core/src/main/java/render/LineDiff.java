@@ -0,0 +1,113 @@
+package render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Myers' O((N+M)D) shortest edit script over lines that have already been interned to ints, so each
+ * comparison is a single int compare. The common prefix and suffix are stripped first; for near-identical
+ * messages that leaves only a few lines for the search itself. Returns {@code null} when more than
+ * {@code maxEdits} lines would change, which bounds both time and the O(D²) trace kept for backtracking.
+ */
+final class LineDiff {
+    /** Replace {@code baseCount} lines at {@code baseStart} with {@code otherCount} lines at {@code otherStart}. */
+    record Hunk(int baseStart, int baseCount, int otherStart, int otherCount) {
+    }
+
+    private LineDiff() {
+    }
+
+    static List<Hunk> diff(int[] base, int baseLength, int[] other, int otherLength, int maxEdits) {
+        int prefix = 0;
+        while (prefix < baseLength && prefix < otherLength && base[prefix] == other[prefix]) prefix++;
+        int suffix = 0;
+        while (suffix < baseLength - prefix && suffix < otherLength - prefix
+                && base[baseLength - 1 - suffix] == other[otherLength - 1 - suffix]) {
+            suffix++;
+        }
+        int n = baseLength - prefix - suffix;
+        int m = otherLength - prefix - suffix;
+        List<Hunk> hunks = new ArrayList<>();
+        if (n == 0 && m == 0) return hunks;
+        if (n == 0 || m == 0) {
+            if (n + m > maxEdits) return null;
+            hunks.add(new Hunk(prefix, n, prefix, m));
+            return hunks;
+        }
+
+        boolean[] deleted = new boolean[n];
+        boolean[] inserted = new boolean[m];
+        if (!search(base, other, prefix, n, m, maxEdits, deleted, inserted)) return null;
+
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && !deleted[i] && !inserted[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            int i0 = i;
+            int j0 = j;
+            while ((i < n && deleted[i]) || (j < m && inserted[j])) {
+                while (i < n && deleted[i]) i++;
+                while (j < m && inserted[j]) j++;
+            }
+            hunks.add(new Hunk(prefix + i0, i - i0, prefix + j0, j - j0));
+        }
+        return hunks;
+    }
+
+    /** Forward greedy search keeping each round's frontier, then a backtrack that marks changed lines. */
+    private static boolean search(int[] a, int[] b, int offset, int n, int m, int maxEdits,
+                                  boolean[] deleted, boolean[] inserted) {
+        int max = Math.min(n + m, maxEdits);
+        int[] v = new int[2 * max + 3];
+        int center = max + 1;
+        List<int[]> trace = new ArrayList<>();
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d++) {
+            trace.add(Arrays.copyOfRange(v, center - d - 1, center + d + 2));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[center + k - 1] < v[center + k + 1])
+                        ? v[center + k + 1] : v[center + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[offset + x] == b[offset + y]) {
+                    x++;
+                    y++;
+                }
+                v[center + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if (found < 0) return false;
+
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d--) {
+            int[] frontier = trace.get(d);
+            int k = x - y;
+            // frontier[i] holds v[k'] for k' = i - d - 1
+            boolean down = k == -d || (k != d && frontier[k - 1 + d + 1] < frontier[k + 1 + d + 1]);
+            int prevK = down ? k + 1 : k - 1;
+            int prevX = frontier[prevK + d + 1];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+            }
+            if (down) {
+                inserted[prevY] = true;
+            } else {
+                deleted[prevX] = true;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * Each message in its own fenced {@code http} code block (diffs in a {@code diff} block), with a fence longer
+ * than any backtick run inside.
+ */
+public final class MarkdownRenderer implements Renderer {
+    @Override
+    public void render(FilteredMessages messages, ByteOutput out) {
+        boolean first = true;
+        for (FilteredMessages.Segment segment : messages.segments()) {
+            if (!first) out.writeAscii("\n\n");
+            first = false;
+            if (segment.kind() == FilteredMessages.Kind.NOTE) {
+                out.write(messages.array(), segment.offset(), segment.length());
+                continue;
+            }
+            String fence = "`".repeat(Math.max(3, longestBacktickRun(messages.array(), segment) + 1));
+            out.writeAscii(fence + (segment.kind() == FilteredMessages.Kind.DIFF ? "diff\n" : "http\n"));
+            writeWithLf(messages.array(), segment.offset(), segment.offset() + segment.length(), out);
+            out.writeAscii("\n" + fence);
+        }
+    }
+
+    private static void writeWithLf(byte[] buf, int from, int to, ByteOutput out) {
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\r' && i + 1 < to && buf[i + 1] == '\n') {
+                out.write(buf, runStart, i - runStart);
+                runStart = i + 1;
+            }
+        }
+        int end = to;
+        while (end > runStart && buf[end - 1] == '\n') end--;
+        out.write(buf, runStart, end - runStart);
+    }
+
+    private static int longestBacktickRun(byte[] buf, FilteredMessages.Segment segment) {
+        int longest = 0;
+        int run = 0;
+        for (int i = segment.offset(); i < segment.offset() + segment.length(); i++) {
+            run = buf[i] == '`' ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,35 @@
+package render;
+
+public enum OutputFormat {
+    PLAIN("Plain text", new PlainTextRenderer(), false),
+    MARKDOWN("Markdown", new MarkdownRenderer(), false),
+    HTML("HTML", new HtmlRenderer(), false),
+    CURL("curl", new CurlRenderer(), true),
+    PYTHON("Python requests", new PythonRequestsRenderer(), true),
+    POWERSHELL("PowerShell", new PowerShellRenderer(), true),
+    FETCH("fetch", new FetchRenderer(), true);
+
+    private final String label;
+    private final Renderer renderer;
+    private final boolean requestsOnly;
+
+    OutputFormat(String label, Renderer renderer, boolean requestsOnly) {
+        this.label = label;
+        this.renderer = renderer;
+        this.requestsOnly = requestsOnly;
+    }
+
+    public Renderer renderer() {
+        return renderer;
+    }
+
+    /** Whether this format renders requests only and skips responses, like the code-generating formats. */
+    public boolean requestsOnly() {
+        return requestsOnly;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,148 @@
+package render;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offsets of the parts of one filtered message inside a byte array. Filtered output always uses
+ * CRLF line endings, so parsing only needs to look for CRLF.
+ */
+public final class ParsedMessage {
+    public record Header(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+    }
+
+    private final byte[] buf;
+    private final int start;
+    private final int end;
+    private final int startLineEnd;
+    private final List<Header> headers = new ArrayList<>();
+    private final int bodyStart;
+
+    public ParsedMessage(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.start = offset;
+        this.end = offset + length;
+        this.startLineEnd = indexOfCrlf(offset);
+
+        int pos = startLineEnd + 2;
+        int body = end;
+        while (pos < end) {
+            int lineEnd = indexOfCrlf(pos);
+            if (lineEnd == pos) {
+                body = Math.min(end, pos + 2);
+                break;
+            }
+            int colon = pos;
+            while (colon < lineEnd && buf[colon] != ':') colon++;
+            int valueStart = Math.min(lineEnd, colon + 1);
+            while (valueStart < lineEnd && buf[valueStart] == ' ') valueStart++;
+            headers.add(new Header(pos, colon, valueStart, lineEnd));
+            pos = lineEnd + 2;
+        }
+        this.bodyStart = Math.min(body, end);
+    }
+
+    public ParsedMessage(FilteredMessages messages, FilteredMessages.Segment segment) {
+        this(messages.array(), segment.offset(), segment.length());
+    }
+
+    public byte[] buf() {
+        return buf;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    public int startLineEnd() {
+        return startLineEnd;
+    }
+
+    public int bodyStart() {
+        return bodyStart;
+    }
+
+    public int bodyLength() {
+        return end - bodyStart;
+    }
+
+    public List<Header> headers() {
+        return headers;
+    }
+
+    public String text(int from, int to) {
+        return new String(buf, from, to - from, FilteredMessages.CHARSET);
+    }
+
+    public String startLine() {
+        return text(start, startLineEnd);
+    }
+
+    /** First token of the start line: the method of a request, the HTTP version of a response. */
+    public String firstToken() {
+        int space = indexOf(' ', start, startLineEnd);
+        return text(start, space < 0 ? startLineEnd : space);
+    }
+
+    /** Second token of the start line: the target of a request, the status code of a response. */
+    public String secondToken() {
+        int first = indexOf(' ', start, startLineEnd);
+        if (first < 0) return "";
+        int second = indexOf(' ', first + 1, startLineEnd);
+        return text(first + 1, second < 0 ? startLineEnd : second);
+    }
+
+    /** Everything after the second token: the HTTP version of a request, the reason phrase of a response. */
+    public String rest() {
+        int first = indexOf(' ', start, startLineEnd);
+        if (first < 0) return "";
+        int second = indexOf(' ', first + 1, startLineEnd);
+        return second < 0 ? "" : text(second + 1, startLineEnd);
+    }
+
+    public String name(Header header) {
+        return text(header.nameStart(), header.nameEnd()).trim();
+    }
+
+    public String value(Header header) {
+        return text(header.valueStart(), header.valueEnd());
+    }
+
+    /** Whether {@code header} has this (ASCII) name, ignoring case, without creating a String. */
+    public boolean isNamed(Header header, String name) {
+        int from = header.nameStart();
+        int to = header.nameEnd();
+        while (from < to && buf[from] == ' ') from++;
+        while (to > from && buf[to - 1] == ' ') to--;
+        if (to - from != name.length()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toLowerCase((char) (buf[from + i] & 0xff)) != Character.toLowerCase(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    public String headerValue(String name) {
+        for (Header header : headers) {
+            if (name(header).equalsIgnoreCase(name)) return value(header);
+        }
+        return null;
+    }
+
+    private int indexOfCrlf(int from) {
+        for (int i = from; i + 1 < end; i++) {
+            if (buf[i] == '\r' && buf[i + 1] == '\n') return i;
+        }
+        return end;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) return i;
+        }
+        return -1;
+    }
+}
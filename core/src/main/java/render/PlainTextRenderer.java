@@ -0,0 +1,18 @@
+package render;
+
+import filter.ByteOutput;
+
+/** The filtered messages as-is, separated by a blank line. */
+public final class PlainTextRenderer implements Renderer {
+    static final String SEPARATOR = "\r\n\r\n";
+
+    @Override
+    public void render(FilteredMessages messages, ByteOutput out) {
+        boolean first = true;
+        for (FilteredMessages.Segment segment : messages.segments()) {
+            if (!first) out.writeAscii(SEPARATOR);
+            out.write(messages.array(), segment.offset(), segment.length());
+            first = false;
+        }
+    }
+}
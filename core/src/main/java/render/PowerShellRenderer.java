@@ -0,0 +1,58 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * An {@code Invoke-WebRequest} call per request. Content-Type and User-Agent go through their own
+ * parameters, which Windows PowerShell 5.1 requires. A text body is a single-quoted string, anything
+ * else is sent as bytes decoded from Base64.
+ */
+public final class PowerShellRenderer extends RequestRenderer {
+    @Override
+    void request(ParsedMessage request, String url, ByteOutput out) {
+        byte[] buf = request.buf();
+        ParsedMessage.Header contentType = null;
+        ParsedMessage.Header userAgent = null;
+        out.writeAscii("$headers = @{\n");
+        for (ParsedMessage.Header header : request.headers()) {
+            if (skipped(request, header)) continue;
+            if (request.isNamed(header, "content-type")) {
+                contentType = header;
+                continue;
+            }
+            if (request.isNamed(header, "user-agent")) {
+                userAgent = header;
+                continue;
+            }
+            out.writeAscii("    '");
+            Escapes.powerShellQuoted(buf, header.nameStart(), header.nameEnd(), out);
+            out.writeAscii("' = '");
+            Escapes.powerShellQuoted(buf, header.valueStart(), header.valueEnd(), out);
+            out.writeAscii("'\n");
+        }
+        out.writeAscii("}\nInvoke-WebRequest -Uri '");
+        Escapes.powerShellQuoted(url, out);
+        out.writeAscii("' -Method '");
+        Escapes.powerShellQuoted(request.firstToken(), out);
+        out.writeAscii("' -Headers $headers");
+        if (contentType != null) parameter("ContentType", buf, contentType, out);
+        if (userAgent != null) parameter("UserAgent", buf, userAgent, out);
+        if (request.bodyLength() > 0) {
+            if (isText(buf, request.bodyStart(), request.end())) {
+                out.writeAscii(" `\n  -Body '");
+                Escapes.powerShellQuoted(buf, request.bodyStart(), request.end(), out);
+                out.writeAscii("'");
+            } else {
+                out.writeAscii(" `\n  -Body ([Convert]::FromBase64String('");
+                Escapes.base64(buf, request.bodyStart(), request.end(), out);
+                out.writeAscii("'))");
+            }
+        }
+    }
+
+    private static void parameter(String name, byte[] buf, ParsedMessage.Header header, ByteOutput out) {
+        out.writeAscii(" `\n  -" + name + " '");
+        Escapes.powerShellQuoted(buf, header.valueStart(), header.valueEnd(), out);
+        out.writeAscii("'");
+    }
+}
@@ -0,0 +1,39 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * A Python {@code requests} call per request. The body is a bytes literal, so binary bodies survive;
+ * with repeated header names only the last one is kept, as a dict allows.
+ */
+public final class PythonRequestsRenderer extends RequestRenderer {
+    @Override
+    void begin(ByteOutput out) {
+        out.writeAscii("import requests\n\n");
+    }
+
+    @Override
+    void request(ParsedMessage request, String url, ByteOutput out) {
+        byte[] buf = request.buf();
+        out.writeAscii("response = requests.request(\n    \"");
+        Escapes.doubleQuoted(request.firstToken(), out);
+        out.writeAscii("\",\n    \"");
+        Escapes.doubleQuoted(url, out);
+        out.writeAscii("\",\n    headers={\n");
+        for (ParsedMessage.Header header : request.headers()) {
+            if (skipped(request, header)) continue;
+            out.writeAscii("        \"");
+            Escapes.doubleQuoted(buf, header.nameStart(), header.nameEnd(), out);
+            out.writeAscii("\": \"");
+            Escapes.doubleQuoted(buf, header.valueStart(), header.valueEnd(), out);
+            out.writeAscii("\",\n");
+        }
+        out.writeAscii("    },\n");
+        if (request.bodyLength() > 0) {
+            out.writeAscii("    data=b\"");
+            Escapes.doubleQuoted(buf, request.bodyStart(), request.end(), out);
+            out.writeAscii("\",\n");
+        }
+        out.writeAscii(")");
+    }
+}
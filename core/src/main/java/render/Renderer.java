@@ -0,0 +1,8 @@
+package render;
+
+import filter.ByteOutput;
+
+/** Writes a textual rendering of filtered messages into {@code out}. */
+public interface Renderer {
+    void render(FilteredMessages messages, ByteOutput out);
+}
@@ -0,0 +1,45 @@
+package render;
+
+import filter.ByteOutput;
+
+/**
+ * Base for renderers that turn each request into code that replays it; responses are skipped. Host and
+ * Content-Length are left for the client to derive from the URL and the body. Subclasses write the
+ * header names, values and body straight from the filtered buffer, escaping as they go.
+ */
+abstract class RequestRenderer implements Renderer {
+    @Override
+    public final void render(FilteredMessages messages, ByteOutput out) {
+        boolean first = true;
+        for (FilteredMessages.Segment segment : messages.segments()) {
+            if (segment.kind() != FilteredMessages.Kind.REQUEST) continue;
+            if (first) {
+                begin(out);
+            } else {
+                out.writeAscii("\n\n");
+            }
+            first = false;
+            ParsedMessage request = new ParsedMessage(messages, segment);
+            request(request, CurlRenderer.url(request, segment), out);
+        }
+    }
+
+    /** Written once, before the first request. */
+    void begin(ByteOutput out) {
+    }
+
+    abstract void request(ParsedMessage request, String url, ByteOutput out);
+
+    static boolean skipped(ParsedMessage request, ParsedMessage.Header header) {
+        return request.isNamed(header, "host") || request.isNamed(header, "content-length");
+    }
+
+    /** Whether the body is text that survives a string literal: printable ASCII, tabs and line breaks. */
+    static boolean isText(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int b = buf[i] & 0xff;
+            if ((b < 0x20 && b != '\t' && b != '\n' && b != '\r') || b >= 0x7f) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+package render;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns filtered output into text. Decoded bodies are UTF-8, while header values and bodies copied as they
+ * are may hold any bytes, so valid UTF-8 sequences are decoded and every other byte is read as Latin-1,
+ * as {@link FilteredMessages#CHARSET} would.
+ */
+public final class Utf8Text {
+    private Utf8Text() {
+    }
+
+    public static String decode(byte[] buf, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && buf[i] >= 0) i++;
+        if (i == end) return new String(buf, offset, length, StandardCharsets.ISO_8859_1);
+        if (isValid(buf, i, end)) return new String(buf, offset, length, StandardCharsets.UTF_8);
+
+        StringBuilder text = new StringBuilder(length);
+        text.append(new String(buf, offset, i - offset, StandardCharsets.ISO_8859_1));
+        while (i < end) {
+            int b = buf[i] & 0xff;
+            int n = b < 0x80 ? 1 : sequenceLength(buf, i, end);
+            if (n == 1) {
+                text.append((char) b);
+            } else {
+                text.append(new String(buf, i, n, StandardCharsets.UTF_8));
+            }
+            i += n;
+        }
+        return text.toString();
+    }
+
+    /** A reader that decodes {@code in} the way {@link #decode} does, without holding the whole text. */
+    public static Reader reader(InputStream in) {
+        return new LenientReader(in);
+    }
+
+    private static boolean isValid(byte[] buf, int from, int end) {
+        int i = from;
+        while (i < end) {
+            if (buf[i] >= 0) {
+                i++;
+            } else {
+                int n = sequenceLength(buf, i, end);
+                if (n == 1) return false;
+                i += n;
+            }
+        }
+        return true;
+    }
+
+    /** Length of the well-formed UTF-8 sequence starting at {@code i}, or 1 if there is none. */
+    private static int sequenceLength(byte[] buf, int i, int end) {
+        int b = buf[i] & 0xff;
+        int n;
+        int min;
+        int max = 0xbf;
+        if (b >= 0xc2 && b <= 0xdf) {
+            n = 2;
+            min = 0x80;
+        } else if (b >= 0xe0 && b <= 0xef) {
+            n = 3;
+            min = b == 0xe0 ? 0xa0 : 0x80;
+            if (b == 0xed) max = 0x9f;
+        } else if (b >= 0xf0 && b <= 0xf4) {
+            n = 4;
+            min = b == 0xf0 ? 0x90 : 0x80;
+            if (b == 0xf4) max = 0x8f;
+        } else {
+            return 1;
+        }
+        if (i + n > end) return 1;
+        int second = buf[i + 1] & 0xff;
+        if (second < min || second > max) return 1;
+        for (int k = 2; k < n; k++) {
+            int c = buf[i + k] & 0xff;
+            if (c < 0x80 || c > 0xbf) return 1;
+        }
+        return n;
+    }
+
+    /** Code point of the well-formed sequence of {@code n} bytes at {@code i}. */
+    private static int codePoint(byte[] buf, int i, int n) {
+        int b = buf[i] & 0xff;
+        int cp = n == 2 ? b & 0x1f : n == 3 ? b & 0x0f : b & 0x07;
+        for (int k = 1; k < n; k++) cp = cp << 6 | (buf[i + k] & 0x3f);
+        return cp;
+    }
+
+    private static final class LenientReader extends Reader {
+        private final InputStream in;
+        private final byte[] buf = new byte[8192];
+        private int start;
+        private int end;
+        private boolean eof;
+        /** Low surrogate of a code point whose high surrogate filled the caller's last slot. */
+        private char pendingLow;
+
+        LenientReader(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] dst, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            int n = 0;
+            if (pendingLow != 0) {
+                dst[offset + n++] = pendingLow;
+                pendingLow = 0;
+            }
+            while (n < length) {
+                // a sequence is at most 4 bytes, so keep that many buffered until the input ends
+                if (end - start < 4 && !eof) fill();
+                if (start >= end) break;
+                int b = buf[start];
+                if (b >= 0) {
+                    dst[offset + n++] = (char) b;
+                    start++;
+                    continue;
+                }
+                int size = sequenceLength(buf, start, end);
+                if (size == 1) {
+                    dst[offset + n++] = (char) (b & 0xff);
+                } else {
+                    int cp = codePoint(buf, start, size);
+                    if (Character.isBmpCodePoint(cp)) {
+                        dst[offset + n++] = (char) cp;
+                    } else {
+                        dst[offset + n++] = Character.highSurrogate(cp);
+                        if (n < length) {
+                            dst[offset + n++] = Character.lowSurrogate(cp);
+                        } else {
+                            pendingLow = Character.lowSurrogate(cp);
+                        }
+                    }
+                }
+                start += size;
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        private void fill() throws IOException {
+            System.arraycopy(buf, start, buf, 0, end - start);
+            end -= start;
+            start = 0;
+            while (end < 4 && !eof) {
+                int read = in.read(buf, end, buf.length - end);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    end += read;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import render.FilteredMessages;
+
+class HarReaderTest {
+    @TempDir
+    Path dir;
+
+    private record Read(FilteredMessages.Kind kind, String head, byte[] body, boolean decoded) {
+    }
+
+    private final List<String> urls = new ArrayList<>();
+
+    private List<List<Read>> read(String har) throws IOException {
+        Path file = dir.resolve("capture.har");
+        Files.writeString(file, har, StandardCharsets.UTF_8);
+        List<List<Read>> items = new ArrayList<>();
+        long count = HarReader.read(new MappedFile(file), (messages, url) -> {
+            List<Read> item = new ArrayList<>();
+            for (ItemHandler.Message message : messages) {
+                byte[] body = new byte[message.body().length()];
+                message.body().read(0, body, 0, body.length);
+                item.add(new Read(message.kind(), new String(message.head(), StandardCharsets.UTF_8), body,
+                        message.decoded()));
+            }
+            items.add(item);
+            urls.add(url);
+        });
+        assertEquals(items.size(), count);
+        return items;
+    }
+
+    @Test
+    void entryIsRebuiltAsRawHttp() throws IOException {
+        List<List<Read>> items = read("""
+                {"log": {"version": "1.2", "entries": [{
+                  "startedDateTime": "2024-01-01T00:00:00Z",
+                  "request": {"method": "POST", "url": "https://example.com/api?q=1#top", "httpVersion": "h2",
+                    "headers": [{"name": ":authority", "value": "example.com"},
+                                {"name": "Content-Type", "value": "application/json"}],
+                    "postData": {"mimeType": "application/json", "text": "{\\"a\\":1}"}},
+                  "response": {"status": 201, "statusText": "Created", "httpVersion": "HTTP/1.1",
+                    "headers": [{"name": "Content-Type", "value": "text/plain; charset=iso-8859-1"}],
+                    "content": {"size": 5, "mimeType": "text/plain", "text": "café!"}}
+                }]}}
+                """);
+
+        assertEquals(List.of("https://example.com/api?q=1#top"), urls);
+        Read request = items.get(0).get(0);
+        assertEquals(FilteredMessages.Kind.REQUEST, request.kind());
+        assertEquals("POST /api?q=1 HTTP/2\r\nContent-Type: application/json\r\nHost: example.com\r\n\r\n",
+                request.head());
+        assertEquals("{\"a\":1}", new String(request.body(), StandardCharsets.UTF_8));
+        assertTrue(request.decoded());
+
+        Read response = items.get(0).get(1);
+        assertEquals(FilteredMessages.Kind.RESPONSE, response.kind());
+        assertEquals("HTTP/1.1 201 Created\r\nContent-Type: text/plain; charset=iso-8859-1\r\n\r\n", response.head());
+        assertArrayEquals("café!".getBytes(StandardCharsets.ISO_8859_1), response.body());
+    }
+
+    @Test
+    void base64BodyIsDecoded() throws IOException {
+        List<List<Read>> items = read("""
+                {"log": {"entries": [{
+                  "request": {"method": "GET", "url": "http://example.com", "headers": []},
+                  "response": {"status": 200, "headers": [],
+                    "content": {"text": "AAEC/w==", "encoding": "base64"}}
+                }]}}
+                """);
+
+        assertEquals("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n", items.get(0).get(0).head());
+        assertArrayEquals(new byte[] {0, 1, 2, (byte) 0xff}, items.get(0).get(1).body());
+    }
+
+    @Test
+    void everyEntryBecomesOneItem() throws IOException {
+        List<List<Read>> items = read("""
+                {"log": {"creator": {"name": "test"}, "entries": [
+                  {"request": {"method": "GET", "url": "http://a.example/1", "headers": []}},
+                  {"request": {"method": "GET", "url": "http://a.example/2", "headers": []},
+                   "response": {"status": 304, "headers": []}}
+                ]}}
+                """);
+
+        assertEquals(2, items.size());
+        assertEquals(1, items.get(0).size());
+        assertEquals(2, items.get(1).size());
+        assertEquals("HTTP/1.1 304\r\n\r\n", items.get(1).get(1).head());
+    }
+}
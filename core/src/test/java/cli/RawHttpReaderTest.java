@@ -0,0 +1,88 @@
+package cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import render.FilteredMessages;
+
+class RawHttpReaderTest {
+    @TempDir
+    Path dir;
+
+    private record Read(FilteredMessages.Kind kind, String head, String body) {
+    }
+
+    private List<List<Read>> read(String content) throws IOException {
+        Path file = dir.resolve("capture.http");
+        Files.writeString(file, content, StandardCharsets.ISO_8859_1);
+        List<List<Read>> items = new ArrayList<>();
+        RawHttpReader.read(new MappedFile(file), (messages, url) -> {
+            List<Read> item = new ArrayList<>();
+            for (ItemHandler.Message message : messages) {
+                byte[] body = new byte[message.body().length()];
+                message.body().read(0, body, 0, body.length);
+                item.add(new Read(message.kind(), new String(message.head(), StandardCharsets.ISO_8859_1),
+                        new String(body, StandardCharsets.ISO_8859_1)));
+            }
+            items.add(item);
+        });
+        return items;
+    }
+
+    @Test
+    void requestWithoutFramingEndsWhereItsResponseStarts() throws IOException {
+        List<List<Read>> items = read("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n"
+                + "HTTP/1.1 200 OK\r\nDate: Mon, 01 Jan 2024 00:00:00 GMT\r\nServer: test\r\n\r\nhello");
+
+        assertEquals(1, items.size());
+        List<Read> item = items.get(0);
+        assertEquals(2, item.size());
+        assertEquals(FilteredMessages.Kind.REQUEST, item.get(0).kind());
+        assertEquals("", item.get(0).body());
+        assertEquals(FilteredMessages.Kind.RESPONSE, item.get(1).kind());
+        assertTrue(item.get(1).head().contains("Server: test"));
+        assertEquals("hello", item.get(1).body());
+    }
+
+    @Test
+    void contentLengthFramesABodyThatLooksLikeAStartLine() throws IOException {
+        String body = "GET /x HTTP/1.1\r\n\r\n";
+        List<List<Read>> items = read("POST /upload HTTP/1.1\r\nContent-Length: " + body.length() + "\r\n\r\n" + body
+                + "HTTP/1.1 204 No Content\r\n\r\n");
+
+        assertEquals(1, items.size());
+        assertEquals(body, items.get(0).get(0).body());
+        assertEquals(FilteredMessages.Kind.RESPONSE, items.get(0).get(1).kind());
+    }
+
+    @Test
+    void chunkedBodyIncludesItsTerminatingChunk() throws IOException {
+        List<List<Read>> items = read("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n0\r\n\r\n"
+                + "HTTP/1.1 404 Not Found\r\n\r\n");
+
+        assertEquals(2, items.size());
+        assertEquals("5\r\nhello\r\n0\r\n\r\n", items.get(0).get(0).body());
+        assertEquals("", items.get(1).get(0).body());
+    }
+
+    @Test
+    void bodyWithoutFramingRunsToTheNextStartLine() throws IOException {
+        List<List<Read>> items = read("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n\r\nline one\r\n\r\nline two\r\n\r\n"
+                + "GET /next HTTP/1.1\r\n\r\n");
+
+        assertEquals(2, items.size());
+        assertEquals("line one\r\n\r\nline two", items.get(0).get(0).body());
+        assertEquals(FilteredMessages.Kind.REQUEST, items.get(1).get(0).kind());
+    }
+}
@@ -0,0 +1,130 @@
+package export;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import filter.ByteOutput;
+import render.FilteredMessages;
+
+class CopycatExportTest {
+    @TempDir
+    Path dir;
+
+    private static FilteredMessages item(String request, byte[] response, String url) {
+        FilteredMessages item = new FilteredMessages();
+        int mark = item.begin();
+        item.buffer().writeAscii(request);
+        item.end(mark, FilteredMessages.Kind.REQUEST, url);
+        mark = item.begin();
+        item.buffer().write(response);
+        item.end(mark, FilteredMessages.Kind.RESPONSE, null);
+        return item;
+    }
+
+    private static List<String> describe(FilteredMessages item) {
+        List<String> parts = new ArrayList<>();
+        for (FilteredMessages.Segment segment : item.segments()) {
+            parts.add(segment.kind() + " " + segment.url() + " "
+                    + new String(item.array(), segment.offset(), segment.length(), StandardCharsets.ISO_8859_1));
+        }
+        return parts;
+    }
+
+    private static byte[] frame(FrameCodec.Compressor compressor, byte[] raw) {
+        int length = compressor.compress(raw, 0, raw.length);
+        byte[] frame = new byte[length];
+        System.arraycopy(compressor.frame(), 0, frame, 0, length);
+        return frame;
+    }
+
+    @Test
+    void framesReadBackInOrder() throws IOException {
+        FrameCodec.Compressor compressor = new FrameCodec.Compressor();
+        byte[] binary = new byte[300_000];
+        new Random(1).nextBytes(binary);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(frame(compressor, "first frame\n".getBytes(StandardCharsets.US_ASCII)));
+        file.writeBytes(frame(compressor, binary));
+        compressor.end();
+
+        FrameCodec.Reader reader = new FrameCodec.Reader(new ByteArrayInputStream(file.toByteArray()));
+        assertArrayEquals("first frame\n".getBytes(StandardCharsets.US_ASCII), reader.next());
+        assertArrayEquals(binary, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void framesAreOrdinaryGzipMembers() throws IOException {
+        FrameCodec.Compressor compressor = new FrameCodec.Compressor();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(frame(compressor, "hello, ".getBytes(StandardCharsets.US_ASCII)));
+        file.writeBytes(frame(compressor, "world".getBytes(StandardCharsets.US_ASCII)));
+        compressor.end();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(file.toByteArray()))) {
+            assertEquals("hello, world", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void corruptFrameIsRejected() {
+        FrameCodec.Compressor compressor = new FrameCodec.Compressor();
+        byte[] frame = frame(compressor, "some text that will be damaged".getBytes(StandardCharsets.US_ASCII));
+        compressor.end();
+        frame[frame.length - 5] ^= 1;
+
+        FrameCodec.Reader reader = new FrameCodec.Reader(new ByteArrayInputStream(frame));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void compressedExportRoundTripsAcrossFrames() throws IOException {
+        byte[] binary = new byte[200_000];
+        new Random(2).nextBytes(binary);
+        byte[] ok = "HTTP/1.1 200 OK\r\n\r\nhi".getBytes(StandardCharsets.US_ASCII);
+        byte[] lookalike = "HTTP/1.1 204 No Content\r\n\r\n\n#item 9\n".getBytes(StandardCharsets.US_ASCII);
+        List<FilteredMessages> items = List.of(
+                item("GET /a HTTP/1.1\r\nHost: example.com\r\n\r\n", ok, "https://example.com/a"),
+                item("GET /b HTTP/1.1\r\n\r\n", binary, null),
+                item("GET /c HTTP/1.1\r\n\r\n", lookalike, "https://example.com/c"));
+        CopycatEncoder encoder = new CopycatEncoder();
+        ByteOutput encoded = new ByteOutput();
+        encoder.begin(encoded);
+        for (int i = 0; i < items.size(); i++) encoder.item(i + 1, items.get(i), encoded);
+
+        // Chunk boundaries, and so frame boundaries, fall in the middle of lines and messages.
+        Path file = dir.resolve("export.ccz");
+        try (ExportWriter writer = new ExportWriter(file, true)) {
+            for (int offset = 0; offset < encoded.size(); offset += 70_001) {
+                ByteOutput chunk = writer.acquire();
+                chunk.write(encoded.array(), offset, Math.min(70_001, encoded.size() - offset));
+                writer.submit(chunk);
+            }
+        }
+
+        List<List<String>> read = new ArrayList<>();
+        int count;
+        try (InputStream in = Files.newInputStream(file)) {
+            count = CopycatDecoder.read(in, item -> read.add(describe(item)));
+        }
+        assertEquals(items.size(), count);
+        for (int i = 0; i < items.size(); i++) assertEquals(describe(items.get(i)), read.get(i));
+    }
+}
@@ -0,0 +1,124 @@
+package filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+class MessageFilterTest {
+    private static final BodyPolicy DECODE = new BodyPolicy(BodyMode.FULL, BodyPolicy.DEFAULT_TRUNCATE_BYTES, true);
+
+    private static String filterResponse(String head, byte[] body, FilterConfig config) {
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        ByteOutput out = new ByteOutput();
+        MessageFilter.filter(headBytes, BodySource.of(body, 0, body.length),
+                ContentInfo.forBody(false, headBytes, config.bodyPolicy()), false, config, out);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private static FilterConfig config(BodyPolicy policy, String... patterns) {
+        return FilterConfig.of(1, List.of(patterns), HeaderMatcher.compile(List.of(patterns)), policy);
+    }
+
+    private static String filter(String message, String... patterns) {
+        byte[] bytes = message.getBytes(StandardCharsets.ISO_8859_1);
+        ByteOutput out = new ByteOutput();
+        MessageFilter.filter(bytes, HeaderMatcher.compile(List.of(patterns)), out);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void excludedHeadersAreDroppedWhateverTheirCase() {
+        assertEquals("GET / HTTP/1.1\r\nAccept: */*\r\n\r\nbody",
+                filter("GET / HTTP/1.1\r\nHost: example.com\r\nAccept: */*\r\nUSER-AGENT: test\r\n\r\nbody",
+                        "host", "user-agent"));
+    }
+
+    @Test
+    void patternsMatchTheWholeHeaderName() {
+        assertEquals("GET / HTTP/1.1\r\nX-Sec-Token: a\r\n\r\n",
+                filter("GET / HTTP/1.1\r\nSec-Fetch-Mode: cors\r\nX-Sec-Token: a\r\n\r\n", "sec-.*"));
+    }
+
+    @Test
+    void continuationLinesFollowTheirHeader() {
+        assertEquals("GET / HTTP/1.1\r\nAccept: a,\r\n b\r\n\r\n",
+                filter("GET / HTTP/1.1\r\nX-Long: one,\r\n\ttwo\r\nAccept: a,\r\n b\r\n\r\n", "x-long"));
+    }
+
+    @Test
+    void bareLineFeedsAreNormalisedToCrLf() {
+        assertEquals("GET / HTTP/1.1\r\nAccept: */*\r\n\r\n",
+                filter("GET / HTTP/1.1\nHost: example.com\nAccept: */*\n\n", "host"));
+    }
+
+    @Test
+    void gzipBodyIsInflatedAndItsCodingHeadersDropped() throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write("hello, world".getBytes(StandardCharsets.US_ASCII));
+        }
+        byte[] body = gzipped.toByteArray();
+
+        String text = filterResponse("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Encoding: gzip\r\n"
+                + "Content-Length: " + body.length + "\r\n\r\n", body, config(DECODE));
+
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 12\r\n\r\nhello, world", text);
+    }
+
+    @Test
+    void transcodedBodyGetsItsLengthAndCharsetRewritten() {
+        String text = filterResponse("HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=iso-8859-1\r\n"
+                        + "Content-Length: 6\r\n\r\n",
+                "café\r\n".getBytes(StandardCharsets.ISO_8859_1), config(DECODE));
+
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=utf-8\r\nContent-Length: 7\r\n\r\n"
+                + new String("café\r\n".getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1), text);
+    }
+
+    @Test
+    void summarisedBinaryBodyGetsItsLengthRewritten() {
+        String text = filterResponse("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\nContent-Length: 4\r\n\r\n",
+                new byte[] {(byte) 0x89, 'P', 'N', 'G'}, config(DECODE));
+
+        String body = text.substring(text.indexOf("\r\n\r\n") + 4);
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Type: image/png\r\nContent-Length: " + body.length() + "\r\n\r\n",
+                text.substring(0, text.indexOf("\r\n\r\n") + 4));
+    }
+
+    @Test
+    void utf8BodyKeepsItsHeaders() {
+        String head = "HTTP/1.1 200 OK\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: 2\r\n\r\n";
+
+        assertEquals(head + "hi", filterResponse(head, "hi".getBytes(StandardCharsets.US_ASCII), config(DECODE)));
+    }
+
+    @Test
+    void redactedBodyGetsItsLengthRewritten() {
+        FilterConfig config = config(BodyPolicy.FULL);
+        config = config.withRedactor(Redactor.build(new RedactionRules(true, false, false, List.of("hunter2")), List.of()));
+        String body = "password=hunter2";
+
+        String text = filterResponse("HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n",
+                body.getBytes(StandardCharsets.ISO_8859_1), config);
+
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Length: 19\r\n\r\npassword=[REDACTED]", text);
+    }
+
+    @Test
+    void redactedRawMessageGetsItsLengthRewritten() {
+        Redactor redactor = Redactor.build(new RedactionRules(true, false, false, List.of("hunter2")), List.of());
+        byte[] message = "POST /login HTTP/1.1\r\nContent-Length: 7\r\n\r\nhunter2".getBytes(StandardCharsets.ISO_8859_1);
+        ByteOutput out = new ByteOutput();
+
+        MessageFilter.filter(message, 0, message.length, HeaderMatcher.empty(), BodyPolicy.FULL, redactor, out);
+
+        assertEquals("POST /login HTTP/1.1\r\nContent-Length: 10\r\n\r\n[REDACTED]",
+                out.toString(StandardCharsets.ISO_8859_1));
+    }
+}
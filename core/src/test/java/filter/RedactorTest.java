@@ -0,0 +1,78 @@
+package filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RedactorTest {
+    private static Redactor literals(String... secrets) {
+        return Redactor.build(new RedactionRules(true, false, false, List.of(secrets)), List.of());
+    }
+
+    private static Redactor tokens() {
+        return Redactor.build(new RedactionRules(true, true, false, List.of()), List.of());
+    }
+
+    /** Streams {@code text} through {@code redactor} in the given pieces and returns the output. */
+    private static String stream(Redactor redactor, int[] redactions, String... pieces) {
+        ByteOutput out = new ByteOutput();
+        Redactor.Stream stream = redactor.stream(out);
+        for (String piece : pieces) {
+            byte[] bytes = piece.getBytes(StandardCharsets.ISO_8859_1);
+            stream.write(bytes, 0, bytes.length);
+        }
+        redactions[0] = stream.finish();
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void literalIsRedactedInPlace() {
+        int[] redactions = new int[1];
+        assertEquals("token=[REDACTED]&x=1", stream(literals("s3cr3t"), redactions, "token=s3cr3t&x=1"));
+        assertEquals(1, redactions[0]);
+    }
+
+    @Test
+    void literalSplitAcrossChunksIsRedacted() {
+        int[] redactions = new int[1];
+        assertEquals("token=[REDACTED]&x=1", stream(literals("s3cr3t"), redactions, "token=s3", "cr", "3t&x=1"));
+        assertEquals(1, redactions[0]);
+    }
+
+    @Test
+    void literalAtTheEndOfTheStreamIsRedacted() {
+        int[] redactions = new int[1];
+        assertEquals("token=[REDACTED]", stream(literals("s3cr3t"), redactions, "token=s3cr", "3t"));
+        assertEquals(1, redactions[0]);
+    }
+
+    @Test
+    void overlappingLiteralsAreMaskedOnce() {
+        int[] redactions = new int[1];
+        assertEquals("xx[REDACTED]yy", stream(literals("abcdef", "defghi"), redactions, "xxabcd", "efghiyy"));
+        assertEquals(1, redactions[0]);
+    }
+
+    @Test
+    void literalInsideALongerOneIsMaskedWithIt() {
+        int[] redactions = new int[1];
+        assertEquals("[[REDACTED]]", stream(literals("password123", "word"), redactions, "[password123]"));
+        assertEquals(1, redactions[0]);
+    }
+
+    @Test
+    void tokenSplitAcrossChunksIsRedacted() {
+        int[] redactions = new int[1];
+        String text = stream(tokens(), redactions, "mail=alice@exa", "mple.com;");
+        assertEquals(1, redactions[0]);
+        assertEquals(-1, text.indexOf("alice@example.com"), text);
+    }
+
+    @Test
+    void shortLiteralsAreIgnored() {
+        assertEquals(Redactor.NONE, literals("abc"));
+    }
+}
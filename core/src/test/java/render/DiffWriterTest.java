@@ -0,0 +1,64 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DiffWriterTest {
+    private static final String REQUEST = "GET /a HTTP/1.1\r\nHost: example.com\r\nAccept: */*";
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nhi";
+
+    private static FilteredMessages item(String request, String response) {
+        FilteredMessages messages = new FilteredMessages();
+        if (request != null) add(messages, FilteredMessages.Kind.REQUEST, request);
+        if (response != null) add(messages, FilteredMessages.Kind.RESPONSE, response);
+        return messages;
+    }
+
+    private static void add(FilteredMessages messages, FilteredMessages.Kind kind, String text) {
+        int mark = messages.begin();
+        messages.buffer().writeAscii(text);
+        messages.end(mark, kind, null);
+    }
+
+    private static String diff(FilteredMessages base, FilteredMessages item) {
+        FilteredMessages out = new FilteredMessages();
+        assertTrue(new DiffWriter(base, 1).append(item, 2, out));
+        assertEquals(1, out.segments().size());
+        assertEquals(FilteredMessages.Kind.DIFF, out.segments().get(0).kind());
+        return out.buffer().toString(FilteredMessages.CHARSET);
+    }
+
+    @Test
+    void identicalItemsAreReportedAsSuch() {
+        assertEquals("Item 2: identical to item 1\r\n", diff(item(REQUEST, RESPONSE), item(REQUEST, RESPONSE)));
+    }
+
+    @Test
+    void changedLinesAreWrittenAsHunks() {
+        String text = diff(item(REQUEST, RESPONSE), item(REQUEST.replace("/a", "/b"), RESPONSE));
+
+        assertEquals("Item 2 (diff against item 1)\r\n"
+                + "--- item 1 request\r\n"
+                + "+++ item 2 request\r\n"
+                + "@@ -1 +1 @@\r\n"
+                + "-GET /a HTTP/1.1\r\n"
+                + "+GET /b HTTP/1.1\r\n", text);
+    }
+
+    @Test
+    void missingResponseIsADifference() {
+        String text = diff(item(REQUEST, RESPONSE), item(REQUEST, null));
+
+        assertEquals("Item 2 (diff against item 1)\r\n(item 2 has no response)\r\n", text);
+    }
+
+    @Test
+    void responseMissingFromTheBaseIsADifference() {
+        String text = diff(item(REQUEST, null), item(REQUEST, RESPONSE));
+
+        assertTrue(text.startsWith("Item 2 (diff against item 1)\r\n(item 1 has no response)\r\n"), text);
+        assertTrue(text.contains("+HTTP/1.1 200 OK\r\n"), text);
+    }
+}
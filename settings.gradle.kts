@@ -1 +1,2 @@
-rootProject.name = "Copycat"
\ No newline at end of file
+rootProject.name = "Copycat"
+include("core")
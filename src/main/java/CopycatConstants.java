@@ -4,6 +4,22 @@ public class CopycatConstants {
         "host", "accept-encoding", "user-agent", "sec-.*"
     };
     
+    public static final String DEFAULT_PROFILE = "default";
+    public static final String[] BUG_REPORT_PATTERNS = {
+        "content-length", "transfer-encoding", "connection", "host", "accept-encoding", "user-agent", "sec-.*",
+        "cookie", "set-cookie", "authorization", "proxy-authorization", "x-csrf-token", "x-xsrf-token"
+    };
+    public static final String[] SHARE_WITH_DEV_PATTERNS = {
+        "content-length", "transfer-encoding", "connection", "host", "accept-encoding", "user-agent", "sec-.*",
+        "cookie", "set-cookie", "authorization", "priority", "dnt", "upgrade-insecure-requests",
+        "cache-control", "pragma", "if-none-match", "if-modified-since"
+    };
+    public static final String[] MINIMAL_PATTERNS = {
+        "content-length", "transfer-encoding", "connection", "host", "accept-encoding", "user-agent", "sec-.*",
+        "accept.*", "origin", "referer", "cache-control", "pragma", "priority", "dnt", "te",
+        "upgrade-insecure-requests", "if-.*", "cookie", "set-cookie", "authorization"
+    };
+    
     public static final String EXTENSION_NAME = "Copycat";
     public static final String TAB_NAME = "Copycat";
     
@@ -20,6 +36,9 @@ public class CopycatConstants {
             3. The content will be copied to clipboard with excluded headers removed
             4. Use this settings panel to customize header exclusion patterns
             
+            Patterns match the whole header name, ignoring case; use 'name.*' or '^name'
+            to match by prefix and '.*name.*' to match anywhere in the name.
+            
             Regex Pattern Examples:
             • 'content-.*' - matches content-length, content-type, etc.
             • 'x-.*' - matches all X- headers
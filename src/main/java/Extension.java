@@ -1,24 +1,41 @@
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
+import config.ProfileStore;
+import filter.FilterConfig;
+import filter.FilterConfigHolder;
+import filter.FilteredCache;
+import handler.IndexerSettings;
+import handler.LiveFilterHandler;
+import handler.ProxyIndexer;
+import metrics.CopyMetrics;
+import task.CopycatExecutor;
+import ui.CookieJarRedaction;
 import ui.CopycatContextMenuProvider;
 import ui.CopycatSettingsPanel;
 
 public class Extension implements BurpExtension {
     private MontoyaApi api;
-    private Set<String> excludedHeaderPatterns;
-    private Set<Pattern> precompiledPatterns;
+    private ProfileStore profiles;
+    private FilterConfigHolder filterConfig;
+    private CopycatExecutor executor;
+    private LiveFilterHandler liveFilter;
+    private ProxyIndexer indexer;
+    private final CopyMetrics metrics = new CopyMetrics();
 
     @Override
     public void initialize(MontoyaApi montoyaApi) {
         this.api = montoyaApi;
         montoyaApi.extension().setName(CopycatConstants.EXTENSION_NAME);
 
+        executor = new CopycatExecutor();
+        montoyaApi.extension().registerUnloadingHandler(executor::shutdown);
+
         initializeExcludedHeaders();
         registerComponents(montoyaApi);
 
@@ -26,37 +43,40 @@ public class Extension implements BurpExtension {
     }
 
     private void initializeExcludedHeaders() {
-        excludedHeaderPatterns = new HashSet<>(Arrays.asList(CopycatConstants.DEFAULT_PATTERNS));
-        recompilePatterns();
+        profiles = new ProfileStore(api.persistence().preferences(), builtInProfiles(), CopycatConstants.DEFAULT_PROFILE);
+        String active = profiles.activeName();
+        filterConfig = new FilterConfigHolder(profiles.patterns(active), profiles.matcher(active), profiles.bodyPolicy());
+        filterConfig.updateRedaction(profiles.redactionRules());
     }
 
-    private void recompilePatterns() {
-        if (precompiledPatterns == null) {
-            precompiledPatterns = new HashSet<>();
-        } else {
-            precompiledPatterns.clear();
-        }
-        for (String pattern : excludedHeaderPatterns) {
-            try {
-                precompiledPatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
-            } catch (PatternSyntaxException e) {
-                precompiledPatterns.add(Pattern.compile(Pattern.quote(pattern), Pattern.CASE_INSENSITIVE));
-            }
-        }
+    private static Map<String, List<String>> builtInProfiles() {
+        Map<String, List<String>> builtIns = new LinkedHashMap<>();
+        builtIns.put(CopycatConstants.DEFAULT_PROFILE, Arrays.asList(CopycatConstants.DEFAULT_PATTERNS));
+        builtIns.put("bug report", Arrays.asList(CopycatConstants.BUG_REPORT_PATTERNS));
+        builtIns.put("share with dev", Arrays.asList(CopycatConstants.SHARE_WITH_DEV_PATTERNS));
+        builtIns.put("minimal", Arrays.asList(CopycatConstants.MINIMAL_PATTERNS));
+        return builtIns;
     }
 
     private void registerComponents(MontoyaApi montoyaApi) {
+        Supplier<FilterConfig> copyConfig = new CookieJarRedaction(api, filterConfig::get);
+        IndexerSettings indexerSettings = profiles.indexerSettings();
+        indexer = new ProxyIndexer(copyConfig, new FilteredCache(0), indexerSettings, executor);
+        montoyaApi.extension().registerUnloadingHandler(indexer::shutdown);
+        montoyaApi.proxy().registerResponseHandler(indexer);
         montoyaApi.userInterface().registerContextMenuItemsProvider(
-                new CopycatContextMenuProvider(api, precompiledPatterns));
+                new CopycatContextMenuProvider(api, executor, copyConfig, profiles, metrics, indexer.cache()));
+        liveFilter = new LiveFilterHandler(filterConfig::get, profiles.liveFilterSettings());
+        montoyaApi.http().registerHttpHandler(liveFilter);
 
         try {
-            montoyaApi.userInterface().registerSettingsPanel(
-                    new CopycatSettingsPanel(api, excludedHeaderPatterns, this::recompilePatterns));
+            montoyaApi.userInterface().registerSettingsPanel(new CopycatSettingsPanel(api, executor, filterConfig, profiles, liveFilter, indexer, metrics,
+                    Arrays.asList(CopycatConstants.DEFAULT_PATTERNS)));
             montoyaApi.logging().logToOutput(CopycatConstants.SETTINGS_REGISTERED);
         } catch (Exception e) {
             montoyaApi.logging().logToOutput(CopycatConstants.SETTINGS_FALLBACK + e.getMessage());
-            CopycatSettingsPanel settingsPanel = new CopycatSettingsPanel(api, excludedHeaderPatterns,
-                    this::recompilePatterns);
+            CopycatSettingsPanel settingsPanel = new CopycatSettingsPanel(api, executor, filterConfig, profiles, liveFilter, indexer, metrics,
+                    Arrays.asList(CopycatConstants.DEFAULT_PATTERNS));
             montoyaApi.userInterface().registerSuiteTab(CopycatConstants.TAB_NAME, settingsPanel.uiComponent());
         }
     }
@@ -0,0 +1,192 @@
+package config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import burp.api.montoya.persistence.Preferences;
+import filter.BodyMode;
+import filter.BodyPolicy;
+import filter.HeaderMatcher;
+import filter.RedactionRules;
+import handler.IndexerSettings;
+import handler.LiveFilterSettings;
+
+/**
+ * Named pattern profiles kept in Burp's extension preferences, so they survive restarts.
+ * Each profile stores its pattern list. Its matcher is compiled the first time the profile is used
+ * and kept in memory, so switching back to a profile, or copying with it, does not compile it again.
+ */
+public final class ProfileStore {
+    private static final int SCHEMA_VERSION = 1;
+    private static final String PREFIX = "copycat.";
+    private static final String SCHEMA_KEY = PREFIX + "schema";
+    private static final String PROFILES_KEY = PREFIX + "profiles";
+    private static final String ACTIVE_KEY = PREFIX + "activeProfile";
+    private static final String BODY_MODE_KEY = PREFIX + "body.mode";
+    private static final String BODY_TRUNCATE_KEY = PREFIX + "body.truncateBytes";
+    private static final String BODY_DECODE_KEY = PREFIX + "body.decode";
+    private static final String LIVE_REQUESTS_KEY = PREFIX + "live.requests";
+    private static final String LIVE_RESPONSES_KEY = PREFIX + "live.responses";
+    private static final String LIVE_BUDGET_KEY = PREFIX + "live.budgetMicros";
+    private static final String INDEX_ENABLED_KEY = PREFIX + "index.enabled";
+    private static final String INDEX_CACHE_KEY = PREFIX + "index.cacheMegabytes";
+    private static final String INDEX_CPU_KEY = PREFIX + "index.cpuPercent";
+    private static final String REDACT_ENABLED_KEY = PREFIX + "redact.enabled";
+    private static final String REDACT_TOKENS_KEY = PREFIX + "redact.tokens";
+    private static final String REDACT_COOKIE_JAR_KEY = PREFIX + "redact.cookieJar";
+    private static final String REDACT_LITERALS_KEY = PREFIX + "redact.literals";
+    private static final String SEPARATOR = "\n";
+
+    private final Preferences preferences;
+    private final String defaultProfile;
+    private final Map<String, HeaderMatcher> matchers = new ConcurrentHashMap<>();
+
+    public ProfileStore(Preferences preferences, Map<String, List<String>> builtInProfiles, String defaultProfile) {
+        this.preferences = preferences;
+        this.defaultProfile = defaultProfile;
+        initialize(builtInProfiles);
+    }
+
+    private synchronized void initialize(Map<String, List<String>> builtInProfiles) {
+        String schema = preferences.getString(SCHEMA_KEY);
+        if (schema == null || names().isEmpty()) {
+            builtInProfiles.forEach((name, patterns) -> save(name, patterns, HeaderMatcher.compile(patterns)));
+            preferences.setString(ACTIVE_KEY, defaultProfile);
+        }
+        preferences.setString(SCHEMA_KEY, Integer.toString(SCHEMA_VERSION));
+    }
+
+    public synchronized List<String> names() {
+        return split(preferences.getString(PROFILES_KEY));
+    }
+
+    public synchronized String activeName() {
+        String active = preferences.getString(ACTIVE_KEY);
+        List<String> names = names();
+        if (active != null && names.contains(active)) return active;
+        return names.contains(defaultProfile) || names.isEmpty() ? defaultProfile : names.get(0);
+    }
+
+    public synchronized void setActive(String name) {
+        if (names().contains(name)) preferences.setString(ACTIVE_KEY, name);
+    }
+
+    public synchronized List<String> patterns(String name) {
+        return split(preferences.getString(patternsKey(name)));
+    }
+
+    /** The matcher for {@code name}, compiled on first use. */
+    public HeaderMatcher matcher(String name) {
+        HeaderMatcher cached = matchers.get(name);
+        return cached != null ? cached : loadMatcher(name);
+    }
+
+    private synchronized HeaderMatcher loadMatcher(String name) {
+        HeaderMatcher matcher = matchers.get(name);
+        if (matcher != null) return matcher;
+        matcher = HeaderMatcher.compile(patterns(name));
+        matchers.put(name, matcher);
+        return matcher;
+    }
+
+    public synchronized void save(String name, List<String> patterns, HeaderMatcher matcher) {
+        preferences.setString(patternsKey(name), String.join(SEPARATOR, patterns));
+        matchers.put(name, matcher);
+        List<String> names = names();
+        if (!names.contains(name)) {
+            names.add(name);
+            preferences.setString(PROFILES_KEY, String.join(SEPARATOR, names));
+        }
+    }
+
+    public synchronized void delete(String name) {
+        List<String> names = names();
+        if (!names.remove(name) || names.isEmpty()) return;
+        preferences.setString(PROFILES_KEY, String.join(SEPARATOR, names));
+        preferences.deleteString(patternsKey(name));
+        matchers.remove(name);
+        if (name.equals(preferences.getString(ACTIVE_KEY))) {
+            preferences.setString(ACTIVE_KEY, names.get(0));
+        }
+    }
+
+    public synchronized BodyPolicy bodyPolicy() {
+        String mode = preferences.getString(BODY_MODE_KEY);
+        Integer truncateBytes = preferences.getInteger(BODY_TRUNCATE_KEY);
+        Boolean decode = preferences.getBoolean(BODY_DECODE_KEY);
+        try {
+            return new BodyPolicy(mode == null ? BodyMode.FULL : BodyMode.valueOf(mode),
+                    truncateBytes == null ? BodyPolicy.DEFAULT_TRUNCATE_BYTES : truncateBytes,
+                    !Boolean.FALSE.equals(decode));
+        } catch (IllegalArgumentException e) {
+            return BodyPolicy.FULL;
+        }
+    }
+
+    public synchronized void saveBodyPolicy(BodyPolicy policy) {
+        preferences.setString(BODY_MODE_KEY, policy.mode().name());
+        preferences.setInteger(BODY_TRUNCATE_KEY, policy.truncateBytes());
+        preferences.setBoolean(BODY_DECODE_KEY, policy.decode());
+    }
+
+    public synchronized LiveFilterSettings liveFilterSettings() {
+        Boolean requests = preferences.getBoolean(LIVE_REQUESTS_KEY);
+        Boolean responses = preferences.getBoolean(LIVE_RESPONSES_KEY);
+        Integer budget = preferences.getInteger(LIVE_BUDGET_KEY);
+        return new LiveFilterSettings(Boolean.TRUE.equals(requests), Boolean.TRUE.equals(responses),
+                budget == null || budget < 1 ? LiveFilterSettings.DEFAULT_BUDGET_MICROS : budget);
+    }
+
+    public synchronized void saveLiveFilterSettings(LiveFilterSettings settings) {
+        preferences.setBoolean(LIVE_REQUESTS_KEY, settings.requests());
+        preferences.setBoolean(LIVE_RESPONSES_KEY, settings.responses());
+        preferences.setInteger(LIVE_BUDGET_KEY, settings.budgetMicros());
+    }
+
+    public synchronized IndexerSettings indexerSettings() {
+        Boolean enabled = preferences.getBoolean(INDEX_ENABLED_KEY);
+        Integer cache = preferences.getInteger(INDEX_CACHE_KEY);
+        Integer cpu = preferences.getInteger(INDEX_CPU_KEY);
+        return new IndexerSettings(Boolean.TRUE.equals(enabled),
+                cache == null || cache < 1 ? IndexerSettings.DEFAULT_CACHE_MEGABYTES : cache,
+                cpu == null || cpu < 1 || cpu > 100 ? IndexerSettings.DEFAULT_CPU_PERCENT : cpu);
+    }
+
+    public synchronized void saveIndexerSettings(IndexerSettings settings) {
+        preferences.setBoolean(INDEX_ENABLED_KEY, settings.enabled());
+        preferences.setInteger(INDEX_CACHE_KEY, settings.cacheMegabytes());
+        preferences.setInteger(INDEX_CPU_KEY, settings.cpuPercent());
+    }
+
+    public synchronized RedactionRules redactionRules() {
+        Boolean enabled = preferences.getBoolean(REDACT_ENABLED_KEY);
+        Boolean tokens = preferences.getBoolean(REDACT_TOKENS_KEY);
+        Boolean cookieJar = preferences.getBoolean(REDACT_COOKIE_JAR_KEY);
+        return new RedactionRules(Boolean.TRUE.equals(enabled),
+                tokens == null ? RedactionRules.OFF.tokens() : tokens,
+                cookieJar == null ? RedactionRules.OFF.cookieJar() : cookieJar,
+                split(preferences.getString(REDACT_LITERALS_KEY)));
+    }
+
+    public synchronized void saveRedactionRules(RedactionRules rules) {
+        preferences.setBoolean(REDACT_ENABLED_KEY, rules.enabled());
+        preferences.setBoolean(REDACT_TOKENS_KEY, rules.tokens());
+        preferences.setBoolean(REDACT_COOKIE_JAR_KEY, rules.cookieJar());
+        preferences.setString(REDACT_LITERALS_KEY, String.join(SEPARATOR, rules.literals()));
+    }
+
+    private static String patternsKey(String name) {
+        return PREFIX + "profile." + name + ".patterns";
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        if (value == null || value.isEmpty()) return parts;
+        for (String part : value.split(SEPARATOR)) {
+            if (!part.isEmpty()) parts.add(part);
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,20 @@
+package handler;
+
+/**
+ * Whether new Proxy traffic is filtered ahead of time, how much memory the cache of filtered messages
+ * may use, and what share of one CPU core the indexer may keep busy.
+ */
+public record IndexerSettings(boolean enabled, int cacheMegabytes, int cpuPercent) {
+    public static final int DEFAULT_CACHE_MEGABYTES = 32;
+    public static final int DEFAULT_CPU_PERCENT = 10;
+    public static final IndexerSettings OFF = new IndexerSettings(false, DEFAULT_CACHE_MEGABYTES, DEFAULT_CPU_PERCENT);
+
+    public IndexerSettings {
+        if (cacheMegabytes < 1) throw new IllegalArgumentException("cacheMegabytes must be positive");
+        if (cpuPercent < 1 || cpuPercent > 100) throw new IllegalArgumentException("cpuPercent must be 1-100");
+    }
+
+    public int cacheBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, cacheMegabytes * 1024L * 1024L);
+    }
+}
@@ -0,0 +1,127 @@
+package handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpMessage;
+import filter.FilterConfig;
+import filter.HeaderMatcher;
+
+/**
+ * Removes excluded headers from in-scope traffic as it passes through Burp, using the same patterns
+ * as copying. Only headers are touched; the body policy applies to copies alone. Headers that frame the
+ * message or route it ({@code Host}, {@code Content-Length}, {@code Transfer-Encoding}, {@code Connection},
+ * {@code Content-Encoding}) are never removed, even when a pattern matches them, since dropping them would
+ * break the exchange rather than just clean up a copy.
+ * <p>
+ * The handler runs on Burp's networking threads, so it bails out early whenever it can: when the mode
+ * is off, when the message is out of scope and when the pattern set is empty. Reading the headers through
+ * the Montoya API allocates a list and the name strings; the handler adds nothing on top of that until a
+ * header matches. Decisions are counted in the matcher's own {@link filter.MatchStats}, separate from the
+ * copy metrics. If filtering a message takes longer than the configured budget, the message is passed on
+ * unchanged and counted as over budget.
+ */
+public final class LiveFilterHandler implements HttpHandler {
+    private static final String[] PROTECTED_HEADERS = {
+            "host", "content-length", "transfer-encoding", "connection", "content-encoding"
+    };
+
+    private final Supplier<FilterConfig> filterConfig;
+    private final LiveFilterStats stats = new LiveFilterStats();
+    private volatile LiveFilterSettings settings;
+    private volatile LiveMatcher liveMatcher = new LiveMatcher(HeaderMatcher.empty(), HeaderMatcher.empty().withOwnStats());
+
+    /** The copy matcher and the live filter's view of it, which keeps its own match counters. */
+    private record LiveMatcher(HeaderMatcher shared, HeaderMatcher live) {
+    }
+
+    public LiveFilterHandler(Supplier<FilterConfig> filterConfig, LiveFilterSettings settings) {
+        this.filterConfig = filterConfig;
+        this.settings = settings;
+    }
+
+    public LiveFilterSettings settings() {
+        return settings;
+    }
+
+    public void setSettings(LiveFilterSettings settings) {
+        this.settings = settings;
+    }
+
+    public LiveFilterStats stats() {
+        return stats;
+    }
+
+    /** The matcher live traffic is filtered with; its {@link HeaderMatcher#stats()} cover live traffic only. */
+    public HeaderMatcher matcher() {
+        HeaderMatcher shared = filterConfig.get().matcher();
+        LiveMatcher current = liveMatcher;
+        if (current.shared() != shared) {
+            current = new LiveMatcher(shared, shared.withOwnStats());
+            liveMatcher = current;
+        }
+        return current.live();
+    }
+
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent request) {
+        LiveFilterSettings current = settings;
+        if (!current.requests() || !request.isInScope()) {
+            return RequestToBeSentAction.continueWith(request);
+        }
+        List<HttpHeader> excluded = excludedHeaders(request, current);
+        return RequestToBeSentAction.continueWith(excluded == null ? request : request.withRemovedHeaders(excluded));
+    }
+
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived response) {
+        LiveFilterSettings current = settings;
+        if (!current.responses() || !response.initiatingRequest().isInScope()) {
+            return ResponseReceivedAction.continueWith(response);
+        }
+        List<HttpHeader> excluded = excludedHeaders(response, current);
+        return ResponseReceivedAction.continueWith(excluded == null ? response : response.withRemovedHeaders(excluded));
+    }
+
+    /** Headers to remove, or {@code null} to pass the message on unchanged. */
+    private List<HttpHeader> excludedHeaders(HttpMessage message, LiveFilterSettings current) {
+        HeaderMatcher matcher = matcher();
+        if (matcher.isEmpty()) {
+            stats.recordBypass();
+            return null;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + current.budgetMicros() * 1000L;
+        List<HttpHeader> excluded = null;
+        boolean withinBudget = true;
+        for (HttpHeader header : message.headers()) {
+            String name = header.name();
+            if (!isProtected(name) && matcher.excludes(name)) {
+                if (excluded == null) excluded = new ArrayList<>();
+                excluded.add(header);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                withinBudget = false;
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.recordFiltered(elapsed, excluded == null ? 0 : excluded.size(), withinBudget);
+        return withinBudget ? excluded : null;
+    }
+
+    private static boolean isProtected(String name) {
+        for (String header : PROTECTED_HEADERS) {
+            if (header.equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+}
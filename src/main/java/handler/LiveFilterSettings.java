@@ -0,0 +1,18 @@
+package handler;
+
+/**
+ * Which in-scope traffic the live filter rewrites, and how long it may spend on one message.
+ * The filter is off when neither direction is selected.
+ */
+public record LiveFilterSettings(boolean requests, boolean responses, int budgetMicros) {
+    public static final int DEFAULT_BUDGET_MICROS = 500;
+    public static final LiveFilterSettings OFF = new LiveFilterSettings(false, false, DEFAULT_BUDGET_MICROS);
+
+    public LiveFilterSettings {
+        if (budgetMicros < 1) throw new IllegalArgumentException("budgetMicros must be positive");
+    }
+
+    public boolean enabled() {
+        return requests || responses;
+    }
+}
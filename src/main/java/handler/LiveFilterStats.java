@@ -0,0 +1,91 @@
+package handler;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-message counters for the live filter. Recording is lock-free so proxy threads never contend;
+ * a {@link Snapshot} is a consistent-enough copy for display.
+ */
+public final class LiveFilterStats {
+    /** Upper bounds of the latency buckets, in nanoseconds; the last bucket is open-ended. */
+    static final long[] BUCKET_BOUNDS_NANOS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final String[] BUCKET_LABELS = {"<1µs", "<10µs", "<100µs", "<1ms", "≥1ms"};
+
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+    private final LongAdder headersRemoved = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_NANOS.length + 1];
+
+    public record Snapshot(long filtered, long bypassed, long modified, long overBudget, long headersRemoved,
+                           long totalNanos, long maxNanos, long[] buckets) {
+        public double averageMicros() {
+            return filtered == 0 ? 0 : totalNanos / 1000.0 / filtered;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(filtered).append(" filtered, ").append(modified).append(" modified, ")
+                    .append(headersRemoved).append(" headers removed, ").append(bypassed).append(" bypassed, ")
+                    .append(overBudget).append(" over budget; avg ")
+                    .append(String.format("%.1f", averageMicros())).append(" µs, max ")
+                    .append(String.format("%.1f", maxNanos / 1000.0)).append(" µs; ");
+            for (int i = 0; i < buckets.length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(BUCKET_LABELS[i]).append('=').append(buckets[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    public LiveFilterStats() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    void recordBypass() {
+        bypassed.increment();
+    }
+
+    void recordFiltered(long nanos, int removed, boolean withinBudget) {
+        filtered.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets[bucketOf(nanos)].increment();
+        if (!withinBudget) {
+            overBudget.increment();
+        } else if (removed > 0) {
+            modified.increment();
+            headersRemoved.add(removed);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) counts[i] = buckets[i].sum();
+        return new Snapshot(filtered.sum(), bypassed.sum(), modified.sum(), overBudget.sum(), headersRemoved.sum(),
+                totalNanos.sum(), maxNanos.get(), counts);
+    }
+
+    public void reset() {
+        filtered.reset();
+        bypassed.reset();
+        modified.reset();
+        overBudget.reset();
+        headersRemoved.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        for (LongAdder bucket : buckets) bucket.reset();
+    }
+
+    private static int bucketOf(long nanos) {
+        for (int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++) {
+            if (nanos < BUCKET_BOUNDS_NANOS[i]) return i;
+        }
+        return BUCKET_BOUNDS_NANOS.length;
+    }
+}
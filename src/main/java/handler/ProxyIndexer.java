@@ -0,0 +1,164 @@
+package handler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.proxy.http.InterceptedResponse;
+import burp.api.montoya.proxy.http.ProxyResponseHandler;
+import burp.api.montoya.proxy.http.ProxyResponseReceivedAction;
+import burp.api.montoya.proxy.http.ProxyResponseToBeSentAction;
+import filter.ByteOutput;
+import filter.FilterConfig;
+import filter.FilteredCache;
+import task.CopycatExecutor;
+import ui.MontoyaMessages;
+
+/**
+ * Filters new Proxy traffic in the background so that copying a recent item is a {@link FilteredCache} hit.
+ * <p>
+ * The Proxy thread only offers the request/response pair to a small queue; when the queue is full the
+ * pair is dropped and will simply be filtered on demand. The queue is drained by one task at a time on the
+ * shared {@link CopycatExecutor}, which ends once the queue is empty. After each item it gives up its
+ * permit and is resubmitted with a delay long enough to stay within the configured share of one core,
+ * so the pause does not hold back other background work. It skips items while the machine as a whole is
+ * busy (e.g. during an active scan). Entries filtered with older settings are dropped when the next item
+ * is indexed. Messages larger than {@link #MAX_MESSAGE_BYTES} are not indexed. While the indexer is off,
+ * its cache is empty and copies bypass it.
+ */
+public final class ProxyIndexer implements ProxyResponseHandler {
+    static final int QUEUE_DEPTH = 64;
+    static final int MAX_MESSAGE_BYTES = 2 * 1024 * 1024;
+    private static final double BUSY_SYSTEM_LOAD = 0.75;
+    private static final long MAX_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private record Job(HttpRequest request, HttpResponse response) {
+    }
+
+    private final Supplier<FilterConfig> filterConfig;
+    private final FilteredCache cache;
+    private final CopycatExecutor executor;
+    private final BlockingQueue<Job> queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+    private final LongAdder indexed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skippedBusy = new LongAdder();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final ByteOutput scratch = new ByteOutput();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean stopped;
+    private volatile IndexerSettings settings;
+
+    public ProxyIndexer(Supplier<FilterConfig> filterConfig, FilteredCache cache, IndexerSettings settings,
+                        CopycatExecutor executor) {
+        this.filterConfig = filterConfig;
+        this.cache = cache;
+        this.executor = executor;
+        this.settings = settings;
+        cache.setMaxBytes(settings.enabled() ? settings.cacheBytes() : 0);
+    }
+
+    public IndexerSettings settings() {
+        return settings;
+    }
+
+    public void setSettings(IndexerSettings settings) {
+        this.settings = settings;
+        cache.setMaxBytes(settings.enabled() ? settings.cacheBytes() : 0);
+        if (!settings.enabled()) queue.clear();
+    }
+
+    public FilteredCache cache() {
+        return cache;
+    }
+
+    public String summary() {
+        return indexed.sum() + " indexed, " + dropped.sum() + " dropped, " + skippedBusy.sum()
+                + " skipped while busy; cache " + cache.stats();
+    }
+
+    public void resetCounters() {
+        indexed.reset();
+        dropped.reset();
+        skippedBusy.reset();
+        cache.resetCounters();
+    }
+
+    public void shutdown() {
+        stopped = true;
+        queue.clear();
+    }
+
+    @Override
+    public ProxyResponseReceivedAction handleResponseReceived(InterceptedResponse response) {
+        return ProxyResponseReceivedAction.continueWith(response);
+    }
+
+    @Override
+    public ProxyResponseToBeSentAction handleResponseToBeSent(InterceptedResponse response) {
+        if (!settings.enabled() || stopped) return ProxyResponseToBeSentAction.continueWith(response);
+        if (queue.offer(new Job(response.initiatingRequest(), response))) {
+            if (draining.compareAndSet(false, true)) executor.submit(this::drain);
+        } else {
+            dropped.increment();
+        }
+        return ProxyResponseToBeSentAction.continueWith(response);
+    }
+
+    /**
+     * Indexes queued items until the queue is empty or a pause is due, in which case the drain is resubmitted
+     * to run after it; only one drain runs or waits at a time.
+     */
+    private void drain() {
+        do {
+            Job job;
+            while ((job = queue.poll()) != null && !stopped) {
+                if (!settings.enabled()) continue;
+                if (systemBusy()) {
+                    skippedBusy.increment();
+                    continue;
+                }
+                long start = System.nanoTime();
+                index(job);
+                long pause = pauseNanos(System.nanoTime() - start);
+                if (pause > 0) {
+                    executor.submitAfter(pause, this::drain);
+                    return;
+                }
+            }
+            draining.set(false);
+            // An item offered after the last poll but before the flag was cleared has no drain yet.
+        } while (!queue.isEmpty() && !stopped && draining.compareAndSet(false, true));
+    }
+
+    private void index(Job job) {
+        FilterConfig config = filterConfig.get();
+        cache.invalidateUnless(config);
+        try {
+            if (job.request() != null) {
+                MontoyaMessages.prefetch(job.request(), true, config, cache, MAX_MESSAGE_BYTES, scratch);
+            }
+            MontoyaMessages.prefetch(job.response(), false, config, cache, MAX_MESSAGE_BYTES, scratch);
+            indexed.increment();
+        } catch (RuntimeException e) {
+            dropped.increment();
+        }
+    }
+
+    /** How long to wait so that the time just spent working stays within the configured share of a core. */
+    private long pauseNanos(long busyNanos) {
+        int percent = settings.cpuPercent();
+        if (percent >= 100) return 0;
+        return Math.min(MAX_PAUSE_NANOS, busyNanos * (100 - percent) / percent);
+    }
+
+    private boolean systemBusy() {
+        return os instanceof com.sun.management.OperatingSystemMXBean sun && sun.getCpuLoad() > BUSY_SYSTEM_LOAD;
+    }
+}
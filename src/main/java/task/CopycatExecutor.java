@@ -0,0 +1,109 @@
+package task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extension-wide executor for background work. Tasks run on named virtual threads, and at most
+ * {@code maxConcurrent} of them do real work at once. {@link #submitLatest} supersedes earlier work
+ * for the same key: rapid repeated clicks collapse into the last one, and a copy that is already
+ * running is interrupted. CPU-bound work that splits into many independent pieces, such as filtering
+ * a large selection, runs on the separate work-stealing {@link #workers()} pool, one platform thread per
+ * core. {@link #shutdown()} is called from the extension's unloading handler.
+ */
+public final class CopycatExecutor implements Executor {
+    public static final String CLIPBOARD = "clipboard";
+    public static final String PATTERNS = "patterns";
+
+    private static final long COALESCE_DELAY_MS = 75;
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final ForkJoinPool workers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private final Map<String, Future<?>> latestByKey = new ConcurrentHashMap<>();
+
+    public CopycatExecutor() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public CopycatExecutor(int maxConcurrent) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("copycat-", 0).factory());
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return executor.submit(() -> runBounded(task));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    /**
+     * Runs {@code task} after a short coalescing delay, cancelling any earlier task submitted under
+     * the same key. Long-running tasks should check {@link Thread#isInterrupted()} and stop early.
+     */
+    public Future<?> submitLatest(String key, Runnable task) {
+        return latestByKey.compute(key, (k, previous) -> {
+            if (previous != null) previous.cancel(true);
+            return executor.submit(() -> {
+                try {
+                    Thread.sleep(COALESCE_DELAY_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                runBounded(task);
+            });
+        });
+    }
+
+    /** Runs {@code task} once {@code delayNanos} have passed; the delay does not hold one of the permits. */
+    public Future<?> submitAfter(long delayNanos, Runnable task) {
+        return executor.submit(() -> {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                return;
+            }
+            runBounded(task);
+        });
+    }
+
+    /** Work-stealing pool for CPU-bound pieces of a task; not bounded by {@code maxConcurrent}. */
+    public ForkJoinPool workers() {
+        return workers;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        workers.shutdownNow();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        latestByKey.clear();
+    }
+
+    private void runBounded(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.Cookie;
+import filter.FilterConfig;
+import filter.RedactionRules;
+import filter.Redactor;
+
+/**
+ * Adds the values in Burp's cookie jar to the redaction literals of each config handed out, when the
+ * redaction rules ask for it. Reading the jar copies every cookie, so it is read at most once every
+ * {@link #REFRESH_NANOS} ns and configs handed out in between reuse the last values. The automaton is
+ * rebuilt only when the jar or the rules have changed.
+ */
+public final class CookieJarRedaction implements Supplier<FilterConfig> {
+    /** Short values such as {@code true} or {@code en} would redact ordinary text, so they are skipped. */
+    static final int MIN_COOKIE_LENGTH = 8;
+    static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private record Built(RedactionRules rules, List<String> values, Redactor redactor, long readAt) {
+    }
+
+    private final MontoyaApi api;
+    private final Supplier<FilterConfig> delegate;
+    private volatile Built last;
+
+    public CookieJarRedaction(MontoyaApi api, Supplier<FilterConfig> delegate) {
+        this.api = api;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public FilterConfig get() {
+        FilterConfig config = delegate.get();
+        if (!config.redaction().enabled() || !config.redaction().cookieJar()) return config;
+
+        Built built = last;
+        long now = System.nanoTime();
+        if (built != null && built.rules() == config.redaction() && now - built.readAt() < REFRESH_NANOS) {
+            return config.withRedactor(built.redactor());
+        }
+        List<String> values = cookieValues();
+        Redactor redactor = built != null && built.rules() == config.redaction() && built.values().equals(values)
+                ? built.redactor() : Redactor.build(config.redaction(), values);
+        built = new Built(config.redaction(), values, redactor, now);
+        last = built;
+        return config.withRedactor(built.redactor());
+    }
+
+    private List<String> cookieValues() {
+        List<String> values = new ArrayList<>();
+        try {
+            for (Cookie cookie : api.http().cookieJar().cookies()) {
+                String value = cookie.value();
+                if (value != null && value.length() >= MIN_COOKIE_LENGTH) values.add(value);
+            }
+        } catch (RuntimeException e) {
+            api.logging().logToError("Could not read the cookie jar for redaction: " + e.getMessage());
+        }
+        return values;
+    }
+}
@@ -1,14 +1,13 @@
 package ui;
 
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingUtilities;
 
 import burp.api.montoya.MontoyaApi;
@@ -16,96 +15,221 @@ import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
+import filter.FilterConfig;
+import filter.FilteredCache;
+import metrics.CopyMetrics;
+import render.DiffWriter;
+import render.FilteredMessages;
+import render.OutputFormat;
+import task.CopycatExecutor;
 
+/**
+ * Every clipboard copy, run as extract → filter → transform → render → sink. Items are taken from the
+ * selection as the {@link CopySpec} says, filtered by {@link ParallelFilter} (in parallel for large
+ * selections) and merged in selection order into one pooled buffer, optionally as diffs against the
+ * first item, and handed to a {@link FilteredTransferable}. The transferable renders each
+ * format from that one buffer, only when a paste target asks for it. Copies of several items show a
+ * progress dialog and stop at {@link #MAX_OUTPUT_BYTES}, writing a marker instead of the remaining items.
+ */
 public class CopyAction implements ActionListener {
+    static final int MAX_OUTPUT_BYTES = 32 * 1024 * 1024;
+    private static final int PROGRESS_STEP = 16;
+
+    /** One selected item; a whole-selection entry is only read from Burp when it is filtered. */
+    private record Item(HttpRequestResponse entry, HttpRequest request, HttpResponse response) {
+    }
+
     private final ContextMenuEvent event;
     private final MontoyaApi api;
-    private final Set<Pattern> precompiledPatterns;
-    private final boolean isRequest;
+    private final CopycatExecutor executor;
+    private final Supplier<FilterConfig> filterConfig;
+    private final CopyMetrics metrics;
+    private final FilteredCache cache;
+    private final CopySpec spec;
 
-    public CopyAction(ContextMenuEvent event, MontoyaApi api, Set<Pattern> precompiledPatterns, boolean isRequest) {
+    public CopyAction(ContextMenuEvent event, MontoyaApi api, CopycatExecutor executor,
+                      Supplier<FilterConfig> filterConfig, CopyMetrics metrics, FilteredCache cache, CopySpec spec) {
         this.event = event;
         this.api = api;
-        this.precompiledPatterns = precompiledPatterns;
-        this.isRequest = isRequest;
+        this.executor = executor;
+        this.filterConfig = filterConfig;
+        this.metrics = metrics;
+        this.cache = cache;
+        this.spec = spec;
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        new Thread(() -> {
-            String filtered = isRequest ? getFilteredRequest() : getFilteredResponse();
-            if (filtered != null) {
-                SwingUtilities.invokeLater(() -> {
-                    copyToClipboard(filtered);
-                    String type = isRequest ? "Request" : "Response";
-                    api.logging().logToOutput(type + " copied to clipboard (headers filtered)");
-                });
-            } else {
-                SwingUtilities.invokeLater(() -> {
-                    String type = isRequest ? "request" : "response";
-                    api.logging().logToOutput("No " + type + " available to copy");
-                });
-            }
-        }).start();
-    }
-    
-    private String getFilteredRequest() {
-        HttpRequest request = extractHttpRequest();
-        if (request == null) return null;
-        return filterHttpMessage(request.toString(), request.headers(), request.bodyToString());
-    }
-    
-    private String getFilteredResponse() {
-        HttpResponse response = extractHttpResponse();
-        if (response == null) return null;
-        return filterHttpMessage(response.toString(), response.headers(), response.bodyToString());
+        List<Item> items = extract();
+        if (items.isEmpty()) {
+            api.logging().logToOutput("No " + noun() + " available to copy");
+            return;
+        }
+
+        ProgressMonitor monitor = null;
+        if (items.size() > 1) {
+            monitor = new ProgressMonitor(api.userInterface().swingUtils().suiteFrame(),
+                    "Copying " + items.size() + " items (headers filtered)", "", 0, items.size());
+            monitor.setMillisToDecideToPopup(200);
+        }
+        ProgressMonitor progress = monitor;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        executor.submitLatest(CopycatExecutor.CLIPBOARD, () -> copy(items, progress, cancelled));
     }
-    
-    private String filterHttpMessage(String rawMessage, List headers, String body) {
-        StringBuilder filtered = new StringBuilder();
-        
-        // Append first line (request line or status line)
-        String firstLine = rawMessage.substring(0, rawMessage.indexOf("\r\n"));
-        filtered.append(firstLine).append("\r\n");
-        
-        // Filter and append headers
-        headers.forEach(header -> {
-            String headerName = header.toString().split(":")[0].trim();
-            boolean exclude = precompiledPatterns.stream()
-                    .anyMatch(pattern -> pattern.matcher(headerName).find());
-            if (!exclude) {
-                filtered.append(header.toString()).append("\r\n");
+
+    private void copy(List<Item> items, ProgressMonitor monitor, AtomicBoolean cancelled) {
+        FilterConfig config = filterConfig.get();
+        Merger merger = new Merger(items.size(), monitor, cancelled);
+        boolean handedOff = false;
+        try {
+            ParallelFilter.run(executor.workers(), items, (item, out) -> filter(item, config, out), merger);
+
+            if (Thread.currentThread().isInterrupted()) {
+                if (monitor != null) SwingUtilities.invokeLater(monitor::close);
+                return;
             }
-        });
-        
-        // Append empty line separator and body
-        filtered.append("\r\n").append(body);
-        return filtered.toString();
+            FilteredMessages out = merger.out;
+            int total = merger.copied;
+            boolean wasTruncated = merger.truncated;
+            if (wasTruncated) {
+                out.addNote("[Copycat: output limit reached, copied " + total + " of " + items.size() + " items]");
+            }
+            handedOff = true;
+            SwingUtilities.invokeLater(() -> {
+                if (monitor != null) monitor.close();
+                if (cancelled.get()) {
+                    FilteredTransferable.BUFFERS.release(out.buffer());
+                    api.logging().logToOutput("Copy cancelled after " + total + " items");
+                    return;
+                }
+                FilteredTransferable.copyToClipboard(out, spec.format(), metrics);
+                api.logging().logToOutput(describe(total, items.size(), wasTruncated));
+            });
+        } finally {
+            merger.release(handedOff);
+        }
     }
-    
-    private HttpRequest extractHttpRequest() {
+
+    private List<Item> extract() {
         List<HttpRequestResponse> selected = event.selectedRequestResponses();
-        if (!selected.isEmpty()) {
-            return selected.get(0).request();
+        List<Item> items = new ArrayList<>();
+        if (spec.wholeSelection()) {
+            for (HttpRequestResponse entry : selected) {
+                items.add(new Item(entry, null, null));
+            }
+            return items;
         }
+        HttpRequest request = spec.target().requests() ? extractRequest(selected) : null;
+        HttpResponse response = spec.target().responses() ? extractResponse(selected) : null;
+        if (request != null || response != null) items.add(new Item(null, request, response));
+        return items;
+    }
+
+    private HttpRequest extractRequest(List<HttpRequestResponse> selected) {
+        if (!selected.isEmpty()) return selected.get(0).request();
         return event.messageEditorRequestResponse()
                 .map(editor -> editor.requestResponse().request())
                 .orElse(null);
     }
-    
-    private HttpResponse extractHttpResponse() {
-        List<HttpRequestResponse> selected = event.selectedRequestResponses();
-        if (!selected.isEmpty() && selected.get(0).response() != null) {
-            return selected.get(0).response();
-        }
+
+    private HttpResponse extractResponse(List<HttpRequestResponse> selected) {
+        if (!selected.isEmpty() && selected.get(0).response() != null) return selected.get(0).response();
         return event.messageEditorRequestResponse()
                 .map(editor -> editor.requestResponse().response())
                 .orElse(null);
     }
-    
-    private void copyToClipboard(String text) {
-        StringSelection selection = new StringSelection(text);
-        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        clipboard.setContents(selection, null);
+
+    private void filter(Item item, FilterConfig config, FilteredMessages out) {
+        HttpRequest request = item.entry() != null ? item.entry().request() : item.request();
+        HttpResponse response = item.entry() != null ? item.entry().response() : item.response();
+        if (request != null) MontoyaMessages.addRequest(out, request, config, metrics, cache);
+        if (response != null) MontoyaMessages.addResponse(out, response, config, metrics, cache);
+    }
+
+    private void reportProgress(ProgressMonitor monitor, AtomicBoolean cancelled, int done, int total) {
+        SwingUtilities.invokeLater(() -> {
+            if (monitor.isCanceled()) {
+                cancelled.set(true);
+                return;
+            }
+            monitor.setProgress(done);
+            monitor.setNote(done + " / " + total);
+        });
+    }
+
+    /**
+     * The transform stage: appends each filtered item in selection order, or its diff against the first,
+     * and stops at {@link #MAX_OUTPUT_BYTES} or when the copy is cancelled.
+     */
+    private final class Merger implements ParallelFilter.Merge {
+        private final int itemCount;
+        private final ProgressMonitor monitor;
+        private final AtomicBoolean cancelled;
+        private final FilteredMessages out = new FilteredMessages(FilteredTransferable.BUFFERS.acquire());
+        private final FilteredMessages scratch;
+        private DiffWriter diff;
+        private int copied;
+        private boolean truncated;
+
+        Merger(int itemCount, ProgressMonitor monitor, AtomicBoolean cancelled) {
+            this.itemCount = itemCount;
+            this.monitor = monitor;
+            this.cancelled = cancelled;
+            this.scratch = spec.asDiff() ? new FilteredMessages(FilteredTransferable.BUFFERS.acquire()) : null;
+        }
+
+        @Override
+        public boolean accept(FilteredMessages source, int from, int to) {
+            if (cancelled.get() || Thread.currentThread().isInterrupted()) return false;
+            int mark = out.begin();
+            if (diff == null) {
+                out.addSegments(source, from, to);
+                if (spec.asDiff()) diff = new DiffWriter(out, 1);
+            } else {
+                scratch.clear();
+                scratch.addSegments(source, from, to);
+                if (!diff.append(scratch, copied + 1, out)) out.addAll(scratch);
+            }
+            if (itemCount > 1 && out.size() > MAX_OUTPUT_BYTES) {
+                out.truncate(mark);
+                truncated = true;
+                return false;
+            }
+            copied++;
+            if (monitor != null && copied % PROGRESS_STEP == 0) {
+                reportProgress(monitor, cancelled, copied, itemCount);
+            }
+            return true;
+        }
+
+        /** Returns the buffers to the pool; {@code out} stays in use if it was handed to the clipboard. */
+        void release(boolean handedOff) {
+            if (scratch != null) FilteredTransferable.BUFFERS.release(scratch.buffer());
+            if (!handedOff) FilteredTransferable.BUFFERS.release(out.buffer());
+        }
+    }
+
+    private String noun() {
+        if (spec.wholeSelection()) return "items";
+        return switch (spec.target()) {
+            case REQUEST -> "request";
+            case RESPONSE -> "response";
+            case BOTH -> "request/response";
+        };
+    }
+
+    private String describe(int copied, int total, boolean truncated) {
+        String suffix = (spec.asDiff() ? " as diff" : "")
+                + (spec.format() == OutputFormat.PLAIN ? "" : " as " + spec.format()) + " (headers filtered)";
+        if (spec.wholeSelection()) {
+            return copied + " of " + total + " items copied to clipboard" + suffix
+                    + (truncated ? ", output limit reached" : "");
+        }
+        String what = switch (spec.target()) {
+            case REQUEST -> "Request";
+            case RESPONSE -> "Response";
+            case BOTH -> "Request+Response";
+        };
+        return what + " copied to clipboard" + suffix;
     }
 }
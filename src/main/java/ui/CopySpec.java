@@ -0,0 +1,31 @@
+package ui;
+
+import render.OutputFormat;
+
+/**
+ * What one copy takes and how it is written: which messages of an item, whether the first item or the
+ * whole selection, whether later items become diffs against the first, and the clipboard format.
+ */
+public record CopySpec(Target target, boolean wholeSelection, boolean asDiff, OutputFormat format) {
+    public enum Target {
+        REQUEST, RESPONSE, BOTH;
+
+        boolean requests() {
+            return this != RESPONSE;
+        }
+
+        boolean responses() {
+            return this != REQUEST;
+        }
+    }
+
+    /** The first selected item, or the one in the message editor. */
+    public static CopySpec single(Target target, OutputFormat format) {
+        return new CopySpec(target, false, false, format);
+    }
+
+    /** Requests and responses of every selected item. */
+    public static CopySpec selection(boolean asDiff, OutputFormat format) {
+        return new CopySpec(Target.BOTH, true, asDiff, format);
+    }
+}
@@ -4,23 +4,38 @@ import java.awt.Component;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 
+import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.ToolType;
 import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
 import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
+import config.ProfileStore;
+import filter.FilterConfig;
+import filter.FilteredCache;
+import metrics.CopyMetrics;
+import render.OutputFormat;
+import task.CopycatExecutor;
 
 public class CopycatContextMenuProvider implements ContextMenuItemsProvider {
     private final MontoyaApi api;
-    private final Set<Pattern> precompiledPatterns;
+    private final CopycatExecutor executor;
+    private final Supplier<FilterConfig> filterConfig;
+    private final ProfileStore profiles;
+    private final CopyMetrics metrics;
+    private final FilteredCache cache;
 
-    public CopycatContextMenuProvider(MontoyaApi api, Set<Pattern> precompiledPatterns) {
+    public CopycatContextMenuProvider(MontoyaApi api, CopycatExecutor executor, Supplier<FilterConfig> filterConfig,
+                                      ProfileStore profiles, CopyMetrics metrics, FilteredCache cache) {
         this.api = api;
-        this.precompiledPatterns = precompiledPatterns;
+        this.executor = executor;
+        this.filterConfig = filterConfig;
+        this.profiles = profiles;
+        this.metrics = metrics;
+        this.cache = cache;
     }
 
     @Override
@@ -30,14 +45,57 @@ public class CopycatContextMenuProvider implements ContextMenuItemsProvider {
         }
         
         List<Component> menuItems = new ArrayList<>();
-        menuItems.add(createMenuItem("Copy Request (Filtered)", new CopyAction(event, api, precompiledPatterns, true)));
-        menuItems.add(createMenuItem("Copy Response (Filtered)", new CopyAction(event, api, precompiledPatterns, false)));
+        menuItems.add(createMenuItem("Copy Request (Filtered)",
+                copy(event, filterConfig, CopySpec.single(CopySpec.Target.REQUEST, OutputFormat.PLAIN))));
+        menuItems.add(createMenuItem("Copy Response (Filtered)",
+                copy(event, filterConfig, CopySpec.single(CopySpec.Target.RESPONSE, OutputFormat.PLAIN))));
+        menuItems.add(createFormatMenu(event, "Copy Request As", CopySpec.Target.REQUEST, false));
+        menuItems.add(createFormatMenu(event, "Copy Response As", CopySpec.Target.RESPONSE, false));
         if (event.isFromTool(ToolType.PROXY)) {
-            menuItems.add(createMenuItem("Copy Request+Response (Filtered)", new CopyBothAction(event, api, precompiledPatterns)));
+            menuItems.add(createMenuItem("Copy Request+Response (Filtered)",
+                    copy(event, filterConfig, CopySpec.single(CopySpec.Target.BOTH, OutputFormat.PLAIN))));
         }
+        int selectedCount = event.selectedRequestResponses().size();
+        if (selectedCount > 1) {
+            menuItems.add(createMenuItem("Copy " + selectedCount + " Selected Items (Filtered)",
+                    copy(event, filterConfig, CopySpec.selection(false, OutputFormat.PLAIN))));
+            menuItems.add(createMenuItem("Copy " + selectedCount + " Selected Items as Diff",
+                    copy(event, filterConfig, CopySpec.selection(true, OutputFormat.PLAIN))));
+            menuItems.add(createFormatMenu(event, "Copy " + selectedCount + " Selected Items As",
+                    CopySpec.Target.BOTH, true));
+        }
+        menuItems.add(createProfileMenu(event));
+        menuItems.add(createMenuItem("Export Filtered\u2026", new ExportAction(event, api, executor, filterConfig, metrics, cache)));
+        menuItems.add(createMenuItem("Import Compressed\u2026", new ImportAction(api, executor)));
         return menuItems;
     }
     
+    private JMenu createFormatMenu(ContextMenuEvent event, String text, CopySpec.Target target, boolean wholeSelection) {
+        JMenu formatMenu = new JMenu(text);
+        for (OutputFormat format : OutputFormat.values()) {
+            if (format == OutputFormat.PLAIN) continue;
+            if (format.requestsOnly() && target == CopySpec.Target.RESPONSE) continue;
+            CopySpec spec = wholeSelection ? CopySpec.selection(false, format) : CopySpec.single(target, format);
+            formatMenu.add(createMenuItem(format.toString(), copy(event, filterConfig, spec)));
+        }
+        return formatMenu;
+    }
+    
+    private JMenu createProfileMenu(ContextMenuEvent event) {
+        JMenu profileMenu = new JMenu("Copy with Profile");
+        for (String name : profiles.names()) {
+            Supplier<FilterConfig> profileConfig = () -> filterConfig.get().withPatterns(profiles.patterns(name),
+                    profiles.matcher(name));
+            profileMenu.add(createMenuItem("Copy (profile " + name + ")",
+                    copy(event, profileConfig, CopySpec.single(CopySpec.Target.BOTH, OutputFormat.PLAIN))));
+        }
+        return profileMenu;
+    }
+    
+    private CopyAction copy(ContextMenuEvent event, Supplier<FilterConfig> config, CopySpec spec) {
+        return new CopyAction(event, api, executor, config, metrics, cache, spec);
+    }
+    
     private JMenuItem createMenuItem(String text, ActionListener action) {
         JMenuItem item = new JMenuItem(text);
         item.addActionListener(action);
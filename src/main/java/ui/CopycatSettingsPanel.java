@@ -4,43 +4,96 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.util.Arrays;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.AncestorEvent;
+import javax.swing.event.AncestorListener;
+import javax.swing.table.DefaultTableModel;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.ui.settings.SettingsPanel;
+import config.ProfileStore;
+import filter.BodyMode;
+import filter.BodyPolicy;
+import filter.FilterConfigHolder;
+import filter.HeaderMatcher;
+import filter.MatchStats;
+import filter.PatternCache;
+import filter.RedactionRules;
+import filter.Redactor;
+import filter.RegexSafety;
+import handler.IndexerSettings;
+import handler.LiveFilterHandler;
+import handler.LiveFilterSettings;
+import handler.ProxyIndexer;
+import metrics.CopyMetrics;
+import metrics.LatencyHistogram;
+import metrics.MetricsCsv;
+import task.CopycatExecutor;
 
 public class CopycatSettingsPanel implements SettingsPanel {
+    private static final int IMPORT_PREVIEW = 10;
+    private static final int SPINNER_SETTLE_MS = 400;
+
     private final MontoyaApi api;
-    private final Set<String> excludedHeaderPatterns;
-    private final Runnable recompilePatternsCallback;
+    private final CopycatExecutor executor;
+    private final FilterConfigHolder filterConfig;
+    private final ProfileStore profiles;
+    private final LiveFilterHandler liveFilter;
+    private final ProxyIndexer indexer;
+    private final CopyMetrics metrics;
+    private final List<String> defaultPatterns;
     
     private JPanel mainPanel;
+    private JComboBox<String> profileBox;
+    private String activeProfile;
     private JProgressBar progressBar;
     private JList<String> headerList;
     private DefaultListModel<String> listModel;
 
-    public CopycatSettingsPanel(MontoyaApi api, Set<String> excludedHeaderPatterns, Runnable recompilePatternsCallback) {
+    public CopycatSettingsPanel(MontoyaApi api, CopycatExecutor executor, FilterConfigHolder filterConfig,
+                                ProfileStore profiles, LiveFilterHandler liveFilter, ProxyIndexer indexer,
+                                CopyMetrics metrics, List<String> defaultPatterns) {
         this.api = api;
-        this.excludedHeaderPatterns = excludedHeaderPatterns;
-        this.recompilePatternsCallback = recompilePatternsCallback;
+        this.executor = executor;
+        this.filterConfig = filterConfig;
+        this.profiles = profiles;
+        this.liveFilter = liveFilter;
+        this.indexer = indexer;
+        this.metrics = metrics;
+        this.defaultPatterns = List.copyOf(defaultPatterns);
+        this.activeProfile = profiles.activeName();
     }
 
     @Override
@@ -53,7 +106,7 @@ public class CopycatSettingsPanel implements SettingsPanel {
 
     @Override
     public Set<String> keywords() {
-        return Set.of("copycat", "headers", "filter", "exclude", "copy", "request", "response");
+        return Set.of("copycat", "headers", "filter", "exclude", "copy", "request", "response", "body", "truncate", "profile", "live", "proxy", "metrics", "redact", "secret", "cookie", "cache", "index");
     }
 
     private JPanel createSettingsPanel() {
@@ -61,18 +114,96 @@ public class CopycatSettingsPanel implements SettingsPanel {
         mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         mainPanel.add(createTitleLabel(), BorderLayout.NORTH);
-        mainPanel.add(createHeaderSettingsPanel(), BorderLayout.CENTER);
+        mainPanel.add(createSectionsPanel(), BorderLayout.CENTER);
         mainPanel.add(createInstructionsPanel(), BorderLayout.SOUTH);
 
         return mainPanel;
     }
     
+    private JPanel createSectionsPanel() {
+        JPanel sectionsPanel = new JPanel();
+        sectionsPanel.setLayout(new BoxLayout(sectionsPanel, BoxLayout.Y_AXIS));
+        sectionsPanel.add(createProfilePanel());
+        sectionsPanel.add(createHeaderSettingsPanel());
+        sectionsPanel.add(createBodySettingsPanel());
+        sectionsPanel.add(createRedactionPanel());
+        sectionsPanel.add(createLiveFilterPanel());
+        sectionsPanel.add(createIndexerPanel());
+        sectionsPanel.add(createMetricsPanel());
+        return sectionsPanel;
+    }
+    
     private JLabel createTitleLabel() {
         JLabel titleLabel = new JLabel("Copycat - Settings");
         titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD, 16f));
         return titleLabel;
     }
     
+    private JPanel createProfilePanel() {
+        JPanel profilePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        profilePanel.setBorder(BorderFactory.createTitledBorder("Profiles"));
+
+        profileBox = new JComboBox<>(profiles.names().toArray(new String[0]));
+        profileBox.setSelectedItem(activeProfile);
+        profileBox.addActionListener(e -> {
+            String selected = (String) profileBox.getSelectedItem();
+            if (selected != null && !selected.equals(activeProfile)) switchProfile(selected);
+        });
+        JButton newButton = new JButton("New Profile");
+        newButton.addActionListener(e -> createProfile());
+        JButton deleteButton = new JButton("Delete Profile");
+        deleteButton.addActionListener(e -> deleteActiveProfile());
+
+        profilePanel.add(new JLabel("Active profile:"));
+        profilePanel.add(profileBox);
+        profilePanel.add(newButton);
+        profilePanel.add(deleteButton);
+        return profilePanel;
+    }
+    
+    private void switchProfile(String name) {
+        activeProfile = name;
+        profiles.setActive(name);
+        List<String> patterns = profiles.patterns(name);
+        listModel.clear();
+        patterns.forEach(listModel::addElement);
+        filterConfig.update(patterns, p -> profiles.matcher(name), executor).exceptionally(ex -> {
+            api.logging().logToError("Failed to load profile " + name + ": " + ex.getMessage());
+            return null;
+        });
+        api.logging().logToOutput("Switched to profile: " + name);
+    }
+    
+    private void createProfile() {
+        String name = JOptionPane.showInputDialog(mainPanel, "New profile name (starts as a copy of the current one):");
+        if (name == null) return;
+        String trimmed = name.trim();
+        if (trimmed.isEmpty() || trimmed.contains("\n") || profiles.names().contains(trimmed)) return;
+
+        List<String> patterns = currentPatterns(listModel);
+        HeaderMatcher matcher = filterConfig.get().matcher();
+        executor.submit(() -> {
+            profiles.save(trimmed, patterns, matcher);
+            SwingUtilities.invokeLater(() -> {
+                profileBox.addItem(trimmed);
+                profileBox.setSelectedItem(trimmed);
+            });
+        });
+    }
+    
+    private void deleteActiveProfile() {
+        if (profiles.names().size() <= 1) return;
+        int choice = JOptionPane.showConfirmDialog(mainPanel, "Delete profile '" + activeProfile + "'?",
+                "Delete Profile", JOptionPane.OK_CANCEL_OPTION);
+        if (choice != JOptionPane.OK_OPTION) return;
+
+        String deleted = activeProfile;
+        profiles.delete(deleted);
+        profileBox.removeItem(deleted);
+        profileBox.setSelectedItem(profiles.activeName());
+        api.logging().logToOutput("Deleted profile: " + deleted);
+    }
+    
     private JPanel createHeaderSettingsPanel() {
         JPanel settingsPanel = new JPanel(new BorderLayout());
         settingsPanel.setBorder(BorderFactory.createTitledBorder("Excluded Headers Configuration"));
@@ -99,7 +230,7 @@ public class CopycatSettingsPanel implements SettingsPanel {
     
     private JScrollPane createHeaderListPanel() {
         this.listModel = new DefaultListModel<>();
-        excludedHeaderPatterns.forEach(listModel::addElement);
+        filterConfig.get().patterns().forEach(listModel::addElement);
         
         this.headerList = new JList<>(listModel);
         headerList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
@@ -117,6 +248,12 @@ public class CopycatSettingsPanel implements SettingsPanel {
         JButton addButton = new JButton("Add Pattern");
         JButton removeButton = new JButton("Remove Selected");  
         JButton resetButton = new JButton("Reset to Defaults");
+        JButton importFileButton = new JButton("Import from File...");
+        JButton importProfileButton = new JButton("Import from Profile...");
+        JButton exportFileButton = new JButton("Export to File...");
+        importFileButton.addActionListener(e -> importFromFile());
+        exportFileButton.addActionListener(e -> exportToFile());
+        importProfileButton.addActionListener(e -> importFromProfile());
         progressBar = new JProgressBar();
         progressBar.setVisible(false);
         
@@ -132,6 +269,9 @@ public class CopycatSettingsPanel implements SettingsPanel {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         buttonPanel.add(removeButton);
         buttonPanel.add(resetButton);
+        buttonPanel.add(importFileButton);
+        buttonPanel.add(importProfileButton);
+        buttonPanel.add(exportFileButton);
         
         controlPanel.add(inputPanel, BorderLayout.NORTH);
         controlPanel.add(buttonPanel, BorderLayout.CENTER);
@@ -150,27 +290,51 @@ public class CopycatSettingsPanel implements SettingsPanel {
     
     private void addHeaderPattern(JTextField field, DefaultListModel<String> listModel) {
         String newPattern = field.getText().trim();
-        if (newPattern.isEmpty() || excludedHeaderPatterns.contains(newPattern)) return;
+        if (newPattern.isEmpty() || listModel.contains(newPattern)) return;
         
         progressBar.setVisible(true);
-        new Thread(() -> {
+        executor.submit(() -> {
             try {
-                Pattern.compile(newPattern);
-                SwingUtilities.invokeLater(() -> updatePatternList(newPattern, listModel, field, false));
+                PatternCache.compile(newPattern);
+                RegexSafety.Report report = RegexSafety.analyse(newPattern);
+                SwingUtilities.invokeLater(() -> {
+                    if (confirmSafety(newPattern, report)) updatePatternList(newPattern, listModel, field, false);
+                });
             } catch (PatternSyntaxException ex) {
                 SwingUtilities.invokeLater(() -> updatePatternList(newPattern, listModel, field, true));
             } finally {
                 SwingUtilities.invokeLater(() -> progressBar.setVisible(false));
             }
-        }).start();
+        });
+    }
+    
+    /** Rejects patterns that backtrack catastrophically and asks before adding ones that look risky. */
+    private boolean confirmSafety(String pattern, RegexSafety.Report report) {
+        switch (report.verdict()) {
+            case REJECT -> {
+                api.logging().logToError("Rejected header pattern " + pattern + ": " + report.message());
+                JOptionPane.showMessageDialog(mainPanel, "Pattern rejected:\n" + report.message(),
+                        "Unsafe Pattern", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
+            case WARN -> {
+                int choice = JOptionPane.showConfirmDialog(mainPanel,
+                        "This pattern may be slow on some header names:\n" + report.message() + "\n\nAdd it anyway?",
+                        "Risky Pattern", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+                return choice == JOptionPane.OK_OPTION;
+            }
+            default -> {
+                return true;
+            }
+        }
     }
     
     private void updatePatternList(String pattern, DefaultListModel<String> listModel, 
                                  JTextField field, boolean isLiteral) {
-        excludedHeaderPatterns.add(pattern);
+        if (listModel.contains(pattern)) return;
         listModel.addElement(pattern);
         field.setText("");
-        recompilePatternsCallback.run();
+        publishPatterns(listModel);
         
         String message = isLiteral 
             ? "Added header pattern (treated as literal): " + pattern
@@ -181,25 +345,446 @@ public class CopycatSettingsPanel implements SettingsPanel {
     private void removeSelectedPatterns(JList<String> headerList, DefaultListModel<String> listModel) {
         List<String> selected = headerList.getSelectedValuesList();
         for (String pattern : selected) {
-            excludedHeaderPatterns.remove(pattern);
             listModel.removeElement(pattern);
             api.logging().logToOutput("Removed excluded header pattern: " + pattern);
         }
-        recompilePatternsCallback.run();
+        publishPatterns(listModel);
+    }
+    
+    private void importFromFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(mainPanel) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+        Set<String> existing = new HashSet<>(currentPatterns(listModel));
+        progressBar.setVisible(true);
+        executor.submit(() -> {
+            try {
+                checkImport(Files.readAllLines(path, StandardCharsets.UTF_8), existing, path.getFileName().toString());
+            } catch (IOException ex) {
+                api.logging().logToError("Failed to import header patterns: " + ex.getMessage());
+                SwingUtilities.invokeLater(() -> progressBar.setVisible(false));
+            }
+        });
+    }
+    
+    /** Writes the pattern list one per line, the format "Import from File..." and the batch mode read. */
+    private void exportToFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(activeProfile + ".txt"));
+        if (chooser.showSaveDialog(mainPanel) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+        List<String> lines = new ArrayList<>();
+        lines.add("# Copycat header patterns, profile " + activeProfile);
+        lines.addAll(currentPatterns(listModel));
+        executor.submit(() -> {
+            try {
+                Files.write(path, lines, StandardCharsets.UTF_8);
+                api.logging().logToOutput("Exported " + (lines.size() - 1) + " header patterns to " + path);
+            } catch (IOException ex) {
+                api.logging().logToError("Failed to export header patterns: " + ex.getMessage());
+            }
+        });
+    }
+    
+    private void importFromProfile() {
+        List<String> others = new ArrayList<>(profiles.names());
+        others.remove(activeProfile);
+        if (others.isEmpty()) return;
+        Object choice = JOptionPane.showInputDialog(mainPanel, "Import header patterns from profile:",
+                "Import from Profile", JOptionPane.PLAIN_MESSAGE, null, others.toArray(), others.get(0));
+        if (choice == null) return;
+        String name = (String) choice;
+        Set<String> existing = new HashSet<>(currentPatterns(listModel));
+        progressBar.setVisible(true);
+        executor.submit(() -> checkImport(profiles.patterns(name), existing, "profile " + name));
+    }
+    
+    /**
+     * Compiles and safety-checks imported patterns off the EDT, one line each; blank lines, {@code #}
+     * comments and patterns already in the list are skipped. The result is added in a single step.
+     */
+    private void checkImport(List<String> lines, Set<String> existing, String source) {
+        List<String> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>(existing);
+        for (String line : lines) {
+            String pattern = line.strip();
+            if (!pattern.isEmpty() && !pattern.startsWith("#") && seen.add(pattern)) candidates.add(pattern);
+        }
+        Set<String> risky = new HashSet<>();
+        List<String> rejected = new ArrayList<>();
+        SwingUtilities.invokeLater(() -> progressBar.setMaximum(Math.max(1, candidates.size())));
+        for (int i = 0; i < candidates.size(); i++) {
+            String pattern = candidates.get(i);
+            try {
+                PatternCache.compile(pattern);
+                RegexSafety.Report report = RegexSafety.analyse(pattern);
+                if (report.verdict() == RegexSafety.Verdict.REJECT) rejected.add(pattern);
+                if (report.verdict() == RegexSafety.Verdict.WARN) risky.add(pattern);
+            } catch (PatternSyntaxException ex) {
+                // added as a literal, like a single pattern
+            }
+            int done = i + 1;
+            if (done % 16 == 0) SwingUtilities.invokeLater(() -> progressBar.setValue(done));
+        }
+        candidates.removeAll(rejected);
+        SwingUtilities.invokeLater(() -> {
+            progressBar.setVisible(false);
+            progressBar.setValue(0);
+            finishImport(candidates, risky, rejected, source);
+        });
+    }
+    
+    private void finishImport(List<String> candidates, Set<String> risky, List<String> rejected, String source) {
+        if (!rejected.isEmpty()) {
+            api.logging().logToError("Rejected " + rejected.size() + " imported header patterns (catastrophic backtracking): "
+                    + String.join(", ", rejected));
+        }
+        if (!risky.isEmpty()) {
+            List<String> preview = candidates.stream().filter(risky::contains).limit(IMPORT_PREVIEW).toList();
+            int choice = JOptionPane.showConfirmDialog(mainPanel, risky.size()
+                            + " imported patterns may be slow on some header names:\n" + String.join("\n", preview)
+                            + (risky.size() > IMPORT_PREVIEW ? "\n..." : "") + "\n\nAdd them anyway?",
+                    "Risky Patterns", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (choice != JOptionPane.OK_OPTION) candidates.removeAll(risky);
+        }
+        Set<String> present = new HashSet<>(currentPatterns(listModel));
+        List<String> added = new ArrayList<>();
+        for (String pattern : candidates) {
+            if (present.add(pattern)) added.add(pattern);
+        }
+        if (!added.isEmpty()) {
+            listModel.addAll(added);
+            publishPatterns(listModel);
+        }
+        api.logging().logToOutput("Imported " + added.size() + " header patterns from " + source
+                + (rejected.isEmpty() ? "" : ", rejected " + rejected.size()));
     }
     
     private void resetToDefaults(DefaultListModel<String> listModel) {
-        excludedHeaderPatterns.clear();
-        excludedHeaderPatterns.addAll(Arrays.asList(
-            "content-length", "transfer-encoding", "connection",
-            "host", "accept-encoding", "user-agent", "sec-.*"
-        ));
         listModel.clear();
-        excludedHeaderPatterns.forEach(listModel::addElement);
-        recompilePatternsCallback.run();
+        defaultPatterns.forEach(listModel::addElement);
+        publishPatterns(listModel);
         api.logging().logToOutput("Reset excluded header patterns to defaults");
     }
     
+    private JPanel createBodySettingsPanel() {
+        JPanel bodyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bodyPanel.setBorder(BorderFactory.createTitledBorder("Body Handling"));
+
+        BodyPolicy current = filterConfig.get().bodyPolicy();
+        JComboBox<BodyMode> modeBox = new JComboBox<>(BodyMode.values());
+        modeBox.setSelectedItem(current.mode());
+        JSpinner limitSpinner = new JSpinner(new SpinnerNumberModel(
+                Math.max(1, current.truncateBytes() / 1024), 1, 1024 * 1024, 16));
+        limitSpinner.setEnabled(current.mode() == BodyMode.TRUNCATE);
+        JCheckBox decodeBox = new JCheckBox("Decode response bodies", current.decode());
+
+        Runnable apply = () -> {
+            BodyMode mode = (BodyMode) modeBox.getSelectedItem();
+            int limitKb = (Integer) limitSpinner.getValue();
+            limitSpinner.setEnabled(mode == BodyMode.TRUNCATE);
+            BodyPolicy policy = new BodyPolicy(mode, limitKb * 1024, decodeBox.isSelected());
+            filterConfig.updateBodyPolicy(policy);
+            executor.submit(() -> profiles.saveBodyPolicy(policy));
+            api.logging().logToOutput("Body handling set to: " + mode
+                    + (mode == BodyMode.TRUNCATE ? " (" + limitKb + " KB)" : ""));
+        };
+        modeBox.addActionListener(e -> apply.run());
+        onSettled(limitSpinner, apply);
+        decodeBox.addActionListener(e -> apply.run());
+
+        bodyPanel.add(new JLabel("Body:"));
+        bodyPanel.add(modeBox);
+        bodyPanel.add(new JLabel("Truncate after (KB):"));
+        bodyPanel.add(limitSpinner);
+        bodyPanel.add(decodeBox);
+        return bodyPanel;
+    }
+    
+    private JPanel createRedactionPanel() {
+        JPanel redactionPanel = new JPanel(new BorderLayout());
+        redactionPanel.setBorder(BorderFactory.createTitledBorder("Redaction"));
+
+        RedactionRules current = filterConfig.get().redaction();
+        JCheckBox enabledBox = new JCheckBox("Redact secrets in copies", current.enabled());
+        JCheckBox tokensBox = new JCheckBox("JWTs, AWS keys, emails", current.tokens());
+        JCheckBox cookieJarBox = new JCheckBox("Cookie jar values", current.cookieJar());
+        JTextArea literalsArea = new JTextArea(String.join("\n", current.literals()), 4, 40);
+        JButton applyButton = new JButton("Apply");
+
+        Runnable apply = () -> {
+            List<String> literals = new ArrayList<>();
+            for (String line : literalsArea.getText().split("\n")) {
+                String literal = line.strip();
+                if (literal.length() >= Redactor.MIN_LITERAL_LENGTH && !literals.contains(literal)) literals.add(literal);
+            }
+            RedactionRules rules = new RedactionRules(enabledBox.isSelected(), tokensBox.isSelected(),
+                    cookieJarBox.isSelected(), literals);
+            filterConfig.updateRedaction(rules);
+            executor.submit(() -> profiles.saveRedactionRules(rules));
+            api.logging().logToOutput("Redaction " + (rules.enabled() ? "on" : "off") + ", "
+                    + literals.size() + " literal secrets");
+        };
+        enabledBox.addActionListener(e -> apply.run());
+        tokensBox.addActionListener(e -> apply.run());
+        cookieJarBox.addActionListener(e -> apply.run());
+        applyButton.addActionListener(e -> apply.run());
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(enabledBox);
+        controls.add(tokensBox);
+        controls.add(cookieJarBox);
+        JPanel literalsPanel = new JPanel(new BorderLayout());
+        literalsPanel.add(new JLabel("Literal secrets (one per line, at least " + Redactor.MIN_LITERAL_LENGTH
+                + " characters):"), BorderLayout.NORTH);
+        literalsPanel.add(new JScrollPane(literalsArea), BorderLayout.CENTER);
+        JPanel applyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        applyPanel.add(applyButton);
+        literalsPanel.add(applyPanel, BorderLayout.SOUTH);
+
+        redactionPanel.add(controls, BorderLayout.NORTH);
+        redactionPanel.add(literalsPanel, BorderLayout.CENTER);
+        return redactionPanel;
+    }
+    
+    private JPanel createLiveFilterPanel() {
+        JPanel livePanel = new JPanel(new BorderLayout());
+        livePanel.setBorder(BorderFactory.createTitledBorder("Live Filter (in-scope traffic)"));
+
+        LiveFilterSettings current = liveFilter.settings();
+        JCheckBox requestsBox = new JCheckBox("Strip from requests", current.requests());
+        JCheckBox responsesBox = new JCheckBox("Strip from responses", current.responses());
+        JSpinner budgetSpinner = new JSpinner(new SpinnerNumberModel(current.budgetMicros(), 1, 1_000_000, 100));
+
+        Runnable apply = () -> {
+            LiveFilterSettings settings = new LiveFilterSettings(requestsBox.isSelected(), responsesBox.isSelected(),
+                    (Integer) budgetSpinner.getValue());
+            liveFilter.setSettings(settings);
+            executor.submit(() -> profiles.saveLiveFilterSettings(settings));
+            api.logging().logToOutput("Live filter: requests " + (settings.requests() ? "on" : "off")
+                    + ", responses " + (settings.responses() ? "on" : "off")
+                    + ", budget " + settings.budgetMicros() + " µs");
+        };
+        requestsBox.addActionListener(e -> apply.run());
+        responsesBox.addActionListener(e -> apply.run());
+        onSettled(budgetSpinner, apply);
+
+        JLabel statsLabel = new JLabel(liveStatsText());
+        JButton resetButton = new JButton("Reset Counters");
+        resetButton.addActionListener(e -> {
+            liveFilter.stats().reset();
+            liveFilter.matcher().stats().reset();
+            statsLabel.setText(liveStatsText());
+        });
+        refreshWhileShowing(statsLabel, () -> statsLabel.setText(liveStatsText()));
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(requestsBox);
+        controls.add(responsesBox);
+        controls.add(new JLabel("Budget per message (µs):"));
+        controls.add(budgetSpinner);
+        controls.add(resetButton);
+        JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statsPanel.add(statsLabel);
+
+        livePanel.add(controls, BorderLayout.NORTH);
+        livePanel.add(statsPanel, BorderLayout.CENTER);
+        return livePanel;
+    }
+    
+    private JPanel createIndexerPanel() {
+        JPanel indexerPanel = new JPanel(new BorderLayout());
+        indexerPanel.setBorder(BorderFactory.createTitledBorder("Proxy Pre-filtering"));
+
+        IndexerSettings current = indexer.settings();
+        JCheckBox enabledBox = new JCheckBox("Pre-filter new Proxy traffic", current.enabled());
+        JSpinner cacheSpinner = new JSpinner(new SpinnerNumberModel(current.cacheMegabytes(), 1, 4096, 8));
+        JSpinner cpuSpinner = new JSpinner(new SpinnerNumberModel(current.cpuPercent(), 1, 100, 5));
+
+        Runnable apply = () -> {
+            IndexerSettings settings = new IndexerSettings(enabledBox.isSelected(), (Integer) cacheSpinner.getValue(),
+                    (Integer) cpuSpinner.getValue());
+            indexer.setSettings(settings);
+            executor.submit(() -> profiles.saveIndexerSettings(settings));
+            api.logging().logToOutput("Proxy pre-filtering " + (settings.enabled() ? "on" : "off") + ", cache "
+                    + settings.cacheMegabytes() + " MB, CPU " + settings.cpuPercent() + "%");
+        };
+        enabledBox.addActionListener(e -> apply.run());
+        onSettled(cacheSpinner, apply);
+        onSettled(cpuSpinner, apply);
+
+        JLabel statsLabel = new JLabel(indexer.summary());
+        JButton clearButton = new JButton("Clear Cache");
+        clearButton.addActionListener(e -> {
+            indexer.cache().invalidate();
+            indexer.resetCounters();
+            statsLabel.setText(indexer.summary());
+        });
+        refreshWhileShowing(statsLabel, () -> statsLabel.setText(indexer.summary()));
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(enabledBox);
+        controls.add(new JLabel("Cache (MB):"));
+        controls.add(cacheSpinner);
+        controls.add(new JLabel("Max CPU (% of a core):"));
+        controls.add(cpuSpinner);
+        controls.add(clearButton);
+        JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statsPanel.add(statsLabel);
+
+        indexerPanel.add(controls, BorderLayout.NORTH);
+        indexerPanel.add(statsPanel, BorderLayout.CENTER);
+        return indexerPanel;
+    }
+    
+    /**
+     * Runs {@code apply} once {@code spinner} has not changed for {@value #SPINNER_SETTLE_MS} ms, so holding
+     * an arrow down saves and logs the final value instead of every step.
+     */
+    private static void onSettled(JSpinner spinner, Runnable apply) {
+        Timer timer = new Timer(SPINNER_SETTLE_MS, e -> apply.run());
+        timer.setRepeats(false);
+        spinner.addChangeListener(e -> timer.restart());
+    }
+
+    /** Runs {@code refresh} every second while {@code component} is on screen, so hidden panels cost nothing. */
+    private static void refreshWhileShowing(JComponent component, Runnable refresh) {
+        Timer timer = new Timer(1000, e -> refresh.run());
+        component.addAncestorListener(new AncestorListener() {
+            @Override
+            public void ancestorAdded(AncestorEvent event) {
+                refresh.run();
+                timer.start();
+            }
+
+            @Override
+            public void ancestorRemoved(AncestorEvent event) {
+                timer.stop();
+            }
+
+            @Override
+            public void ancestorMoved(AncestorEvent event) {
+            }
+        });
+    }
+    
+    private JPanel createMetricsPanel() {
+        JPanel metricsPanel = new JPanel(new BorderLayout());
+        metricsPanel.setBorder(BorderFactory.createTitledBorder("Metrics"));
+
+        JLabel totalsLabel = new JLabel();
+        DefaultTableModel phaseModel = readOnlyModel("Phase", "Count", "Avg µs", "p50 µs", "p95 µs", "p99 µs", "Max µs");
+        DefaultTableModel patternModel = readOnlyModel("Pattern", "Kind", "Hits", "Timed", "Avg µs", "Max µs",
+                "Timeouts");
+        JTable phaseTable = new JTable(phaseModel);
+        JTable patternTable = new JTable(patternModel);
+        patternTable.setAutoCreateRowSorter(true);
+
+        Runnable refresh = () -> {
+            MatchStats matchStats = filterConfig.get().matcher().stats();
+            totalsLabel.setText(metrics.messages() + " messages, " + metrics.bytesIn() + " bytes in, "
+                    + metrics.bytesOut() + " bytes out, " + matchStats.headersSeen() + " headers seen, "
+                    + matchStats.headersDropped() + " dropped");
+            phaseModel.setRowCount(0);
+            for (CopyMetrics.Phase phase : CopyMetrics.Phase.values()) {
+                LatencyHistogram histogram = metrics.phase(phase);
+                phaseModel.addRow(new Object[]{phase, histogram.count(), micros(histogram.averageMicros()),
+                        histogram.percentileMicros(0.50), histogram.percentileMicros(0.95),
+                        histogram.percentileMicros(0.99), micros(histogram.maxMicros())});
+            }
+            patternModel.setRowCount(0);
+            for (MatchStats.PatternStat stat : matchStats.patterns()) {
+                patternModel.addRow(new Object[]{stat.pattern(), stat.kind(), stat.hits(), stat.timedSamples(),
+                        micros(stat.averageMicros()), micros(stat.maxNanos() / 1000.0), stat.timeouts()});
+            }
+        };
+        refreshWhileShowing(totalsLabel, refresh);
+
+        JButton resetButton = new JButton("Reset Metrics");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            filterConfig.get().matcher().stats().reset();
+            refresh.run();
+        });
+        JButton exportButton = new JButton("Export CSV...");
+        exportButton.addActionListener(e -> exportMetrics());
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(totalsLabel);
+        controls.add(resetButton);
+        controls.add(exportButton);
+
+        JScrollPane phaseScroll = new JScrollPane(phaseTable);
+        phaseScroll.setPreferredSize(new Dimension(600, 100));
+        JScrollPane patternScroll = new JScrollPane(patternTable);
+        patternScroll.setPreferredSize(new Dimension(600, 160));
+        JPanel tables = new JPanel(new BorderLayout());
+        tables.add(phaseScroll, BorderLayout.NORTH);
+        tables.add(patternScroll, BorderLayout.CENTER);
+
+        metricsPanel.add(controls, BorderLayout.NORTH);
+        metricsPanel.add(tables, BorderLayout.CENTER);
+        return metricsPanel;
+    }
+    
+    private void exportMetrics() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("copycat-metrics.csv"));
+        if (chooser.showSaveDialog(mainPanel) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+        String csv = MetricsCsv.write(metrics, filterConfig.get().matcher().stats());
+        executor.submit(() -> {
+            try {
+                Files.writeString(path, csv, StandardCharsets.UTF_8);
+                api.logging().logToOutput("Metrics exported to " + path);
+            } catch (IOException ex) {
+                api.logging().logToError("Failed to export metrics: " + ex.getMessage());
+            }
+        });
+    }
+    
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+    
+    private static String micros(double value) {
+        return String.format("%.1f", value);
+    }
+    
+    private String liveStatsText() {
+        String cache = liveFilter.matcher().decisionCacheSummary();
+        return liveFilter.stats().snapshot() + (cache.isEmpty() ? "" : "; regex cache hits " + cache);
+    }
+    
+    /**
+     * Compiles and saves the list off the EDT. Edits made in quick succession are coalesced, so only the
+     * last list is compiled; regexes already compiled for an earlier list are reused.
+     */
+    private void publishPatterns(DefaultListModel<String> listModel) {
+        String profile = activeProfile;
+        filterConfig.update(currentPatterns(listModel), patterns -> {
+            HeaderMatcher matcher = HeaderMatcher.compile(patterns);
+            profiles.save(profile, patterns, matcher);
+            return matcher;
+        }, task -> executor.submitLatest(CopycatExecutor.PATTERNS, task)).exceptionally(ex -> {
+            api.logging().logToError("Failed to compile header patterns: " + ex.getMessage());
+            return null;
+        });
+    }
+    
+    private static List<String> currentPatterns(DefaultListModel<String> listModel) {
+        List<String> patterns = new ArrayList<>(listModel.size());
+        for (int i = 0; i < listModel.size(); i++) {
+            patterns.add(listModel.get(i));
+        }
+        return patterns;
+    }
+    
     private JPanel createInstructionsPanel() {
         JPanel instructionsPanel = new JPanel(new BorderLayout());
         instructionsPanel.setBorder(BorderFactory.createTitledBorder("Usage Instructions"));
@@ -212,6 +797,9 @@ public class CopycatSettingsPanel implements SettingsPanel {
                 3. The content will be copied to clipboard with excluded headers removed
                 4. Use this settings panel to customize header exclusion patterns
                 
+                Patterns match the whole header name, ignoring case; use 'name.*' or '^name'
+                to match by prefix and '.*name.*' to match anywhere in the name.
+                
                 Regex Pattern Examples:
                 • 'content-.*' - matches content-length, content-type, etc.
                 • 'x-.*' - matches all X- headers
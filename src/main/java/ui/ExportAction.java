@@ -0,0 +1,217 @@
+package ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
+import export.ExportEncoder;
+import export.ExportFormat;
+import export.ExportWriter;
+import filter.ByteOutput;
+import filter.FilterConfig;
+import filter.FilteredCache;
+import metrics.CopyMetrics;
+import render.FilteredMessages;
+import task.CopycatExecutor;
+
+/**
+ * Writes the selected items to a file as raw HTTP, HAR or JSON Lines. Items are filtered by
+ * {@link ParallelFilter}, encoded in selection order into chunks that an {@link ExportWriter} writes on
+ * its own thread, so filtering the next items overlaps with writing the previous ones.
+ */
+public class ExportAction implements ActionListener {
+    private static final int PROGRESS_STEP = 16;
+
+    private final ContextMenuEvent event;
+    private final MontoyaApi api;
+    private final CopycatExecutor executor;
+    private final Supplier<FilterConfig> filterConfig;
+    private final CopyMetrics metrics;
+    private final FilteredCache cache;
+
+    public ExportAction(ContextMenuEvent event, MontoyaApi api, CopycatExecutor executor,
+                        Supplier<FilterConfig> filterConfig, CopyMetrics metrics, FilteredCache cache) {
+        this.event = event;
+        this.api = api;
+        this.executor = executor;
+        this.filterConfig = filterConfig;
+        this.metrics = metrics;
+        this.cache = cache;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        List<HttpRequestResponse> selected = List.copyOf(event.selectedRequestResponses());
+        if (selected.isEmpty()) {
+            api.logging().logToOutput("No items selected to export");
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export " + selected.size() + " items (headers filtered)");
+        chooser.setAcceptAllFileFilterUsed(false);
+        for (ExportFormat format : ExportFormat.values()) {
+            chooser.addChoosableFileFilter(new FormatFilter(format));
+        }
+        if (chooser.showSaveDialog(api.userInterface().swingUtils().suiteFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        ExportFormat format = ((FormatFilter) chooser.getFileFilter()).format;
+        Path path = withExtension(chooser.getSelectedFile(), format);
+
+        ProgressMonitor monitor = new ProgressMonitor(api.userInterface().swingUtils().suiteFrame(),
+                "Exporting " + selected.size() + " items to " + path.getFileName(), "", 0, selected.size());
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        executor.submit(() -> export(selected, format, path, monitor, cancelled));
+    }
+
+    private void export(List<HttpRequestResponse> selected, ExportFormat format, Path path,
+                        ProgressMonitor monitor, AtomicBoolean cancelled) {
+        FilterConfig config = filterConfig.get();
+        ExportEncoder encoder = format.encoder();
+        ExportWriter writer;
+        try {
+            writer = new ExportWriter(path, format.compressed());
+        } catch (IOException ex) {
+            finish(monitor, "Export failed: " + ex.getMessage(), true);
+            return;
+        }
+
+        ItemWriter items = new ItemWriter(encoder, writer, selected.size(), monitor, cancelled);
+        try {
+            encoder.begin(items.chunk);
+            ParallelFilter.run(executor.workers(), selected, (entry, out) -> {
+                if (entry.request() != null) MontoyaMessages.addRequest(out, entry.request(), config, metrics, cache);
+                if (entry.response() != null) MontoyaMessages.addResponse(out, entry.response(), config, metrics, cache);
+            }, items);
+            if (items.failure != null) throw items.failure;
+            if (items.exported < selected.size()) {
+                writer.abort();
+                finish(monitor, "Export cancelled after " + items.exported + " items", false);
+                return;
+            }
+            encoder.end(items.chunk);
+            writer.submit(items.chunk);
+            writer.close();
+        } catch (IOException | RuntimeException ex) {
+            writer.abort();
+            finish(monitor, "Export failed: " + ex.getMessage(), true);
+            return;
+        }
+        finish(monitor, items.exported + " items exported to " + path + " (" + writer.bytesWritten()
+                + " bytes, headers filtered)", false);
+    }
+
+    /** Encodes filtered items in selection order and hands full chunks to the writer. */
+    private final class ItemWriter implements ParallelFilter.Merge {
+        private final ExportEncoder encoder;
+        private final ExportWriter writer;
+        private final int total;
+        private final ProgressMonitor monitor;
+        private final AtomicBoolean cancelled;
+        private final FilteredMessages item = new FilteredMessages();
+        private ByteOutput chunk;
+        private int exported;
+        private IOException failure;
+
+        ItemWriter(ExportEncoder encoder, ExportWriter writer, int total, ProgressMonitor monitor,
+                   AtomicBoolean cancelled) {
+            this.encoder = encoder;
+            this.writer = writer;
+            this.total = total;
+            this.monitor = monitor;
+            this.cancelled = cancelled;
+            this.chunk = writer.acquire();
+        }
+
+        @Override
+        public boolean accept(FilteredMessages source, int from, int to) {
+            if (cancelled.get() || Thread.currentThread().isInterrupted()) return false;
+            item.clear();
+            item.addSegments(source, from, to);
+            encoder.item(exported, item, chunk);
+            exported++;
+            if (chunk.size() >= ExportWriter.CHUNK_BYTES) {
+                try {
+                    writer.submit(chunk);
+                } catch (IOException ex) {
+                    failure = ex;
+                    return false;
+                }
+                chunk = writer.acquire();
+            }
+            if (exported % PROGRESS_STEP == 0) {
+                reportProgress(monitor, cancelled, exported, total);
+            }
+            return true;
+        }
+    }
+
+    private void reportProgress(ProgressMonitor monitor, AtomicBoolean cancelled, int done, int total) {
+        SwingUtilities.invokeLater(() -> {
+            if (monitor.isCanceled()) {
+                cancelled.set(true);
+                return;
+            }
+            monitor.setProgress(done);
+            monitor.setNote(done + " / " + total);
+        });
+    }
+
+    private void finish(ProgressMonitor monitor, String message, boolean error) {
+        SwingUtilities.invokeLater(() -> {
+            monitor.close();
+            if (error) {
+                api.logging().logToError(message);
+                JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), message,
+                        "Copycat", JOptionPane.ERROR_MESSAGE);
+            } else {
+                api.logging().logToOutput(message);
+            }
+        });
+    }
+
+    private static Path withExtension(File file, ExportFormat format) {
+        String suffix = "." + format.extension();
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(suffix)) return file.toPath();
+        return new File(file.getParentFile(), file.getName() + suffix).toPath();
+    }
+
+    private static final class FormatFilter extends FileFilter {
+        private final ExportFormat format;
+        private final FileNameExtensionFilter delegate;
+
+        FormatFilter(ExportFormat format) {
+            this.format = format;
+            this.delegate = new FileNameExtensionFilter(format.toString(), format.extension());
+        }
+
+        @Override
+        public boolean accept(File f) {
+            return delegate.accept(f);
+        }
+
+        @Override
+        public String getDescription() {
+            return delegate.getDescription();
+        }
+    }
+}
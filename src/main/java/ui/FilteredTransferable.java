@@ -0,0 +1,167 @@
+package ui;
+
+import java.awt.Toolkit;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import filter.ByteOutput;
+import filter.ByteOutputPool;
+import metrics.CopyMetrics;
+import render.FilteredMessages;
+import render.OutputFormat;
+import render.Utf8Text;
+
+/**
+ * Clipboard contents for one copy. Every format is rendered from the same {@link FilteredMessages}
+ * model, and only when a paste target actually asks for that flavor. Plain text requested through the
+ * reader flavor streams straight from the filtered buffer instead of building a second copy. Text is read
+ * with {@link Utf8Text}, so decoded UTF-8 bodies paste as the characters they encode.
+ * The plain-text flavors carry the {@code primary} format, so "Copy as curl" pastes as curl everywhere.
+ * The filtered buffer comes from {@link #BUFFERS} and goes back to it once another copy takes the clipboard
+ * and every plain-text stream handed out over it has been closed.
+ */
+final class FilteredTransferable implements Transferable, ClipboardOwner {
+    /** Filtered and rendering buffers, shared by every copy. */
+    static final ByteOutputPool BUFFERS = new ByteOutputPool(4, 8 * 1024 * 1024);
+
+    private static final DataFlavor READER_FLAVOR = flavor("text/plain;charset=unicode;class=java.io.Reader");
+    private static final DataFlavor HTML_FLAVOR = flavor("text/html;class=java.lang.String");
+    private static final DataFlavor MARKDOWN_FLAVOR = flavor("text/markdown;class=java.lang.String");
+    private static final DataFlavor CURL_FLAVOR = flavor("text/x-curl;class=java.lang.String");
+    private static final DataFlavor[] FLAVORS = {
+        DataFlavor.stringFlavor, READER_FLAVOR, HTML_FLAVOR, MARKDOWN_FLAVOR, CURL_FLAVOR
+    };
+
+    private final FilteredMessages messages;
+    private final OutputFormat primary;
+    private final CopyMetrics metrics;
+    private final Map<OutputFormat, String> rendered = new EnumMap<>(OutputFormat.class);
+    private boolean released;
+    private int openStreams;
+
+    FilteredTransferable(FilteredMessages messages, OutputFormat primary, CopyMetrics metrics) {
+        this.messages = messages;
+        this.primary = primary;
+        this.metrics = metrics;
+    }
+
+    /** Puts {@code messages} on the system clipboard; their buffer is owned by the clipboard from then on. */
+    static void copyToClipboard(FilteredMessages messages, OutputFormat primary, CopyMetrics metrics) {
+        long start = System.nanoTime();
+        FilteredTransferable contents = new FilteredTransferable(messages, primary, metrics);
+        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        try {
+            clipboard.setContents(contents, contents);
+        } catch (IllegalStateException e) {
+            contents.lostOwnership(clipboard, contents);
+            throw e;
+        }
+        metrics.record(CopyMetrics.Phase.CLIPBOARD, System.nanoTime() - start);
+    }
+
+    @Override
+    public synchronized void lostOwnership(Clipboard clipboard, Transferable contents) {
+        if (released) return;
+        released = true;
+        if (openStreams == 0) BUFFERS.release(messages.buffer());
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors() {
+        return FLAVORS.clone();
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        for (DataFlavor supported : FLAVORS) {
+            if (supported.equals(flavor)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+        if (!isDataFlavorSupported(flavor)) throw new UnsupportedFlavorException(flavor);
+        if (DataFlavor.stringFlavor.equals(flavor)) return render(primary);
+        if (READER_FLAVOR.equals(flavor)) {
+            return primary == OutputFormat.PLAIN
+                    ? Utf8Text.reader(streamPlain())
+                    : new StringReader(render(primary));
+        }
+        if (HTML_FLAVOR.equals(flavor)) return render(OutputFormat.HTML);
+        if (MARKDOWN_FLAVOR.equals(flavor)) return render(OutputFormat.MARKDOWN);
+        if (CURL_FLAVOR.equals(flavor)) return render(OutputFormat.CURL);
+        throw new UnsupportedFlavorException(flavor);
+    }
+
+    private synchronized String render(OutputFormat format) throws IOException {
+        checkNotReleased();
+        String text = rendered.get(format);
+        if (text != null) return text;
+        long start = System.nanoTime();
+        ByteOutput out = BUFFERS.acquire();
+        try {
+            format.renderer().render(messages, out);
+            text = Utf8Text.decode(out.array(), 0, out.size());
+        } finally {
+            BUFFERS.release(out);
+        }
+        metrics.record(CopyMetrics.Phase.RENDER, System.nanoTime() - start);
+        rendered.put(format, text);
+        return text;
+    }
+
+    /** Streams the filtered buffer itself; it stays out of {@link #BUFFERS} until the stream is closed. */
+    private synchronized InputStream streamPlain() throws IOException {
+        checkNotReleased();
+        List<InputStream> parts = new ArrayList<>();
+        byte[] separator = "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        for (FilteredMessages.Segment segment : messages.segments()) {
+            if (!parts.isEmpty()) parts.add(new ByteArrayInputStream(separator));
+            parts.add(new ByteArrayInputStream(messages.array(), segment.offset(), segment.length()));
+        }
+        openStreams++;
+        return new SequenceInputStream(Collections.enumeration(parts)) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (closed) return;
+                closed = true;
+                streamClosed();
+            }
+        };
+    }
+
+    private synchronized void streamClosed() {
+        openStreams--;
+        if (released && openStreams == 0) BUFFERS.release(messages.buffer());
+    }
+
+    private void checkNotReleased() throws IOException {
+        if (released) throw new IOException("Clipboard contents were replaced");
+    }
+
+    private static DataFlavor flavor(String mimeType) {
+        try {
+            return new DataFlavor(mimeType);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitorInputStream;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import export.CopycatDecoder;
+import export.ExportFormat;
+import render.FilteredMessages;
+import task.CopycatExecutor;
+
+/**
+ * Reads a compressed Copycat export back and sends each item to the Organizer, so filtered captures can
+ * move between Burp instances. The file is read one frame at a time behind a progress dialog.
+ */
+public class ImportAction implements ActionListener {
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final MontoyaApi api;
+    private final CopycatExecutor executor;
+
+    public ImportAction(MontoyaApi api, CopycatExecutor executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        ExportFormat format = ExportFormat.COMPRESSED;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Compressed Copycat Export");
+        chooser.setFileFilter(new FileNameExtensionFilter(format.toString(), format.extension()));
+        if (chooser.showOpenDialog(api.userInterface().swingUtils().suiteFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        InputStream in;
+        try {
+            in = new ProgressMonitorInputStream(api.userInterface().swingUtils().suiteFrame(),
+                    "Importing " + path.getFileName(),
+                    new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_BYTES));
+        } catch (IOException ex) {
+            finish("Import failed: " + ex.getMessage(), true);
+            return;
+        }
+        executor.submit(() -> importFrom(in, path));
+    }
+
+    private void importFrom(InputStream stream, Path path) {
+        int[] sent = {0};
+        try (InputStream in = stream) {
+            int items = CopycatDecoder.read(in, item -> {
+                if (send(item)) sent[0]++;
+            });
+            finish(sent[0] + " of " + items + " items imported from " + path + " to the Organizer", false);
+        } catch (InterruptedIOException ex) {
+            finish("Import cancelled after " + sent[0] + " items", false);
+        } catch (IOException | RuntimeException ex) {
+            finish("Import failed after " + sent[0] + " items: " + ex.getMessage(), true);
+        }
+    }
+
+    /** Sends the item's request, with its response if it has one; items without a request are skipped. */
+    private boolean send(FilteredMessages item) {
+        FilteredMessages.Segment request = null;
+        FilteredMessages.Segment response = null;
+        for (FilteredMessages.Segment segment : item.segments()) {
+            if (segment.kind() == FilteredMessages.Kind.REQUEST && request == null) request = segment;
+            if (segment.kind() == FilteredMessages.Kind.RESPONSE && response == null) response = segment;
+        }
+        if (request == null) return false;
+
+        ByteArray requestBytes = bytes(item, request);
+        HttpService service = service(request.url());
+        HttpRequest httpRequest = service == null
+                ? HttpRequest.httpRequest(requestBytes)
+                : HttpRequest.httpRequest(service, requestBytes);
+        HttpResponse httpResponse = response == null ? null : HttpResponse.httpResponse(bytes(item, response));
+        api.organizer().sendToOrganizer(HttpRequestResponse.httpRequestResponse(httpRequest, httpResponse));
+        return true;
+    }
+
+    private static ByteArray bytes(FilteredMessages item, FilteredMessages.Segment segment) {
+        return ByteArray.byteArray(Arrays.copyOfRange(item.array(), segment.offset(),
+                segment.offset() + segment.length()));
+    }
+
+    /** The service of an absolute URL, or {@code null} if there is none to restore. */
+    static HttpService service(String url) {
+        if (url == null) return null;
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() == null) return null;
+            boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+            int port = uri.getPort() >= 0 ? uri.getPort() : secure ? 443 : 80;
+            return HttpService.httpService(uri.getHost(), port, secure);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private void finish(String message, boolean error) {
+        SwingUtilities.invokeLater(() -> {
+            if (error) {
+                api.logging().logToError(message);
+                JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), message,
+                        "Copycat", JOptionPane.ERROR_MESSAGE);
+            } else {
+                api.logging().logToOutput(message);
+            }
+        });
+    }
+}
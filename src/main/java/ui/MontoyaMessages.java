@@ -0,0 +1,154 @@
+package ui;
+
+import java.security.MessageDigest;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpMessage;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import filter.BodyMode;
+import filter.BodySource;
+import filter.BodyWriter;
+import filter.ByteOutput;
+import filter.ContentInfo;
+import filter.FilterConfig;
+import filter.FilteredCache;
+import filter.MessageFilter;
+import metrics.CopyMetrics;
+import render.FilteredMessages;
+
+/**
+ * Bridges Montoya messages to the byte-level filter. Only the header section is copied out up front;
+ * body bytes are pulled in chunks and only as far as the configured body policy needs them. Time spent
+ * getting bytes out of Burp and time spent filtering are recorded as separate phases.
+ * <p>
+ * With a {@link FilteredCache}, the header section and the body bytes the filter would read are
+ * fingerprinted first, and a message filtered before with the same settings is served from the cache. The
+ * same bytes are digested as well when the cache needs to confirm a hit or store an entry.
+ * <p>
+ * Response bodies are decoded according to their {@code Content-Encoding} and {@code Content-Type}, which
+ * are read from the header section before it is filtered.
+ */
+public final class MontoyaMessages {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private MontoyaMessages() {
+    }
+
+    static void addRequest(FilteredMessages messages, HttpRequest request, FilterConfig config, CopyMetrics metrics,
+                           FilteredCache cache) {
+        int mark = messages.begin();
+        filterInto(request, true, config, messages.buffer(), metrics, cache);
+        messages.end(mark, FilteredMessages.Kind.REQUEST, request.url());
+    }
+
+    static void addResponse(FilteredMessages messages, HttpResponse response, FilterConfig config,
+                            CopyMetrics metrics, FilteredCache cache) {
+        int mark = messages.begin();
+        filterInto(response, false, config, messages.buffer(), metrics, cache);
+        messages.end(mark, FilteredMessages.Kind.RESPONSE, null);
+    }
+
+    static void filterInto(HttpMessage message, boolean request, FilterConfig config, ByteOutput out,
+                           CopyMetrics metrics, FilteredCache cache) {
+        long start = System.nanoTime();
+        ByteArray raw = message.toByteArray();
+        int length = raw.length();
+        int bodyOffset = Math.max(0, Math.min(message.bodyOffset(), length));
+        byte[] head = bodyOffset > 0 ? raw.subArray(0, bodyOffset).getBytes() : new byte[0];
+        BodySource body = new ByteArrayBodySource(raw, bodyOffset, length - bodyOffset);
+        long extracted = System.nanoTime();
+        metrics.record(CopyMetrics.Phase.EXTRACT, extracted - start);
+
+        int before = out.size();
+        boolean cached = cache != null && cache.isEnabled();
+        ContentInfo content = ContentInfo.forBody(request, head, config.bodyPolicy());
+        Fingerprint fingerprint = cached ? new Fingerprint(request, length, head, body, content, config) : null;
+        if (!cached || !cache.copyTo(fingerprint.hash(), length, config, fingerprint::digest, out)) {
+            MessageFilter.filter(head, body, content, false, config, out);
+            if (cached) {
+                cache.store(fingerprint.hash(), length, config, fingerprint.digest(),
+                        out.array(), before, out.size() - before);
+            }
+        }
+        metrics.record(CopyMetrics.Phase.FILTER, System.nanoTime() - extracted);
+        metrics.recordMessage(length, out.size() - before);
+    }
+
+    /** Filters {@code message} into {@code cache} unless an identical one is already there or it is too large. */
+    public static void prefetch(HttpMessage message, boolean request, FilterConfig config, FilteredCache cache,
+                                int maxLength, ByteOutput scratch) {
+        ByteArray raw = message.toByteArray();
+        int length = raw.length();
+        if (length > maxLength) return;
+        int bodyOffset = Math.max(0, Math.min(message.bodyOffset(), length));
+        byte[] head = bodyOffset > 0 ? raw.subArray(0, bodyOffset).getBytes() : new byte[0];
+        BodySource body = new ByteArrayBodySource(raw, bodyOffset, length - bodyOffset);
+
+        ContentInfo content = ContentInfo.forBody(request, head, config.bodyPolicy());
+        Fingerprint fingerprint = new Fingerprint(request, length, head, body, content, config);
+        if (cache.contains(fingerprint.hash(), length, config)) return;
+        scratch.reset();
+        MessageFilter.filter(head, body, content, false, config, scratch);
+        cache.store(fingerprint.hash(), length, config, fingerprint.digest(), scratch.array(), 0, scratch.size());
+    }
+
+    /**
+     * Covers every byte the filtered output depends on: the whole body for SHA-256 and for encoded bodies
+     * that are decoded, otherwise the bytes copied. The fast hash is computed up front; the digest of the
+     * same bytes only when asked for, and then once.
+     */
+    private static final class Fingerprint {
+        private final byte[] head;
+        private final BodySource body;
+        private final int needed;
+        private final long hash;
+        private byte[] digest;
+
+        Fingerprint(boolean request, int length, byte[] head, BodySource body, ContentInfo content, FilterConfig config) {
+            this.head = head;
+            this.body = body;
+            this.needed = config.bodyPolicy().mode() == BodyMode.HASH_ONLY
+                    ? body.length() : BodyWriter.bytesNeeded(config.bodyPolicy(), content, body.length());
+            long h = FilteredCache.hash(FilteredCache.seed(request, length), head, 0, head.length);
+            byte[] chunk = chunk();
+            for (int pos = 0; pos < needed; pos += chunk.length) {
+                int n = Math.min(chunk.length, needed - pos);
+                body.read(pos, chunk, 0, n);
+                h = FilteredCache.hash(h, chunk, 0, n);
+            }
+            this.hash = h;
+        }
+
+        long hash() {
+            return hash;
+        }
+
+        byte[] digest() {
+            if (digest == null) {
+                MessageDigest md = FilteredCache.newDigest();
+                md.update(head);
+                byte[] chunk = chunk();
+                for (int pos = 0; pos < needed; pos += chunk.length) {
+                    int n = Math.min(chunk.length, needed - pos);
+                    body.read(pos, chunk, 0, n);
+                    md.update(chunk, 0, n);
+                }
+                digest = md.digest();
+            }
+            return digest;
+        }
+
+        private byte[] chunk() {
+            return new byte[Math.min(CHUNK_SIZE, Math.max(needed, 1))];
+        }
+    }
+
+    private record ByteArrayBodySource(ByteArray raw, int offset, int length) implements BodySource {
+        @Override
+        public void read(int from, byte[] dst, int dstOffset, int count) {
+            byte[] chunk = raw.subArray(offset + from, offset + from + count).getBytes();
+            System.arraycopy(chunk, 0, dst, dstOffset, count);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ui;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import filter.ByteOutputPool;
+import render.FilteredMessages;
+
+/**
+ * Filters a selection in parallel and hands the results back one item at a time, in selection order.
+ * <p>
+ * The selection is cut into contiguous chunks, each filtered by one task on the work-stealing pool into
+ * a buffer from {@link #BUFFERS}. The calling thread merges finished chunks strictly in order and submits
+ * a new chunk for each one it merges, so at most two chunks per worker are held at once however large
+ * the selection is. Chunks are sized from the selection and the worker count, so every worker gets
+ * several. Buffers of chunks left unmerged after an early stop or a failure go back to the pool as well.
+ * Selections below {@link #MIN_PARALLEL_ITEMS} are filtered on the calling thread, where
+ * handing work to the pool would cost more than it saves.
+ */
+final class ParallelFilter {
+    static final int MIN_PARALLEL_ITEMS = 64;
+    private static final int MIN_CHUNK_ITEMS = 8;
+    private static final int MAX_CHUNK_ITEMS = 256;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final ByteOutputPool BUFFERS = new ByteOutputPool(64, 4 * 1024 * 1024);
+
+    /** Filters one item into {@code out}. Must be safe to call from several threads at once. */
+    interface Filter<T> {
+        void filter(T item, FilteredMessages out);
+    }
+
+    /**
+     * Receives the messages of one item: {@code source.segments()[from, to)}. Called on the calling thread,
+     * in selection order; returns false to stop, which cancels the remaining chunks.
+     */
+    interface Merge {
+        boolean accept(FilteredMessages source, int from, int to);
+    }
+
+    /** A filtered chunk; {@code ends[i]} is the segment index after the last message of its i-th item. */
+    private record Chunk(FilteredMessages messages, int[] ends) {
+    }
+
+    private ParallelFilter() {
+    }
+
+    /**
+     * Filters every item and merges them in order. Returns early, with the thread's interrupt flag set,
+     * if the calling thread is interrupted while waiting for a chunk.
+     */
+    static <T> void run(ForkJoinPool pool, List<T> items, Filter<T> filter, Merge merge) {
+        int workers = pool.getParallelism();
+        if (items.size() < MIN_PARALLEL_ITEMS || workers < 2) {
+            runSequential(items, filter, merge);
+            return;
+        }
+        int chunkItems = Math.clamp(items.size() / (workers * CHUNKS_PER_WORKER), MIN_CHUNK_ITEMS, MAX_CHUNK_ITEMS);
+        int window = workers * 2;
+        ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>(window);
+        int next = 0;
+        try {
+            while (next < items.size() && inFlight.size() < window) {
+                inFlight.addLast(submit(pool, items, next, Math.min(items.size(), next + chunkItems), filter));
+                next += chunkItems;
+            }
+            while (!inFlight.isEmpty()) {
+                Chunk chunk = inFlight.peekFirst().get();
+                inFlight.pollFirst();
+                boolean more;
+                try {
+                    more = deliver(chunk, merge);
+                } finally {
+                    BUFFERS.release(chunk.messages().buffer());
+                }
+                if (!more) return;
+                if (next < items.size()) {
+                    inFlight.addLast(submit(pool, items, next, Math.min(items.size(), next + chunkItems), filter));
+                    next += chunkItems;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (ForkJoinTask<Chunk> task : inFlight) {
+                task.cancel(true);
+                if (task.isCompletedNormally()) BUFFERS.release(task.getRawResult().messages().buffer());
+            }
+        }
+    }
+
+    private static <T> void runSequential(List<T> items, Filter<T> filter, Merge merge) {
+        FilteredMessages staging = new FilteredMessages(BUFFERS.acquire());
+        try {
+            for (T item : items) {
+                staging.clear();
+                filter.filter(item, staging);
+                if (!merge.accept(staging, 0, staging.segments().size())) return;
+            }
+        } finally {
+            BUFFERS.release(staging.buffer());
+        }
+    }
+
+    private static <T> ForkJoinTask<Chunk> submit(ForkJoinPool pool, List<T> items, int from, int to, Filter<T> filter) {
+        return pool.submit(() -> {
+            FilteredMessages messages = new FilteredMessages(BUFFERS.acquire());
+            int[] ends = new int[to - from];
+            try {
+                for (int i = from; i < to; i++) {
+                    filter.filter(items.get(i), messages);
+                    ends[i - from] = messages.segments().size();
+                }
+            } catch (RuntimeException | Error e) {
+                BUFFERS.release(messages.buffer());
+                throw e;
+            }
+            return new Chunk(messages, ends);
+        });
+    }
+
+    private static boolean deliver(Chunk chunk, Merge merge) {
+        int start = 0;
+        for (int end : chunk.ends()) {
+            if (!merge.accept(chunk.messages(), start, end)) return false;
+            start = end;
+        }
+        return true;
+    }
+}